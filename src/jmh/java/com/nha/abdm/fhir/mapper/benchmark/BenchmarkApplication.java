@@ -0,0 +1,34 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.benchmark;
+
+import com.nha.abdm.fhir.mapper.FHIRApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * The application context shared by the benchmarks of one forked JVM. It is started once, without
+ * the web server, so the converters run with the same beans, SNOMED terminology and warmed-up
+ * {@code FhirContext} as in production.
+ */
+final class BenchmarkApplication {
+  private static ConfigurableApplicationContext context;
+
+  private BenchmarkApplication() {}
+
+  static synchronized ConfigurableApplicationContext context() {
+    if (context == null) {
+      context =
+          new SpringApplicationBuilder(FHIRApplication.class)
+              .web(WebApplicationType.NONE)
+              .properties("spring.main.banner-mode=off", "logging.level.root=WARN")
+              .run();
+      Runtime.getRuntime().addShutdownHook(new Thread(context::close));
+    }
+    return context;
+  }
+
+  static <T> T getBean(Class<T> type) {
+    return context().getBean(type);
+  }
+}
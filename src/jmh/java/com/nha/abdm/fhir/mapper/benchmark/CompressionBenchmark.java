@@ -0,0 +1,131 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.compression.ContentCoding;
+import com.nha.abdm.fhir.mapper.rest.config.FhirJsonSerializer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * CPU against bytes of the response codings of {@code CompressionFilter}, on the encoded bundles of
+ * the two record types with the largest responses.
+ *
+ * <ul>
+ *   <li>{@code encode}: compressing the bundle JSON, as done for every response. The {@link Sizes}
+ *       counters give the bytes before and after, so their ratio is the compression ratio.
+ *   <li>{@code decode}: decompressing it again, as done for every compressed request.
+ * </ul>
+ *
+ * <p>{@code LARGE} bundles carry a random document, which does not compress and so shows the cost
+ * of compressing base64 for nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionBenchmark {
+  @Param({"DISCHARGE_SUMMARY", "DIAGNOSTIC_REPORT"})
+  public RecordType recordType;
+
+  @Param({"MEDIUM", "LARGE"})
+  public FixtureSize size;
+
+  /** The coding and its level. */
+  @Param({"gzip-1", "gzip-6", "gzip-9", "zstd-1", "zstd-3", "zstd-9"})
+  public String coding;
+
+  private ContentCoding contentCoding;
+  private int level;
+  private byte[] json;
+  private byte[] encoded;
+
+  /** Bytes per invocation, reported next to the time. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Sizes {
+    public long rawBytes;
+    public long encodedBytes;
+  }
+
+  @Setup
+  public void setUp() throws Exception {
+    String[] parts = coding.split("-");
+    contentCoding = ContentCoding.of(parts[0]);
+    level = Integer.parseInt(parts[1]);
+
+    ApplicationContext context = BenchmarkApplication.context();
+    RecordType.Conversion conversion =
+        recordType.bind(
+            context, size.scale(recordType.readFixture(context.getBean(ObjectMapper.class))));
+    BundleResponse response = conversion.run();
+    if (response.getError() != null) {
+      throw new IllegalStateException(
+          recordType + " fixture does not convert: " + response.getError().getMessage());
+    }
+    json =
+        context
+            .getBean(FhirJsonSerializer.class)
+            .encode(response.getBundle())
+            .getBytes(StandardCharsets.UTF_8);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    compress(out);
+    encoded = out.toByteArray();
+    if (!Arrays.equals(json, decompress())) {
+      throw new IllegalStateException(coding + " does not round-trip");
+    }
+  }
+
+  @Benchmark
+  public long encode(Sizes sizes) throws IOException {
+    CountingSink sink = new CountingSink();
+    compress(sink);
+    sizes.rawBytes += json.length;
+    sizes.encodedBytes += sink.count;
+    return sink.count;
+  }
+
+  @Benchmark
+  public byte[] decode() throws IOException {
+    return decompress();
+  }
+
+  private void compress(OutputStream out) throws IOException {
+    try (OutputStream encoder = contentCoding.encoding(out, level)) {
+      encoder.write(json);
+    }
+  }
+
+  private byte[] decompress() throws IOException {
+    try (InputStream decoder = contentCoding.decoding(new ByteArrayInputStream(encoded))) {
+      return decoder.readAllBytes();
+    }
+  }
+
+  /** Counts what it is given and drops it, so only the coding is measured. */
+  private static final class CountingSink extends OutputStream {
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
+}
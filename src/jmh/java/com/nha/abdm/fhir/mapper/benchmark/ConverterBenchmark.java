@@ -0,0 +1,79 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.config.FhirJsonSerializer;
+import com.nha.abdm.fhir.mapper.rest.converter.BundleDispatcher;
+import java.util.concurrent.TimeUnit;
+import org.hl7.fhir.r4.model.Bundle;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Converts every record type at every fixture size.
+ *
+ * <ul>
+ *   <li>{@code convert}: the converter's main method with an already bound request, the part that
+ *       builds the FHIR resources and looks up SNOMED codes.
+ *   <li>{@code dispatch}: what a request costs before it is written back: binding the JSON tree,
+ *       bean validation and the conversion, as done for every batch and stream item.
+ *   <li>{@code encode}: HAPI JSON encoding of the converted bundle.
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConverterBenchmark {
+  @Param public RecordType recordType;
+
+  @Param public FixtureSize size;
+
+  private BundleDispatcher bundleDispatcher;
+  private FhirJsonSerializer fhirJsonSerializer;
+  private JsonNode body;
+  private RecordType.Conversion conversion;
+  private Bundle bundle;
+
+  @Setup
+  public void setUp() throws Exception {
+    ApplicationContext context = BenchmarkApplication.context();
+    bundleDispatcher = context.getBean(BundleDispatcher.class);
+    fhirJsonSerializer = context.getBean(FhirJsonSerializer.class);
+    body = size.scale(recordType.readFixture(context.getBean(ObjectMapper.class)));
+    conversion = recordType.bind(context, body);
+
+    BundleResponse response = conversion.run();
+    if (response.getError() != null) {
+      throw new IllegalStateException(
+          recordType + " fixture does not convert: " + response.getError().getMessage());
+    }
+    bundle = response.getBundle();
+  }
+
+  @Benchmark
+  public BundleResponse convert() throws Exception {
+    return conversion.run();
+  }
+
+  @Benchmark
+  public void dispatch(Blackhole blackhole) {
+    BundleDispatcher.Outcome outcome = bundleDispatcher.dispatch(body);
+    try {
+      blackhole.consume(outcome.bundle());
+    } finally {
+      // Deletes the documents the LARGE fixtures spool, as the request paths do once encoded.
+      outcome.release();
+    }
+  }
+
+  @Benchmark
+  public String encode() {
+    return fhirJsonSerializer.encode(bundle);
+  }
+}
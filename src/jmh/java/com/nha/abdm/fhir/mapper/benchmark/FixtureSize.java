@@ -0,0 +1,77 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * How far a fixture is scaled up before it is benchmarked. Every fixture is a small but complete
+ * record; the larger sizes repeat each of its lists and attach a scanned document of a few
+ * megabytes, which is what slows real conversions down.
+ */
+public enum FixtureSize {
+  /** The fixture as written, one entry per list. */
+  SMALL(1, 0),
+  /** Ten entries per list. */
+  MEDIUM(10, 0),
+  /** Ten entries per list and a 4 MB PDF. */
+  LARGE(10, 4 * 1024 * 1024);
+
+  /** Lists describing who the record is about or by, which are never repeated. */
+  private static final List<String> FIXED_LISTS = List.of("practitioners");
+
+  private final int copies;
+  private final int documentBytes;
+
+  FixtureSize(int copies, int documentBytes) {
+    this.copies = copies;
+    this.documentBytes = documentBytes;
+  }
+
+  /**
+   * @param fixture a request body, left unchanged
+   * @return a scaled copy of the request body
+   */
+  public JsonNode scale(JsonNode fixture) {
+    ObjectNode scaled = fixture.deepCopy();
+    repeatLists(scaled);
+    if (documentBytes > 0) {
+      ObjectNode document = scaled.withArray("documents").addObject();
+      document.put("contentType", "application/pdf");
+      document.put("type", "Discharge scan");
+      document.put("data", randomBase64(documentBytes));
+    }
+    return scaled;
+  }
+
+  private void repeatLists(ObjectNode node) {
+    if (copies == 1) {
+      return;
+    }
+    Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      if (field.getValue().isArray() && !FIXED_LISTS.contains(field.getKey())) {
+        ArrayNode list = (ArrayNode) field.getValue();
+        List<JsonNode> original = new ArrayList<>();
+        list.forEach(original::add);
+        for (int i = 1; i < copies; i++) {
+          original.forEach(item -> list.add(item.deepCopy()));
+        }
+      }
+    }
+  }
+
+  private static String randomBase64(int bytes) {
+    byte[] data = new byte[bytes];
+    new Random(42).nextBytes(data);
+    return Base64.getEncoder().encodeToString(data);
+  }
+}
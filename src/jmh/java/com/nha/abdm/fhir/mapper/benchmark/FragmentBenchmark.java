@@ -0,0 +1,114 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.hl7.fhir.r4.model.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * The parts every bundle has in common, the {@code meta} of each resource and the identifier types
+ * and security label, for as many resources with a profile as the converted fixture has. Run with
+ * {@code -prof gc} to compare {@code gc.alloc.rate.norm}, the bytes allocated per bundle.
+ *
+ * <ul>
+ *   <li>{@code built}: building all of them anew, as every conversion did before {@link
+ *       FhirFragments}.
+ *   <li>{@code shared}: taking them from {@link FhirFragments}, which leaves a {@link Meta} and its
+ *       profile list per resource.
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FragmentBenchmark {
+  @Param({"OP_CONSULTATION", "DIAGNOSTIC_REPORT", "PRESCRIPTION"})
+  public RecordType recordType;
+
+  @Param({"SMALL", "MEDIUM"})
+  public FixtureSize size;
+
+  private ConversionContext context;
+  private String[] profiles;
+  private boolean[] versioned;
+
+  @Setup
+  public void setUp() throws Exception {
+    ApplicationContext applicationContext = BenchmarkApplication.context();
+    BundleResponse response =
+        recordType
+            .bind(
+                applicationContext,
+                size.scale(recordType.readFixture(applicationContext.getBean(ObjectMapper.class))))
+            .run();
+    if (response.getError() != null) {
+      throw new IllegalStateException(
+          recordType + " fixture does not convert: " + response.getError().getMessage());
+    }
+    List<Meta> metas = new ArrayList<>();
+    metas.add(response.getBundle().getMeta());
+    for (Bundle.BundleEntryComponent entry : response.getBundle().getEntry()) {
+      if (entry.getResource().getMeta().hasProfile()) {
+        metas.add(entry.getResource().getMeta());
+      }
+    }
+
+    profiles = new String[metas.size()];
+    versioned = new boolean[metas.size()];
+    for (int i = 0; i < metas.size(); i++) {
+      profiles[i] = metas.get(i).getProfile().get(0).getValue();
+      versioned[i] = metas.get(i).hasVersionId();
+    }
+    context = new ConversionContext(null, () -> "id");
+  }
+
+  @Benchmark
+  public Object[] built() {
+    Object[] parts = new Object[profiles.length + 3];
+    for (int i = 0; i < profiles.length; i++) {
+      Meta meta = new Meta();
+      if (versioned[i]) {
+        meta.setVersionId("1");
+      }
+      parts[i] = meta.setLastUpdatedElement(context.getTimestamp()).addProfile(profiles[i]);
+    }
+    parts[profiles.length] = providerCode("MR", "Medical record number");
+    parts[profiles.length + 1] = providerCode("PRN", "Provider number");
+    parts[profiles.length + 2] = new Coding().setDisplay("restricted");
+    return parts;
+  }
+
+  @Benchmark
+  public Object[] shared() {
+    Object[] parts = new Object[profiles.length + 3];
+    for (int i = 0; i < profiles.length; i++) {
+      parts[i] =
+          versioned[i]
+              ? FhirFragments.versionedMeta(context, profiles[i])
+              : FhirFragments.meta(context, profiles[i]);
+    }
+    parts[profiles.length] = FhirFragments.MEDICAL_RECORD_NUMBER;
+    parts[profiles.length + 1] = FhirFragments.PROVIDER_NUMBER;
+    parts[profiles.length + 2] = FhirFragments.RESTRICTED;
+    return parts;
+  }
+
+  private static CodeableConcept providerCode(String code, String display) {
+    return new CodeableConcept()
+        .addCoding(
+            new Coding()
+                .setCode(code)
+                .setSystem(ResourceProfileIdentifier.PROFILE_PROVIDER)
+                .setDisplay(display));
+  }
+}
@@ -0,0 +1,119 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.converter.*;
+import com.nha.abdm.fhir.mapper.rest.requests.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * The record types, their fixture under {@code fixtures/} and the converter method they run. The
+ * fixture name is also the record type's endpoint under {@code /v1/bundle}.
+ */
+public enum RecordType {
+  OP_CONSULTATION(
+      "op-consultation",
+      OPConsultationConverter.class,
+      OPConsultationRequest.class,
+      OPConsultationConverter::convertToOPConsultationBundle),
+  DISCHARGE_SUMMARY(
+      "discharge-summary",
+      DischargeSummaryConverter.class,
+      DischargeSummaryRequest.class,
+      DischargeSummaryConverter::convertToDischargeSummary),
+  DIAGNOSTIC_REPORT(
+      "diagnostic-report",
+      DiagnosticReportConverter.class,
+      DiagnosticReportRequest.class,
+      DiagnosticReportConverter::convertToDiagnosticBundle),
+  PRESCRIPTION(
+      "prescription",
+      PrescriptionConverter.class,
+      PrescriptionRequest.class,
+      PrescriptionConverter::convertToPrescriptionBundle),
+  IMMUNIZATION(
+      "immunization",
+      ImmunizationConverter.class,
+      ImmunizationRequest.class,
+      ImmunizationConverter::makeImmunizationBundle),
+  HEALTH_DOCUMENT(
+      "health-document",
+      HealthDocumentConverter.class,
+      HealthDocumentRecord.class,
+      HealthDocumentConverter::convertToHealthDocumentBundle),
+  WELLNESS_RECORD(
+      "wellness-record",
+      WellnessRecordConverter.class,
+      WellnessRecordRequest.class,
+      WellnessRecordConverter::getWellnessBundle);
+
+  private final String fixture;
+  private final Binder binder;
+
+  <C, R> RecordType(
+      String fixture, Class<C> converterType, Class<R> requestType, Converter<C, R> converter) {
+    this.fixture = fixture;
+    this.binder =
+        (context, objectMapper, body) -> {
+          C bean = context.getBean(converterType);
+          R request = objectMapper.treeToValue(body, requestType);
+          return () -> converter.convert(bean, request);
+        };
+  }
+
+  /**
+   * @return the fixture name, e.g. {@code op-consultation}
+   */
+  public String getName() {
+    return fixture;
+  }
+
+  /**
+   * @param objectMapper the application's mapper
+   * @return the request body of {@code fixtures/<name>.json}
+   */
+  public JsonNode readFixture(ObjectMapper objectMapper) {
+    String path = "/fixtures/" + fixture + ".json";
+    try (InputStream in = RecordType.class.getResourceAsStream(path)) {
+      if (in == null) {
+        throw new IllegalStateException("Missing benchmark fixture " + path);
+      }
+      return objectMapper.readTree(in);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Binds the body once, so the returned conversion only measures the converter itself.
+   *
+   * @param context the running application
+   * @param body a request body of this record type
+   * @return a call of the converter with the bound request
+   */
+  public Conversion bind(ApplicationContext context, JsonNode body) throws IOException {
+    return binder.bind(context, context.getBean(ObjectMapper.class), body);
+  }
+
+  /** A converter call with its request already bound. */
+  @FunctionalInterface
+  public interface Conversion {
+    BundleResponse run() throws Exception;
+  }
+
+  @FunctionalInterface
+  private interface Converter<C, R> {
+    BundleResponse convert(C converter, R request) throws Exception;
+  }
+
+  @FunctionalInterface
+  private interface Binder {
+    Conversion bind(ApplicationContext context, ObjectMapper objectMapper, JsonNode body)
+        throws IOException;
+  }
+}
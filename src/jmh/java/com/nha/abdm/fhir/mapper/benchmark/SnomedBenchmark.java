@@ -0,0 +1,105 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.benchmark;
+
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedIndex;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedIndexRegistry;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedTable;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedTerminology;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedTerminologyLoader;
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.Displayable;
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedCodeCache;
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedService;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Looks up SNOMED codes in each of the eight tables through the public {@link SnomedService}
+ * getters, i.e. the private {@code fuzzyMatch} behind them.
+ *
+ * <p>Queries cycle through displays taken from the table itself, half verbatim and half with their
+ * words shuffled, changed case and one word dropped, as free text from clients tends to be. With
+ * {@code cached=false} every call runs the match; with {@code cached=true} all but the first pass
+ * are served by {@link SnomedCodeCache}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnomedBenchmark {
+  private static final int QUERIES = 256;
+
+  @Param public SnomedTable table;
+
+  @Param({"false", "true"})
+  public boolean cached;
+
+  private BiFunction<SnomedService, String, Displayable> lookup;
+  private SnomedService snomedService;
+  private String[] queries;
+  private int next;
+
+  @Setup
+  public void setUp() throws Exception {
+    SnomedTerminology terminology = new SnomedTerminologyLoader().load("classpath:/snomed/");
+    SnomedCodeCache cache = new SnomedCodeCache(cached, 10_000, Duration.ofHours(1));
+    SnomedIndexRegistry registry = new SnomedIndexRegistry(cache);
+    registry.publish(terminology);
+    snomedService =
+        new SnomedService(registry, cache, new ConversionMetrics(new SimpleMeterRegistry()));
+    lookup = lookup(table);
+    queries = queries(terminology.get(table.getType()), new Random(7));
+  }
+
+  @Benchmark
+  public Displayable match() {
+    String query = queries[next];
+    next = (next + 1) % queries.length;
+    return lookup.apply(snomedService, query);
+  }
+
+  private static BiFunction<SnomedService, String, Displayable> lookup(SnomedTable table) {
+    return switch (table) {
+      case CONDITION_PROCEDURE -> SnomedService::getConditionProcedureCode;
+      case DIAGNOSTIC -> SnomedService::getSnomedDiagnosticCode;
+      case ENCOUNTER -> SnomedService::getSnomedEncounterCode;
+      case MEDICINE_ROUTE -> SnomedService::getSnomedMedicineRouteCode;
+      case MEDICINE -> SnomedService::getSnomedMedicineCode;
+      case OBSERVATION -> SnomedService::getSnomedObservationCode;
+      case SPECIMEN -> SnomedService::getSnomedSpecimenCode;
+      case VACCINE -> SnomedService::getSnomedVaccineCode;
+    };
+  }
+
+  private static String[] queries(SnomedIndex<? extends Displayable> index, Random random) {
+    List<? extends Displayable> rows = index.findAll();
+    if (rows.isEmpty()) {
+      throw new IllegalStateException("The SNOMED table is empty");
+    }
+    String[] queries = new String[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      String display = rows.get(random.nextInt(rows.size())).getDisplay();
+      queries[i] = i % 2 == 0 ? display : garble(display, random);
+    }
+    return queries;
+  }
+
+  private static String garble(String display, Random random) {
+    List<String> words = new ArrayList<>(Arrays.asList(display.split("\\s+")));
+    if (words.size() > 2) {
+      words.remove(random.nextInt(words.size()));
+    }
+    Collections.shuffle(words, random);
+    return String.join(" ", words).toUpperCase();
+  }
+}
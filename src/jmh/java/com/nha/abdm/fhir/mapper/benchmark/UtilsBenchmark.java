@@ -0,0 +1,72 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.benchmark;
+
+import com.nha.abdm.fhir.mapper.Utils;
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+import org.hl7.fhir.r4.model.DateTimeType;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * {@link Utils#getFormattedDateTime} for both date formats the requests allow, and {@link
+ * Utils#clean}. With {@code distinct=1} every call parses the same string, as the builders of one
+ * bundle do; with {@code distinct=4096} the strings outnumber the parser's cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UtilsBenchmark {
+  private static final DateTimeFormatter DATE_TIME =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+  @Param({"1", "4096"})
+  public int distinct;
+
+  private String[] dates;
+  private String[] dateTimes;
+  private String[] texts;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    dates = new String[distinct];
+    dateTimes = new String[distinct];
+    texts = new String[distinct];
+    LocalDate date = LocalDate.of(2024, 3, 21);
+    Instant instant = Instant.parse("2024-03-21T10:15:30.000Z");
+    for (int i = 0; i < distinct; i++) {
+      dates[i] = date.minusDays(i).toString();
+      dateTimes[i] = DATE_TIME.format(instant.minus(i, ChronoUnit.MINUTES));
+      texts[i] = "  Paracetamol   500 mg\toral  tablet " + i + "  ";
+    }
+  }
+
+  @Benchmark
+  public DateTimeType formatDate() throws ParseException {
+    return Utils.getFormattedDateTime(dates[advance()]);
+  }
+
+  @Benchmark
+  public DateTimeType formatDateTime() throws ParseException {
+    return Utils.getFormattedDateTime(dateTimes[advance()]);
+  }
+
+  @Benchmark
+  public String clean() {
+    return Utils.clean(texts[advance()]);
+  }
+
+  private int advance() {
+    int current = next;
+    next = current + 1 == distinct ? 0 : current + 1;
+    return current;
+  }
+}
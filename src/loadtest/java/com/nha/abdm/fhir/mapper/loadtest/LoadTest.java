@@ -0,0 +1,315 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.nha.abdm.fhir.mapper.FHIRApplication;
+import com.nha.abdm.fhir.mapper.benchmark.FixtureSize;
+import com.nha.abdm.fhir.mapper.benchmark.RecordType;
+import com.nha.abdm.fhir.mapper.rest.common.constants.SnomedCodeIdentifier;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application on a random port and drives the {@code /v1/bundle} and {@code /v1/snomed}
+ * endpoints from a fixed number of workers, then prints throughput and latency percentiles per
+ * endpoint. Needs nothing but a JDK: the database is the application's in-memory H2 and the
+ * payloads are the benchmark fixtures.
+ *
+ * <pre>
+ * ./gradlew loadTest -PloadTestArgs="--concurrency=32 --duration=2m --mix=op-consultation=3,snomed=1"
+ * </pre>
+ *
+ * With {@code --thread-modes=platform,virtual} the same load runs against Tomcat's platform thread
+ * pool and against virtual threads in turn; use a concurrency well above {@code
+ * server.tomcat.threads.max} to see where the pool caps throughput.
+ *
+ * <p>See {@link LoadTestOptions} for the options.
+ */
+public final class LoadTest {
+  private static final String SNOMED = "snomed";
+  private static final String BATCH = "batch";
+  private static final String STREAM = "stream";
+  private static final String VIRTUAL_THREADS = "spring.threads.virtual.enabled";
+
+  private final LoadTestOptions options;
+  private final HttpClient client;
+  private final List<Target> targets;
+  private final int totalWeight;
+
+  private volatile boolean running = true;
+
+  private LoadTest(LoadTestOptions options, HttpClient client, List<Target> targets) {
+    this.options = options;
+    this.client = client;
+    this.targets = targets;
+    this.totalWeight = targets.stream().mapToInt(Target::weight).sum();
+  }
+
+  public static void main(String[] args) throws Exception {
+    LoadTestOptions options = LoadTestOptions.parse(args);
+    if (options.threadModes().isEmpty()) {
+      run(options, options.applicationArgs(), options.out());
+      return;
+    }
+    Map<String, Summary> summaries = new LinkedHashMap<>();
+    for (String threadMode : options.threadModes()) {
+      System.out.printf("%n=== %s threads ===%n", threadMode);
+      // The mode replaces the setting, which Spring would otherwise read as a list of both.
+      List<String> applicationArgs = new ArrayList<>();
+      for (String arg : options.applicationArgs()) {
+        if (!arg.startsWith("--" + VIRTUAL_THREADS + "=")) {
+          applicationArgs.add(arg);
+        }
+      }
+      applicationArgs.add(
+          "--" + VIRTUAL_THREADS + "=" + threadMode.equals(LoadTestOptions.VIRTUAL));
+      summaries.put(
+          threadMode,
+          run(options, applicationArgs.toArray(new String[0]), options.out().resolve(threadMode)));
+    }
+    System.out.printf("%n=== totals by thread mode ===%n");
+    printHeader(System.out, "threads");
+    summaries.forEach(
+        (threadMode, summary) ->
+            printRow(
+                System.out,
+                threadMode,
+                summary.latencies(),
+                summary.failures(),
+                summary.seconds()));
+  }
+
+  private static Summary run(LoadTestOptions options, String[] args, Path out) throws Exception {
+    String[] applicationArgs = new String[args.length + 1];
+    applicationArgs[0] = "--server.port=0";
+    System.arraycopy(args, 0, applicationArgs, 1, args.length);
+
+    try (ConfigurableApplicationContext context =
+        new SpringApplicationBuilder(FHIRApplication.class).run(applicationArgs)) {
+      int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+      String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+      String base = "http://localhost:" + port + contextPath;
+      List<Target> targets = targets(options.mix(), base, context.getBean(ObjectMapper.class));
+      HttpClient client =
+          HttpClient.newBuilder()
+              .version(HttpClient.Version.HTTP_1_1)
+              .connectTimeout(Duration.ofSeconds(10))
+              .build();
+      return new LoadTest(options, client, targets).run(out);
+    }
+  }
+
+  private Summary run(Path out) throws Exception {
+    List<Thread> workers = new ArrayList<>(options.concurrency());
+    for (int i = 0; i < options.concurrency(); i++) {
+      Thread worker = new Thread(this::work, "load-test-" + (i + 1));
+      worker.setDaemon(true);
+      worker.start();
+      workers.add(worker);
+    }
+
+    System.out.printf(
+        "Warming up for %s with %d workers%n", options.warmup(), options.concurrency());
+    Thread.sleep(options.warmup().toMillis());
+    targets.forEach(Target::takeInterval);
+
+    System.out.printf("Measuring for %s%n", options.duration());
+    long start = System.nanoTime();
+    Thread.sleep(options.duration().toMillis());
+    Map<Target, Target.Interval> results = new LinkedHashMap<>();
+    targets.forEach(target -> results.put(target, target.takeInterval()));
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    running = false;
+    for (Thread worker : workers) {
+      worker.join(Duration.ofSeconds(30).toMillis());
+    }
+    Summary summary = report(results, seconds, System.out);
+    writeHistograms(results, out);
+    return summary;
+  }
+
+  private void work() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    // With a rate every worker sends its share at a fixed interval, from a random offset so the
+    // workers don't fire together.
+    long interval = options.rate() > 0 ? (long) (1e9 * options.concurrency() / options.rate()) : 0;
+    long due = System.nanoTime() + (interval > 0 ? random.nextLong(interval) : 0);
+    while (running) {
+      if (interval > 0) {
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+      } else {
+        due = System.nanoTime();
+      }
+      Target target = pick(random.nextInt(totalWeight));
+      try {
+        HttpResponse<Void> response =
+            client.send(target.nextRequest(), HttpResponse.BodyHandlers.discarding());
+        target.record(response.statusCode(), System.nanoTime() - due);
+      } catch (IOException e) {
+        target.recordFailure(System.nanoTime() - due);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      due += interval;
+    }
+  }
+
+  private Target pick(int ticket) {
+    for (Target target : targets) {
+      ticket -= target.weight();
+      if (ticket < 0) {
+        return target;
+      }
+    }
+    return targets.get(targets.size() - 1);
+  }
+
+  private static Summary report(
+      Map<Target, Target.Interval> results, double seconds, PrintStream out) {
+    printHeader(out, "target");
+    Histogram total = new Histogram(3);
+    long totalFailures = 0;
+    for (Map.Entry<Target, Target.Interval> result : results.entrySet()) {
+      Target.Interval interval = result.getValue();
+      printRow(out, result.getKey().name(), interval.latencies(), interval.failures(), seconds);
+      total.add(interval.latencies());
+      totalFailures += interval.failures();
+    }
+    printRow(out, "total", total, totalFailures, seconds);
+    return new Summary(total, totalFailures, seconds);
+  }
+
+  private static void printHeader(PrintStream out, String first) {
+    out.printf(
+        "%n%-28s %9s %9s %9s %9s %9s %9s %9s %9s%n",
+        first, "requests", "failures", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+  }
+
+  private static void printRow(
+      PrintStream out, String name, Histogram latencies, long failures, double seconds) {
+    out.printf(
+        "%-28s %9d %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+        name,
+        latencies.getTotalCount(),
+        failures,
+        latencies.getTotalCount() / seconds,
+        millis(latencies.getValueAtPercentile(50)),
+        millis(latencies.getValueAtPercentile(90)),
+        millis(latencies.getValueAtPercentile(99)),
+        millis(latencies.getValueAtPercentile(99.9)),
+        millis(latencies.getMaxValue()));
+  }
+
+  private static void writeHistograms(Map<Target, Target.Interval> results, Path out)
+      throws IOException {
+    Files.createDirectories(out);
+    for (Map.Entry<Target, Target.Interval> result : results.entrySet()) {
+      String file = result.getKey().name().replace(':', '-') + ".hgrm";
+      try (PrintStream hgrm = new PrintStream(Files.newOutputStream(out.resolve(file)))) {
+        result.getValue().latencies().outputPercentileDistribution(hgrm, 1e6);
+      }
+    }
+    System.out.printf("%nPercentile distributions (ms) written to %s%n", out);
+  }
+
+  /** Latencies and failures of every target together, over a measured run. */
+  private record Summary(Histogram latencies, long failures, double seconds) {}
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+
+  private static List<Target> targets(
+      Map<String, Integer> mix, String base, ObjectMapper objectMapper) throws IOException {
+    if (mix.isEmpty()) {
+      mix = new LinkedHashMap<>();
+      for (RecordType recordType : RecordType.values()) {
+        mix.put(recordType.getName(), 1);
+      }
+      mix.put(SNOMED, 1);
+    }
+    List<Target> targets = new ArrayList<>();
+    for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+      if (entry.getValue() > 0) {
+        targets.add(target(entry.getKey(), entry.getValue(), base, objectMapper));
+      }
+    }
+    if (targets.isEmpty()) {
+      throw new IllegalArgumentException("--mix has no target with a positive weight");
+    }
+    return targets;
+  }
+
+  private static Target target(String name, int weight, String base, ObjectMapper objectMapper)
+      throws IOException {
+    if (name.equals(SNOMED)) {
+      List<HttpRequest> requests = new ArrayList<>();
+      for (String resource : SnomedCodeIdentifier.availableSnomed) {
+        requests.add(HttpRequest.newBuilder(URI.create(base + "/v1/snomed/" + resource)).build());
+      }
+      return new Target(name, weight, 200, requests);
+    }
+
+    int separator = name.indexOf(':');
+    String endpoint = separator < 0 ? name : name.substring(0, separator);
+    FixtureSize size =
+        separator < 0 ? FixtureSize.SMALL : FixtureSize.valueOf(name.substring(separator + 1));
+    if (endpoint.equals(BATCH) || endpoint.equals(STREAM)) {
+      // One record of every type per request.
+      ArrayNode items = objectMapper.createArrayNode();
+      for (RecordType recordType : RecordType.values()) {
+        items.add(size.scale(recordType.readFixture(objectMapper)));
+      }
+      String body;
+      String contentType;
+      if (endpoint.equals(BATCH)) {
+        body = objectMapper.writeValueAsString(items);
+        contentType = "application/json";
+      } else {
+        StringBuilder lines = new StringBuilder();
+        for (JsonNode item : items) {
+          lines.append(objectMapper.writeValueAsString(item)).append('\n');
+        }
+        body = lines.toString();
+        contentType = "application/x-ndjson";
+      }
+      return new Target(name, weight, 200, List.of(post(base, endpoint, contentType, body)));
+    }
+
+    RecordType recordType =
+        Arrays.stream(RecordType.values())
+            .filter(type -> type.getName().equals(endpoint))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown --mix target " + name));
+    String body = objectMapper.writeValueAsString(size.scale(recordType.readFixture(objectMapper)));
+    return new Target(name, weight, 201, List.of(post(base, endpoint, "application/json", body)));
+  }
+
+  private static HttpRequest post(String base, String endpoint, String contentType, String body) {
+    return HttpRequest.newBuilder(URI.create(base + "/v1/bundle/" + endpoint))
+        .header("Content-Type", contentType)
+        .POST(HttpRequest.BodyPublishers.ofString(body))
+        .build();
+  }
+}
@@ -0,0 +1,109 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line of {@link LoadTest}. Options are {@code --name=value}; anything it does not know is
+ * passed on to the application, e.g. {@code --logging.level.org.springframework.web=INFO}.
+ *
+ * <ul>
+ *   <li>{@code --concurrency=16}: requests in flight, one worker thread each
+ *   <li>{@code --duration=60s}, {@code --warmup=15s}: measured run and the unmeasured run before it
+ *   <li>{@code --rate=0}: total requests per second, 0 for as fast as the workers go. With a rate,
+ *       latency is measured from when a request was due, so a stalled server shows up in the
+ *       percentiles instead of just lowering the request count.
+ *   <li>{@code --mix=op-consultation=4,discharge-summary:LARGE=1,snomed=1}: targets and their
+ *       weights. A target is a record type endpoint with an optional fixture size, or {@code
+ *       snomed}. Defaults to every record type at SMALL and snomed, all weighted 1.
+ *   <li>{@code --out=build/loadtest}: where to write one {@code .hgrm} percentile file per target
+ *   <li>{@code --thread-modes=platform,virtual}: run once per mode, each on a freshly booted
+ *       application with {@code spring.threads.virtual.enabled} set accordingly, and compare the
+ *       totals at the end. {@code virtual} needs Java 21. By default the application runs once, as
+ *       configured.
+ * </ul>
+ */
+record LoadTestOptions(
+    int concurrency,
+    Duration duration,
+    Duration warmup,
+    double rate,
+    Map<String, Integer> mix,
+    Path out,
+    List<String> threadModes,
+    String[] applicationArgs) {
+  static final String PLATFORM = "platform";
+  static final String VIRTUAL = "virtual";
+
+  static LoadTestOptions parse(String[] args) {
+    int concurrency = 16;
+    Duration duration = Duration.ofSeconds(60);
+    Duration warmup = Duration.ofSeconds(15);
+    double rate = 0;
+    Map<String, Integer> mix = new LinkedHashMap<>();
+    Path out = Path.of("build", "loadtest");
+    List<String> threadModes = List.of();
+    List<String> applicationArgs = new ArrayList<>();
+
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      String name = arg.startsWith("--") && separator > 0 ? arg.substring(2, separator) : "";
+      String value = separator > 0 ? arg.substring(separator + 1) : "";
+      switch (name) {
+        case "concurrency" -> concurrency = Integer.parseInt(value);
+        case "duration" -> duration = parseDuration(value);
+        case "warmup" -> warmup = parseDuration(value);
+        case "rate" -> rate = Double.parseDouble(value);
+        case "mix" -> mix = parseMix(value);
+        case "out" -> out = Path.of(value);
+        case "thread-modes" -> threadModes = List.of(value.split(","));
+        default -> applicationArgs.add(arg);
+      }
+    }
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("--concurrency must be at least 1");
+    }
+    for (String threadMode : threadModes) {
+      if (!threadMode.equals(PLATFORM) && !threadMode.equals(VIRTUAL)) {
+        throw new IllegalArgumentException("Unknown thread mode " + threadMode);
+      }
+      if (threadMode.equals(VIRTUAL) && Runtime.version().feature() < 21) {
+        throw new IllegalArgumentException("Virtual threads need Java 21 or later");
+      }
+    }
+    return new LoadTestOptions(
+        concurrency,
+        duration,
+        warmup,
+        rate,
+        mix,
+        out,
+        threadModes,
+        applicationArgs.toArray(new String[0]));
+  }
+
+  /** Accepts {@code 90s}, {@code 2m} and ISO-8601 such as {@code PT1M30S}. */
+  private static Duration parseDuration(String value) {
+    return Duration.parse(value.toUpperCase().startsWith("P") ? value : "PT" + value);
+  }
+
+  private static Map<String, Integer> parseMix(String value) {
+    Map<String, Integer> mix = new LinkedHashMap<>();
+    for (String entry : value.split(",")) {
+      int separator = entry.lastIndexOf('=');
+      if (separator < 0) {
+        mix.put(entry.trim(), 1);
+      } else {
+        mix.put(
+            entry.substring(0, separator).trim(),
+            Integer.parseInt(entry.substring(separator + 1).trim()));
+      }
+    }
+    return mix;
+  }
+}
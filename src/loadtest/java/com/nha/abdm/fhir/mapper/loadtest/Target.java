@@ -0,0 +1,65 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.loadtest;
+
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * One endpoint of the mix: the requests sent to it, the status it answers with when it works and
+ * the latencies and failures recorded so far. Recording is safe from any number of workers.
+ */
+final class Target {
+  private final String name;
+  private final int weight;
+  private final int expectedStatus;
+  private final List<HttpRequest> requests;
+  private final Recorder latencies = new Recorder(3);
+  private final LongAdder failures = new LongAdder();
+
+  Target(String name, int weight, int expectedStatus, List<HttpRequest> requests) {
+    this.name = name;
+    this.weight = weight;
+    this.expectedStatus = expectedStatus;
+    this.requests = List.copyOf(requests);
+  }
+
+  String name() {
+    return name;
+  }
+
+  int weight() {
+    return weight;
+  }
+
+  HttpRequest nextRequest() {
+    return requests.size() == 1
+        ? requests.get(0)
+        : requests.get(ThreadLocalRandom.current().nextInt(requests.size()));
+  }
+
+  void record(int status, long latencyNanos) {
+    latencies.recordValue(latencyNanos);
+    if (status != expectedStatus) {
+      failures.increment();
+    }
+  }
+
+  void recordFailure(long latencyNanos) {
+    latencies.recordValue(latencyNanos);
+    failures.increment();
+  }
+
+  /**
+   * @return the latencies in nanoseconds and the failures since the previous call, with both
+   *     counters starting over
+   */
+  Interval takeInterval() {
+    return new Interval(latencies.getIntervalHistogram(), failures.sumThenReset());
+  }
+
+  record Interval(Histogram latencies, long failures) {}
+}
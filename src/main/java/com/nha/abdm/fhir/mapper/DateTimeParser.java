@@ -0,0 +1,92 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper;
+
+import ca.uhn.fhir.model.api.TemporalPrecisionEnum;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.text.ParseException;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import org.hl7.fhir.r4.model.DateTimeType;
+
+/**
+ * Parses the request date strings with immutable {@code java.time} formatters. The request DTOs
+ * only allow {@code yyyy-MM-dd} and {@code yyyy-MM-dd'T'HH:mm:ss.SSS'Z'}, which take a fast path;
+ * other offsets are accepted in every form the former {@code SimpleDateFormat} pattern {@code X}
+ * read: {@code +05:30}, {@code +0530} and {@code +05}.
+ *
+ * <p>A bundle passes the same visit or authored date to many builders, so recently parsed strings
+ * are cached as immutable instants. Every call still returns a new {@link DateTimeType}, since HAPI
+ * elements are mutable and belong to a single resource.
+ */
+public final class DateTimeParser {
+  private static final int DATE_LENGTH = 10;
+  private static final DateTimeFormatter OFFSET_DATE_TIME =
+      new DateTimeFormatterBuilder()
+          .append(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+          .appendPattern("[XXX][XX][X]")
+          .toFormatter();
+  private static final Cache<String, Parsed> CACHE = Caffeine.newBuilder().maximumSize(512).build();
+
+  private DateTimeParser() {}
+
+  /**
+   * @param value {@code yyyy-MM-dd} or an ISO date-time with offset
+   * @return a date at day (or coarser) precision, or a date-time at second precision in UTC
+   * @throws ParseException when the value is neither
+   */
+  public static DateTimeType toDateTimeType(String value) throws ParseException {
+    Parsed parsed = parse(value);
+    if (parsed.precision != TemporalPrecisionEnum.SECOND) {
+      return new DateTimeType(new Date(parsed.epochMilli), parsed.precision);
+    }
+    return (DateTimeType) new DateTimeType(new Date(parsed.epochMilli)).setTimeZoneZulu(true);
+  }
+
+  /**
+   * @param value {@code yyyy-MM-dd} or an ISO date-time with offset
+   * @return the instant, local midnight for a plain date
+   * @throws ParseException when the value is neither
+   */
+  public static Date toDate(String value) throws ParseException {
+    return new Date(parse(value).epochMilli);
+  }
+
+  private static Parsed parse(String value) throws ParseException {
+    String trimmed = value.trim();
+    Parsed parsed = CACHE.getIfPresent(trimmed);
+    if (parsed == null) {
+      parsed = parseUncached(trimmed);
+      CACHE.put(trimmed, parsed);
+    }
+    return parsed;
+  }
+
+  private static Parsed parseUncached(String value) throws ParseException {
+    try {
+      if (value.length() == DATE_LENGTH) {
+        LocalDate date = LocalDate.parse(value, DateTimeFormatter.ISO_LOCAL_DATE);
+        return new Parsed(
+            date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+            TemporalPrecisionEnum.DAY);
+      }
+      if (value.length() < DATE_LENGTH) {
+        // Partial dates such as yyyy or yyyy-MM, which the DTO patterns never produce.
+        DateTimeType partial = new DateTimeType(value);
+        return new Parsed(partial.getValue().getTime(), partial.getPrecision());
+      }
+      Instant instant =
+          value.charAt(value.length() - 1) == 'Z'
+              ? Instant.parse(value)
+              : OffsetDateTime.parse(value, OFFSET_DATE_TIME).toInstant();
+      return new Parsed(instant.toEpochMilli(), TemporalPrecisionEnum.SECOND);
+    } catch (DateTimeParseException e) {
+      throw new ParseException("Unparseable date: \"" + value + "\"", e.getErrorIndex());
+    }
+  }
+
+  private record Parsed(long epochMilli, TemporalPrecisionEnum precision) {}
+}
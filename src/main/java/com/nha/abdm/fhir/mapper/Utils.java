@@ -2,7 +2,6 @@
 package com.nha.abdm.fhir.mapper;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 import org.hl7.fhir.r4.model.DateTimeType;
 import org.hl7.fhir.r4.model.InstantType;
@@ -12,9 +11,6 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class Utils {
-  private static final SimpleDateFormat ISO_DATE_TIME_FORMAT =
-      new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSX");
-  private static final SimpleDateFormat DATE_ONLY_FORMAT = new SimpleDateFormat("yyyy-MM-dd");
   private static final Logger log = LoggerFactory.getLogger(Utils.class);
 
   public static InstantType getCurrentTimeStamp() throws ParseException {
@@ -24,18 +20,11 @@ public class Utils {
   }
 
   public static DateTimeType getFormattedDateTime(String dateTimeString) throws ParseException {
-    dateTimeString = dateTimeString.trim();
-    if (dateTimeString.length() <= 10) {
-      return new DateTimeType(dateTimeString);
-    } else {
-      return (DateTimeType)
-          new DateTimeType(ISO_DATE_TIME_FORMAT.parse(dateTimeString)).setTimeZoneZulu(true);
-    }
+    return DateTimeParser.toDateTimeType(dateTimeString);
   }
 
   public static Date getFormattedDate(String dateTimeString) throws ParseException {
-    dateTimeString = dateTimeString.trim();
-    return new DateTimeType(dateTimeString).getValue();
+    return DateTimeParser.toDate(dateTimeString);
   }
 
   public static String clean(String value) {
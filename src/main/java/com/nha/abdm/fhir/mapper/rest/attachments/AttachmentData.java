@@ -0,0 +1,134 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.attachments;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.ref.Cleaner;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import org.hl7.fhir.r4.model.Base64BinaryType;
+
+/**
+ * The decoded content of a document in a request, such as {@code DocumentResource.data}. Small
+ * documents are held as bytes; larger ones are spooled to a file by the {@link AttachmentSpool}
+ * while the request is parsed, so they never sit in the heap, and are base64-encoded straight from
+ * that file into the response.
+ *
+ * <p>A spooled document is readable until it is {@link #release released}: with the {@link
+ * RequestAttachments} it was bound with, at the end of the HTTP request that bound it, or once it
+ * is no longer reachable.
+ */
+@JsonSerialize(using = AttachmentDataSerializer.class)
+@JsonDeserialize(using = AttachmentDataDeserializer.class)
+public final class AttachmentData {
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  /** Bytes encoded per chunk when streaming base64; a multiple of 3, so no padding in between. */
+  private static final int CHUNK = 3 * 4096;
+
+  private final byte[] bytes;
+  private final Path file;
+  private final String id;
+  private final long size;
+  private final Cleaner.Cleanable cleanable;
+
+  private AttachmentData(byte[] bytes) {
+    this.bytes = bytes;
+    this.file = null;
+    this.id = null;
+    this.size = bytes.length;
+    this.cleanable = null;
+  }
+
+  AttachmentData(Path file, String id, long size, Runnable cleanup) {
+    this.bytes = null;
+    this.file = file;
+    this.id = id;
+    this.size = size;
+    this.cleanable = CLEANER.register(this, cleanup);
+  }
+
+  /**
+   * @param bytes the decoded content, kept as is
+   */
+  public static AttachmentData of(byte[] bytes) {
+    return new AttachmentData(bytes);
+  }
+
+  /**
+   * @return the number of decoded bytes
+   */
+  public long size() {
+    return size;
+  }
+
+  public boolean isSpooled() {
+    return file != null;
+  }
+
+  /**
+   * @return the content, read from its file when spooled
+   */
+  public InputStream openStream() throws IOException {
+    return file == null ? new ByteArrayInputStream(bytes) : Files.newInputStream(file);
+  }
+
+  /**
+   * @return the content as bytes, read into the heap when spooled
+   */
+  public byte[] toBytes() {
+    if (file == null) {
+      return bytes;
+    }
+    try {
+      return Files.readAllBytes(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Spooled attachment " + id + " is no longer readable", e);
+    }
+  }
+
+  /**
+   * @return the FHIR element for {@code Attachment.data} or {@code Binary.data}; for a spooled
+   *     document an element standing in for it until the bundle is encoded
+   */
+  public Base64BinaryType toFhir() {
+    return file == null ? new Base64BinaryType(bytes) : new SpooledBase64BinaryType(this);
+  }
+
+  /** Writes the content as base64 without holding more than one chunk of it. */
+  public void writeBase64(Writer writer) throws IOException {
+    Base64.Encoder encoder = Base64.getEncoder();
+    byte[] chunk = new byte[CHUNK];
+    byte[] encoded = new byte[CHUNK / 3 * 4];
+    char[] chars = new char[encoded.length];
+    try (InputStream in = openStream()) {
+      int length;
+      while ((length = in.readNBytes(chunk, 0, CHUNK)) > 0) {
+        int encodedLength =
+            encoder.encode(length == CHUNK ? chunk : Arrays.copyOf(chunk, length), encoded);
+        for (int i = 0; i < encodedLength; i++) {
+          chars[i] = (char) encoded[i];
+        }
+        writer.write(chars, 0, encodedLength);
+      }
+    }
+  }
+
+  /** Deletes the spooled file; a no-op for documents held as bytes. */
+  public void release() {
+    if (cleanable != null) {
+      cleanable.clean();
+    }
+  }
+
+  String getId() {
+    return id;
+  }
+}
@@ -0,0 +1,38 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.attachments;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import java.io.IOException;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Reads a base64 value into an {@link AttachmentData}. Mappers configured by Spring create it with
+ * the {@link AttachmentSpool}; any other mapper gets the no-argument one, which decodes in memory.
+ * Documents are collected in the {@link RequestAttachments} found under its class in the context's
+ * attributes, if any.
+ */
+public class AttachmentDataDeserializer extends JsonDeserializer<AttachmentData> {
+  private final AttachmentSpool spool;
+
+  public AttachmentDataDeserializer() {
+    this(null);
+  }
+
+  @Autowired
+  public AttachmentDataDeserializer(AttachmentSpool spool) {
+    this.spool = spool;
+  }
+
+  @Override
+  public AttachmentData deserialize(JsonParser parser, DeserializationContext context)
+      throws IOException {
+    return spool != null
+        ? spool.read(
+            parser,
+            context.getBase64Variant(),
+            (RequestAttachments) context.getAttribute(RequestAttachments.class))
+        : AttachmentData.of(parser.getBinaryValue(context.getBase64Variant()));
+  }
+}
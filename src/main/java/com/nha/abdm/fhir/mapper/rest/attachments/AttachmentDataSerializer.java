@@ -0,0 +1,20 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.attachments;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Writes an {@link AttachmentData} as base64, streamed from its file when spooled. */
+public class AttachmentDataSerializer extends JsonSerializer<AttachmentData> {
+
+  @Override
+  public void serialize(AttachmentData value, JsonGenerator generator, SerializerProvider provider)
+      throws IOException {
+    try (InputStream in = value.openStream()) {
+      generator.writeBinary(provider.getConfig().getBase64Variant(), in, (int) value.size());
+    }
+  }
+}
@@ -0,0 +1,191 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.attachments;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonParser;
+import jakarta.annotation.PreDestroy;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Base;
+import org.hl7.fhir.r4.model.Property;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Spools the documents of requests to files. A document is decoded from the request's base64 as it
+ * is parsed; once it exceeds {@code documents.spool.threshold} the bytes decoded so far and the
+ * rest go to a file in a directory of its own under {@code documents.spool.directory}, so the heap
+ * held per document stays below the threshold however large it is. A negative threshold turns
+ * spooling off.
+ *
+ * <p>Files bound with {@link RequestAttachments}, as batch, stream and job items are, are deleted
+ * when those are released after the item's bundle was written. Files bound otherwise during an HTTP
+ * request are deleted when the request completes, after the response was written; any other file
+ * once its {@link AttachmentData} is no longer reachable. The directory is removed on shutdown.
+ */
+@Component
+public class AttachmentSpool {
+  private static final Logger log = LoggerFactory.getLogger(AttachmentSpool.class);
+
+  private final long threshold;
+  private final Path directory;
+  private final AtomicInteger live = new AtomicInteger();
+
+  public AttachmentSpool(
+      @Value("${documents.spool.threshold:1MB}") DataSize threshold,
+      @Value("${documents.spool.directory:${java.io.tmpdir}}") String directory)
+      throws IOException {
+    this.threshold = threshold.toBytes();
+    this.directory =
+        this.threshold >= 0
+            ? Files.createTempDirectory(Files.createDirectories(Path.of(directory)), "fhir-spool-")
+            : null;
+  }
+
+  /**
+   * Decodes the base64 value the parser is positioned on.
+   *
+   * @param parser positioned on a string, or an embedded binary value
+   * @param variant the base64 variant of the parser's configuration
+   * @param attachments where to collect a spooled document, or null to tie it to the HTTP request
+   */
+  public AttachmentData read(
+      JsonParser parser, Base64Variant variant, RequestAttachments attachments) throws IOException {
+    if (directory == null) {
+      return AttachmentData.of(parser.getBinaryValue(variant));
+    }
+    SpoolingOutputStream out = new SpoolingOutputStream();
+    try (out) {
+      parser.readBinaryValue(variant, out);
+    } catch (IOException | RuntimeException e) {
+      out.discard();
+      throw e;
+    }
+    return out.file == null
+        ? AttachmentData.of(out.buffer.toByteArray())
+        : register(out, attachments);
+  }
+
+  /**
+   * @param writer where the resource is encoded to
+   * @param resource the resource about to be encoded
+   * @return the writer, wrapped to expand the spooled documents of the resource when it has any;
+   *     placeholders of other documents are left as they are
+   */
+  public Writer expanding(Writer writer, IBaseResource resource) {
+    if (live.get() == 0) {
+      return writer;
+    }
+    Map<String, AttachmentData> attachments = new HashMap<>();
+    collect((Base) resource, attachments);
+    return attachments.isEmpty() ? writer : new Base64ExpandingWriter(writer, attachments);
+  }
+
+  @PreDestroy
+  public void shutdown() throws IOException {
+    if (directory != null) {
+      FileSystemUtils.deleteRecursively(directory);
+    }
+  }
+
+  private static void collect(Base element, Map<String, AttachmentData> attachments) {
+    if (element instanceof SpooledBase64BinaryType spooled) {
+      attachments.put(spooled.getData().getId(), spooled.getData());
+    } else if (!element.isPrimitive()) {
+      for (Property property : element.children()) {
+        for (Base value : property.getValues()) {
+          collect(value, attachments);
+        }
+      }
+    }
+  }
+
+  private AttachmentData register(SpoolingOutputStream out, RequestAttachments attachments) {
+    String id = UUID.randomUUID().toString();
+    Path file = out.file;
+    AtomicInteger count = live;
+    count.incrementAndGet();
+    AttachmentData data =
+        new AttachmentData(
+            file,
+            id,
+            out.size,
+            () -> {
+              count.decrementAndGet();
+              try {
+                Files.deleteIfExists(file);
+              } catch (IOException e) {
+                log.warn("Could not delete spooled attachment {}", file, e);
+              }
+            });
+    RequestAttributes request = RequestContextHolder.getRequestAttributes();
+    if (attachments != null) {
+      attachments.add(data);
+    } else if (request != null) {
+      request.registerDestructionCallback(
+          AttachmentSpool.class.getName() + "." + id,
+          data::release,
+          RequestAttributes.SCOPE_REQUEST);
+    }
+    return data;
+  }
+
+  /** Buffers up to the threshold, then moves everything to a new file. */
+  private final class SpoolingOutputStream extends OutputStream {
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private OutputStream target = buffer;
+    private Path file;
+    private long size;
+
+    @Override
+    public void write(int b) throws IOException {
+      spillIfNeeded(1);
+      target.write(b);
+      size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      spillIfNeeded(len);
+      target.write(b, off, len);
+      size += len;
+    }
+
+    @Override
+    public void close() throws IOException {
+      target.close();
+    }
+
+    private void spillIfNeeded(int length) throws IOException {
+      if (file == null && size + length > threshold) {
+        file = Files.createTempFile(directory, "attachment-", ".bin");
+        target = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024);
+        buffer.writeTo(target);
+        buffer.reset();
+      }
+    }
+
+    private void discard() {
+      if (file != null) {
+        try {
+          target.close();
+          Files.deleteIfExists(file);
+        } catch (IOException e) {
+          log.warn("Could not delete spooled attachment {}", file, e);
+        }
+      }
+    }
+  }
+}
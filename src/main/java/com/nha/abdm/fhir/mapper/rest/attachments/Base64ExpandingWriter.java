@@ -0,0 +1,110 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.attachments;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * Replaces the placeholders of {@link SpooledBase64BinaryType} in encoded FHIR JSON with the base64
+ * of the spooled documents, streamed from their files. Only the documents it is given are expanded,
+ * those of the resource being encoded, so a placeholder a client put in some text field stays text
+ * and never reveals another request's document. Everything else passes through unchanged. Closing
+ * it flushes the target but leaves it open.
+ */
+class Base64ExpandingWriter extends FilterWriter {
+  /*
+   * 'u' only occurs as the first character of the prefix and never in a UUID, so on a mismatch
+   * matching restarts at the current character rather than somewhere inside the pending ones.
+   */
+  private static final String PREFIX = "urn:fhir-mapper:spool:";
+  private static final int ID_LENGTH = 36;
+  private static final int LENGTH = PREFIX.length() + ID_LENGTH;
+
+  private final Map<String, AttachmentData> attachments;
+  private final char[] pending = new char[LENGTH];
+  private int matched;
+
+  /**
+   * @param attachments the documents to expand by their id
+   */
+  Base64ExpandingWriter(Writer out, Map<String, AttachmentData> attachments) {
+    super(out);
+    this.attachments = attachments;
+  }
+
+  static String placeholder(AttachmentData data) {
+    return PREFIX + data.getId();
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    write(new char[] {(char) c}, 0, 1);
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    write(str.toCharArray(), off, len);
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    int end = off + len;
+    int i = off;
+    while (i < end) {
+      if (matched == 0) {
+        int start = i;
+        while (i < end && cbuf[i] != 'u') {
+          i++;
+        }
+        out.write(cbuf, start, i - start);
+        if (i < end) {
+          pending[matched++] = cbuf[i++];
+        }
+        continue;
+      }
+      char c = cbuf[i];
+      if (matches(c)) {
+        pending[matched++] = c;
+        i++;
+        if (matched == LENGTH) {
+          expand();
+        }
+      } else {
+        out.write(pending, 0, matched);
+        matched = 0;
+      }
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.write(pending, 0, matched);
+    matched = 0;
+    out.flush();
+  }
+
+  private boolean matches(char c) {
+    if (matched < PREFIX.length()) {
+      return c == PREFIX.charAt(matched);
+    }
+    return c == '-' || (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f');
+  }
+
+  private void expand() throws IOException {
+    String id = new String(pending, PREFIX.length(), ID_LENGTH);
+    matched = 0;
+    AttachmentData data = attachments.get(id);
+    if (data == null) {
+      out.write(pending, 0, LENGTH);
+    } else {
+      data.writeBase64(out);
+    }
+  }
+}
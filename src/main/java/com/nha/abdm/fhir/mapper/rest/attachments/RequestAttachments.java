@@ -0,0 +1,25 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.attachments;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The documents spooled while one request item was bound, for items bound away from the HTTP
+ * request thread, such as batch, stream and job items. Pass it to the reader as the attribute
+ * {@code RequestAttachments.class} and {@link #release} it once the item's bundle was written or
+ * the item failed.
+ */
+public final class RequestAttachments {
+  private final List<AttachmentData> spooled = new ArrayList<>(1);
+
+  void add(AttachmentData data) {
+    spooled.add(data);
+  }
+
+  /** Deletes the spooled files of the item. */
+  public void release() {
+    spooled.forEach(AttachmentData::release);
+    spooled.clear();
+  }
+}
@@ -0,0 +1,50 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.attachments;
+
+import org.hl7.fhir.r4.model.Base64BinaryType;
+
+/**
+ * {@code base64Binary} element of a spooled document. HAPI encodes it as a short placeholder, which
+ * the {@link Base64ExpandingWriter} replaces with the document's base64 as it is written out.
+ * {@link #getValue()} still returns the content, read from the file.
+ */
+class SpooledBase64BinaryType extends Base64BinaryType {
+  private static final long serialVersionUID = 1L;
+
+  private final transient AttachmentData data;
+
+  SpooledBase64BinaryType(AttachmentData data) {
+    this.data = data;
+  }
+
+  @Override
+  public String getValueAsString() {
+    return Base64ExpandingWriter.placeholder(data);
+  }
+
+  @Override
+  public byte[] getValue() {
+    return data.toBytes();
+  }
+
+  @Override
+  public boolean hasValue() {
+    return true;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return false;
+  }
+
+  AttachmentData getData() {
+    return data;
+  }
+
+  @Override
+  public SpooledBase64BinaryType copy() {
+    SpooledBase64BinaryType copy = new SpooledBase64BinaryType(data);
+    copyValues(copy);
+    return copy;
+  }
+}
@@ -0,0 +1,87 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.audit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Type;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Feeds the {@link AuditLog}: a sampled request keeps its bound body as a request attribute until
+ * the response body, or the error returned instead, is about to be written.
+ */
+@ControllerAdvice
+public class AuditBodyAdvice extends RequestBodyAdviceAdapter
+    implements ResponseBodyAdvice<Object> {
+  private static final String REQUEST_BODY = AuditBodyAdvice.class.getName() + ".requestBody";
+
+  private final AuditLog auditLog;
+
+  public AuditBodyAdvice(AuditLog auditLog) {
+    this.auditLog = auditLog;
+  }
+
+  @Override
+  public boolean supports(
+      MethodParameter methodParameter,
+      Type targetType,
+      Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object afterBodyRead(
+      Object body,
+      HttpInputMessage inputMessage,
+      MethodParameter parameter,
+      Type targetType,
+      Class<? extends HttpMessageConverter<?>> converterType) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes != null && auditLog.sample()) {
+      attributes.setAttribute(REQUEST_BODY, body, RequestAttributes.SCOPE_REQUEST);
+    }
+    return body;
+  }
+
+  @Override
+  public boolean supports(
+      MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+    return true;
+  }
+
+  @Override
+  public Object beforeBodyWrite(
+      Object body,
+      MethodParameter returnType,
+      MediaType selectedContentType,
+      Class<? extends HttpMessageConverter<?>> selectedConverterType,
+      ServerHttpRequest request,
+      ServerHttpResponse response) {
+    if (request instanceof ServletServerHttpRequest servletRequest
+        && response instanceof ServletServerHttpResponse servletResponse) {
+      HttpServletRequest httpRequest = servletRequest.getServletRequest();
+      Object requestBody = httpRequest.getAttribute(REQUEST_BODY);
+      if (requestBody != null) {
+        httpRequest.removeAttribute(REQUEST_BODY);
+        auditLog.submit(
+            httpRequest.getMethod(),
+            httpRequest.getRequestURI(),
+            servletResponse.getServletResponse().getStatus(),
+            requestBody,
+            body);
+      }
+    }
+    return body;
+  }
+}
@@ -0,0 +1,266 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.nha.abdm.fhir.mapper.rest.attachments.AttachmentData;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.BatchResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FacadeError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.hl7.fhir.r4.model.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Audit trail of a sample of the requests, written to the {@code audit} logger as one JSON line
+ * each. The request thread renders the entry of a sampled request, while its spooled documents are
+ * still readable, and hands the line over to a bounded queue without waiting: when the queue is
+ * full the entry is dropped and counted in {@code fhir.audit.dropped}. A single background thread
+ * writes the lines. Queued lines hold hashes rather than the request or response, so they stay
+ * small however large the documents were.
+ *
+ * <p>The rendered request keeps the shape of the body but none of its values: every value except
+ * those of the fields in {@code audit.plain-fields} is replaced by a keyed hash, documents such as
+ * {@code DocumentResource.data} with their size added, so entries can be correlated without
+ * revealing the values. Only add fields to the allow-list that never hold patient data. The
+ * response is reduced to a summary.
+ */
+@Component
+public class AuditLog {
+  private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+  private static final Logger audit = LoggerFactory.getLogger("audit");
+  private static final String HMAC = "HmacSHA256";
+
+  private final ObjectMapper objectMapper;
+  private final double sampleRate;
+  private final Set<String> plainFields;
+  private final SecretKeySpec hashKey;
+  private final BlockingQueue<String> queue;
+  private final Counter dropped;
+  private final Thread writer;
+
+  public AuditLog(
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${audit.sample-rate:0.01}") double sampleRate,
+      @Value("${audit.queue-size:1024}") int queueSize,
+      @Value("${audit.plain-fields:bundleType,contentType}") List<String> plainFields,
+      @Value("${audit.hash-key:}") String hashKey) {
+    this.objectMapper =
+        objectMapper
+            .copy()
+            .addMixIn(AttachmentData.class, AuditedAttachment.class)
+            .registerModule(
+                new SimpleModule().addSerializer(AttachmentData.class, new AttachmentHasher()));
+    this.sampleRate = sampleRate;
+    this.plainFields = Set.copyOf(plainFields);
+    this.hashKey = new SecretKeySpec(keyBytes(hashKey), HMAC);
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+    this.dropped =
+        Counter.builder("fhir.audit.dropped")
+            .description("Sampled audit entries dropped because the audit queue was full")
+            .register(meterRegistry);
+    this.writer = new Thread(this::drain, "audit-log");
+    this.writer.setDaemon(true);
+    if (sampleRate > 0) {
+      this.writer.start();
+    }
+  }
+
+  /**
+   * @return whether the current request should be audited
+   */
+  public boolean sample() {
+    return sampleRate >= 1
+        || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+  }
+
+  /**
+   * Renders the entry and queues it without blocking.
+   *
+   * @param method the HTTP method
+   * @param path the request path
+   * @param status the response status
+   * @param request the bound request body
+   * @param response the response body
+   */
+  public void submit(String method, String path, int status, Object request, Object response) {
+    if (queue.remainingCapacity() == 0) {
+      dropped.increment();
+      return;
+    }
+    String line;
+    try {
+      line = render(method, path, status, request, response);
+    } catch (Exception e) {
+      log.warn("Could not render the audit entry of {} {}", method, path, e);
+      return;
+    }
+    if (!queue.offer(line)) {
+      dropped.increment();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    writer.interrupt();
+  }
+
+  private void drain() {
+    try {
+      while (true) {
+        audit.info(queue.take());
+      }
+    } catch (InterruptedException e) {
+      List<String> remaining = new ArrayList<>();
+      queue.drainTo(remaining);
+      remaining.forEach(audit::info);
+    }
+  }
+
+  private String render(String method, String path, int status, Object request, Object response)
+      throws IOException {
+    ObjectNode line = objectMapper.createObjectNode();
+    line.put("method", method);
+    line.put("path", path);
+    line.put("status", status);
+    line.set("request", redact(null, objectMapper.valueToTree(request)));
+    line.set("response", summarize(response));
+    return objectMapper.writeValueAsString(line);
+  }
+
+  private JsonNode redact(String field, JsonNode node) {
+    if (node == null) {
+      return null;
+    }
+    if (node.isObject()) {
+      ObjectNode redacted = objectMapper.createObjectNode();
+      node.fields()
+          .forEachRemaining(
+              child -> redacted.set(child.getKey(), redact(child.getKey(), child.getValue())));
+      return redacted;
+    }
+    if (node.isArray()) {
+      ArrayNode redacted = objectMapper.createArrayNode();
+      node.forEach(child -> redacted.add(redact(field, child)));
+      return redacted;
+    }
+    if (node.isBinary()) {
+      byte[] bytes = binaryValue(node);
+      return objectMapper.getNodeFactory().textNode(hash(bytes) + " (" + bytes.length + " bytes)");
+    }
+    if (node instanceof POJONode pojo && pojo.getPojo() instanceof Hashed hashed) {
+      return objectMapper.getNodeFactory().textNode(hashed.value());
+    }
+    if (node.isNull() || (field != null && plainFields.contains(field))) {
+      return node;
+    }
+    return objectMapper
+        .getNodeFactory()
+        .textNode(hash(node.asText().getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private JsonNode summarize(Object response) {
+    ObjectNode summary = objectMapper.createObjectNode();
+    if (response instanceof Bundle bundle) {
+      summary.put("resourceType", "Bundle");
+      summary.put("id", bundle.getIdElement().getIdPart());
+      summary.put("entries", bundle.getEntry().size());
+    } else if (response instanceof BatchResponse batch) {
+      summary.put("total", batch.getTotal());
+      summary.put("succeeded", batch.getSucceeded());
+      summary.put("failed", batch.getFailed());
+    } else if (response instanceof FacadeError error) {
+      return objectMapper.valueToTree(error);
+    } else if (response != null) {
+      summary.put("type", response.getClass().getSimpleName());
+    }
+    return summary;
+  }
+
+  private String hash(byte[] value) {
+    try {
+      Mac mac = Mac.getInstance(HMAC);
+      mac.init(hashKey);
+      return "hmac:" + HexFormat.of().formatHex(mac.doFinal(value), 0, 12);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static byte[] binaryValue(JsonNode node) {
+    try {
+      return node.binaryValue();
+    } catch (IOException e) {
+      return new byte[0];
+    }
+  }
+
+  /** Without a configured key, hashes only correlate within one run of the application. */
+  private static byte[] keyBytes(String hashKey) {
+    if (!hashKey.isBlank()) {
+      return hashKey.getBytes(StandardCharsets.UTF_8);
+    }
+    byte[] key = new byte[32];
+    new SecureRandom().nextBytes(key);
+    return key;
+  }
+
+  /**
+   * Hashes a document as it is rendered, streaming a spooled one from its file. A file released
+   * before the entry is rendered, such as that of a failed batch item, leaves only the size.
+   */
+  private final class AttachmentHasher extends JsonSerializer<AttachmentData> {
+    @Override
+    public void serialize(
+        AttachmentData value, JsonGenerator generator, SerializerProvider provider)
+        throws IOException {
+      String size = "(" + value.size() + " bytes)";
+      try (InputStream in = value.openStream()) {
+        Mac mac = Mac.getInstance(HMAC);
+        mac.init(hashKey);
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = in.read(buffer)) > 0) {
+          mac.update(buffer, 0, length);
+        }
+        generator.writeEmbeddedObject(
+            new Hashed("hmac:" + HexFormat.of().formatHex(mac.doFinal(), 0, 12) + " " + size));
+      } catch (IOException e) {
+        generator.writeEmbeddedObject(new Hashed(size));
+      } catch (GeneralSecurityException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  /** Drops the serializer annotated on {@link AttachmentData} for {@link AttachmentHasher}. */
+  @JsonSerialize(using = JsonSerializer.None.class)
+  private abstract static class AuditedAttachment {}
+
+  /** A value already hashed while rendering, kept as it is by {@link #redact}. */
+  private record Hashed(String value) {}
+}
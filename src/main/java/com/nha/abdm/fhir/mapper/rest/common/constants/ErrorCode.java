@@ -7,4 +7,6 @@ public class ErrorCode {
   public static String INCORRECT_BUNDLE_TYPE = "1003";
   public static String DB_SYNTAX_ERROR = "1004";
   public static String DB_ERROR = "1005";
+  public static String JOB_NOT_FOUND = "1006";
+  public static String JOB_QUEUE_FULL = "1007";
 }
@@ -0,0 +1,22 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.common.helpers;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+  private Integer index;
+  private String bundleType;
+  private int status;
+  @JsonRawValue private String bundle;
+  private FacadeError error;
+}
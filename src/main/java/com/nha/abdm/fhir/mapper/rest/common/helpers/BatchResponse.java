@@ -0,0 +1,19 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.common.helpers;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse {
+  private int total;
+  private int succeeded;
+  private int failed;
+  private List<BatchItemResult> results;
+}
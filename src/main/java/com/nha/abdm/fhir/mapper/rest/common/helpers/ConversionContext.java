@@ -0,0 +1,106 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.common.helpers;
+
+import com.nha.abdm.fhir.mapper.Utils;
+import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.hl7.fhir.r4.model.*;
+
+/**
+ * State shared by every builder that contributes to one bundle: the conversion timestamp, the
+ * patient and practitioners, references to them, the visit date and the source of resource ids. A
+ * converter creates one per request and passes it to each builder explicitly, so builders running
+ * on other threads see the same values.
+ *
+ * <p>{@link #getTimestamp()} and the references are single instances attached to many resources of
+ * the bundle, which also keeps every {@code meta.lastUpdated} identical. Treat them as read-only.
+ */
+@Getter
+public class ConversionContext {
+  private final InstantType timestamp;
+  private final String visitDate;
+
+  @Getter(AccessLevel.NONE)
+  private final Supplier<String> ids;
+
+  private Patient patient;
+  private Reference patientReference;
+  private List<Practitioner> practitioners = Collections.emptyList();
+  private List<Reference> practitionerReferences = Collections.emptyList();
+
+  /**
+   * @param visitDate the visit or authored date of the record, parsed here so an invalid date fails
+   *     before any resource is built
+   * @param ids the id source of this conversion, see {@code IdGenerator#forRecord}
+   * @throws ParseException when the visit date cannot be parsed
+   */
+  public ConversionContext(String visitDate, Supplier<String> ids) throws ParseException {
+    this.timestamp = Utils.getCurrentTimeStamp();
+    this.ids = ids;
+    this.visitDate = Utils.clean(visitDate);
+    if (this.visitDate != null) {
+      Utils.getFormattedDateTime(this.visitDate);
+    }
+  }
+
+  private ConversionContext(ConversionContext parent, Supplier<String> ids) {
+    this.timestamp = parent.timestamp;
+    this.visitDate = parent.visitDate;
+    this.ids = ids;
+    this.patient = parent.patient;
+    this.patientReference = parent.patientReference;
+    this.practitioners = parent.practitioners;
+    this.practitionerReferences = parent.practitionerReferences;
+  }
+
+  /**
+   * A view of this context for one section of the bundle that is built on its own thread: it shares
+   * everything but the id source, since an id source serves one thread at a time.
+   *
+   * @param ids the id source of the section, see {@code IdGenerator#forRecord}
+   * @return the section's context
+   */
+  public ConversionContext forSection(Supplier<String> ids) {
+    return new ConversionContext(this, ids);
+  }
+
+  /**
+   * @return a new element holding the visit date, or null when the record has none
+   */
+  public DateTimeType getVisitDate() throws ParseException {
+    return visitDate == null ? null : Utils.getFormattedDateTime(visitDate);
+  }
+
+  /**
+   * @return a new id for a resource, bundle or identifier of this conversion
+   */
+  public String newId() {
+    return ids.get();
+  }
+
+  public void setPatient(Patient patient) {
+    this.patient = patient;
+    this.patientReference =
+        new Reference()
+            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
+            .setDisplay(Utils.clean(patient.getNameFirstRep().getText()));
+  }
+
+  public void setPractitioners(List<Practitioner> practitioners) {
+    List<Reference> references = new ArrayList<>(practitioners.size());
+    for (Practitioner practitioner : practitioners) {
+      references.add(
+          new Reference()
+              .setReference(BundleResourceIdentifier.PRACTITIONER + "/" + practitioner.getId())
+              .setDisplay(Utils.clean(practitioner.getNameFirstRep().getText())));
+    }
+    this.practitioners = practitioners;
+    this.practitionerReferences = Collections.unmodifiableList(references);
+  }
+}
@@ -0,0 +1,34 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.common.helpers;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ConversionJob {
+  private String id;
+  private String bundleType;
+  private State status;
+  private Instant createdAt;
+  private Instant startedAt;
+  private Instant finishedAt;
+
+  public enum State {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED;
+
+    public boolean isFinished() {
+      return this == SUCCEEDED || this == FAILED;
+    }
+  }
+}
@@ -1,6 +1,7 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.common.helpers;
 
+import com.nha.abdm.fhir.mapper.rest.attachments.AttachmentData;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -19,5 +20,6 @@ public class DocumentResource {
   @NotBlank(message = "type is mandatory")
   private String type;
 
-  @NotNull(message = "data is mandatory") private byte[] data;
+  @NotNull(message = "data is mandatory")
+  private AttachmentData data;
 }
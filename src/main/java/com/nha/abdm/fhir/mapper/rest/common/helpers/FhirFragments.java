@@ -0,0 +1,74 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.common.helpers;
+
+import com.nha.abdm.fhir.mapper.Utils;
+import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.hl7.fhir.r4.model.*;
+
+/**
+ * The parts of a bundle that are the same in every conversion: identifier types, the security label
+ * and the {@code meta} of each resource but its {@code lastUpdated}. They are built once and the
+ * very same instances are attached to every bundle, where the encoder only reads them, so a
+ * conversion no longer allocates a handful of elements per resource for them.
+ *
+ * <p>Like {@link ConversionContext#getTimestamp()}, a shared element must never be changed after it
+ * is attached; build a new one instead. Each {@link Meta} handed out is new, so its own fields may
+ * be set, but not those of its elements.
+ */
+public final class FhirFragments {
+  /** Identifier type of a patient. */
+  public static final CodeableConcept MEDICAL_RECORD_NUMBER =
+      providerCode("MR", "Medical record number");
+
+  /** Identifier type of a facility. */
+  public static final CodeableConcept PROVIDER_NUMBER = providerCode("PRN", "Provider number");
+
+  /** Security label of every document bundle. */
+  public static final Coding RESTRICTED = new Coding().setDisplay(Utils.clean("restricted"));
+
+  private static final IdType VERSION_ID = new IdType("1");
+  private static final Map<String, CanonicalType> PROFILES = new ConcurrentHashMap<>();
+
+  private FhirFragments() {}
+
+  /**
+   * @param context the conversion, whose timestamp becomes {@code lastUpdated}
+   * @param profile one of the {@link ResourceProfileIdentifier} structure definitions
+   * @return a new meta of version 1 claiming the profile
+   */
+  public static Meta versionedMeta(ConversionContext context, String profile) {
+    return meta(context, profile).setVersionIdElement(VERSION_ID);
+  }
+
+  /**
+   * @param context the conversion, whose timestamp becomes {@code lastUpdated}
+   * @param profile one of the {@link ResourceProfileIdentifier} structure definitions
+   * @return a new meta without a version claiming the profile
+   */
+  public static Meta meta(ConversionContext context, String profile) {
+    return profileMeta(profile).setLastUpdatedElement(context.getTimestamp());
+  }
+
+  /**
+   * @param profile one of the {@link ResourceProfileIdentifier} structure definitions
+   * @return a new meta holding nothing but the profile
+   */
+  public static Meta profileMeta(String profile) {
+    List<CanonicalType> profiles = new ArrayList<>(1);
+    profiles.add(PROFILES.computeIfAbsent(profile, CanonicalType::new));
+    return new Meta().setProfile(profiles);
+  }
+
+  private static CodeableConcept providerCode(String code, String display) {
+    return new CodeableConcept()
+        .addCoding(
+            new Coding()
+                .setCode(code)
+                .setSystem(ResourceProfileIdentifier.PROFILE_PROVIDER)
+                .setDisplay(display));
+  }
+}
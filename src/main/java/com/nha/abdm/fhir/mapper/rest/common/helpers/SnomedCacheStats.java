@@ -0,0 +1,20 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.common.helpers;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SnomedCacheStats {
+  private boolean enabled;
+  private long size;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+  private double hitRate;
+}
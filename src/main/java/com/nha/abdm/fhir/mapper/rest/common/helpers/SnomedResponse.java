@@ -16,6 +16,7 @@ import lombok.NoArgsConstructor;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class SnomedResponse {
   public String message;
+  public String terminologyVersion;
   public List<SnomedConditionProcedure> snomedConditionProcedureCodes;
   public List<SnomedDiagnostic> snomedDiagnosticCodes;
   public List<SnomedEncounter> snomedEncounterCodes;
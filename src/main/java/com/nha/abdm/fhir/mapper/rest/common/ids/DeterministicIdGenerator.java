@@ -0,0 +1,22 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.common.ids;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Name-based UUIDv3 ids derived from the record key and the position of the id within the
+ * conversion. Converting the same record twice yields the same ids, which makes converted bundles
+ * comparable in tests and lets a re-conversion replace the resources it produced earlier.
+ */
+public class DeterministicIdGenerator implements IdGenerator {
+
+  @Override
+  public Supplier<String> forRecord(String recordKey) {
+    String prefix = recordKey + "/";
+    int[] counter = new int[1];
+    return () ->
+        UUID.nameUUIDFromBytes((prefix + counter[0]++).getBytes(StandardCharsets.UTF_8)).toString();
+  }
+}
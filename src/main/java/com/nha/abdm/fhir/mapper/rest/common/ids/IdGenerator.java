@@ -0,0 +1,18 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.common.ids;
+
+import java.util.function.Supplier;
+
+/**
+ * Strategy for the ids of resources, bundles and identifiers. The strategy is chosen with {@code
+ * fhir.id.strategy}; every conversion asks it for a fresh id source.
+ */
+public interface IdGenerator {
+
+  /**
+   * @param recordKey stable key of the record being converted, its bundle type and care context
+   *     reference; only deterministic strategies use it
+   * @return the id source for one conversion, used by a single thread at a time
+   */
+  Supplier<String> forRecord(String recordKey);
+}
@@ -0,0 +1,15 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.common.ids;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/** Random UUIDv4 ids from {@link UUID#randomUUID()}, as the builders used to create them. */
+public class RandomIdGenerator implements IdGenerator {
+  private final Supplier<String> source = () -> UUID.randomUUID().toString();
+
+  @Override
+  public Supplier<String> forRecord(String recordKey) {
+    return source;
+  }
+}
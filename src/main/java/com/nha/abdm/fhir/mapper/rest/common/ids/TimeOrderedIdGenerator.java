@@ -0,0 +1,28 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.common.ids;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * UUIDv7 ids (RFC 9562): a 48-bit millisecond timestamp followed by 74 random bits. The random bits
+ * come from {@link ThreadLocalRandom} rather than the {@code SecureRandom} shared by {@link
+ * UUID#randomUUID()}, so concurrent conversions never contend on it. The ids are not secrets, only
+ * unique, and sort by creation time.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+  private final Supplier<String> source = TimeOrderedIdGenerator::next;
+
+  @Override
+  public Supplier<String> forRecord(String recordKey) {
+    return source;
+  }
+
+  public static String next() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long msb = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextInt() & 0x0fffL);
+    long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+    return new UUID(msb, lsb).toString();
+  }
+}
@@ -0,0 +1,478 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.compression;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * {@code Content-Encoding} for the bundle endpoints. A gzip or zstd request body is decoded as the
+ * controller reads it, up to {@code compression.request.max-size} decoded bytes; any other coding
+ * is refused with 415 and the supported ones in {@code Accept-Encoding}. The response is encoded
+ * with the coding the client prefers in its {@code Accept-Encoding}, zstd over gzip on a tie, at
+ * {@code compression.gzip.level} or {@code compression.zstd.level}, as it is written.
+ *
+ * <p>Response bytes before and after encoding are counted in {@code fhir.compression.bytes}.
+ */
+@Component
+public class CompressionFilter extends OncePerRequestFilter {
+  private static final Logger log = LoggerFactory.getLogger(CompressionFilter.class);
+  private static final String BUNDLE_PATH = "/v1/bundle/";
+
+  private final boolean enabled;
+  private final Map<ContentCoding, Integer> levels = new EnumMap<>(ContentCoding.class);
+  private final long maxRequestSize;
+  private final MeterRegistry meterRegistry;
+
+  public CompressionFilter(
+      MeterRegistry meterRegistry,
+      @Value("${compression.enabled:true}") boolean enabled,
+      @Value("${compression.gzip.level:6}") int gzipLevel,
+      @Value("${compression.zstd.enabled:true}") boolean zstdEnabled,
+      @Value("${compression.zstd.level:3}") int zstdLevel,
+      @Value("${compression.request.max-size:256MB}") DataSize maxRequestSize) {
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.maxRequestSize = maxRequestSize.toBytes();
+    levels.put(ContentCoding.GZIP, gzipLevel);
+    if (zstdEnabled && zstdAvailable()) {
+      levels.put(ContentCoding.ZSTD, zstdLevel);
+    }
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled || !request.getServletPath().startsWith(BUNDLE_PATH);
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String contentEncoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+    if (contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity")) {
+      ContentCoding coding = ContentCoding.of(contentEncoding);
+      if (coding == null || !levels.containsKey(coding)) {
+        response.setHeader(HttpHeaders.ACCEPT_ENCODING, supported());
+        response.sendError(
+            HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+            "Unsupported Content-Encoding " + contentEncoding);
+        return;
+      }
+      request = new DecodingRequest(request, coding, maxRequestSize);
+    }
+
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    ContentCoding accepted = negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    if (accepted == null) {
+      chain.doFilter(request, response);
+      return;
+    }
+    EncodingResponse encoding =
+        new EncodingResponse(response, accepted, levels.get(accepted), meterRegistry);
+    try {
+      chain.doFilter(request, encoding);
+    } finally {
+      encoding.finish();
+    }
+  }
+
+  /**
+   * @param acceptEncoding the request's {@code Accept-Encoding}, possibly null
+   * @return the supported coding with the highest quality, or null for the body as is
+   */
+  ContentCoding negotiate(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    Map<ContentCoding, Double> qualities = new EnumMap<>(ContentCoding.class);
+    double wildcard = 0;
+    for (String entry : acceptEncoding.split(",")) {
+      String[] parts = entry.split(";");
+      double quality = quality(parts);
+      String token = parts[0].trim();
+      if (token.equals("*")) {
+        wildcard = quality;
+      } else {
+        ContentCoding coding = ContentCoding.of(token);
+        if (coding != null) {
+          qualities.put(coding, quality);
+        }
+      }
+    }
+    ContentCoding best = null;
+    double bestQuality = 0;
+    for (ContentCoding coding : List.of(ContentCoding.ZSTD, ContentCoding.GZIP)) {
+      double quality = qualities.getOrDefault(coding, wildcard);
+      if (levels.containsKey(coding) && quality > bestQuality) {
+        best = coding;
+        bestQuality = quality;
+      }
+    }
+    return best;
+  }
+
+  private static double quality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2));
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  private String supported() {
+    StringJoiner tokens = new StringJoiner(", ");
+    levels.keySet().forEach(coding -> tokens.add(coding.token()));
+    return tokens.toString();
+  }
+
+  /** zstd-jni bundles native libraries for the common platforms only. */
+  private static boolean zstdAvailable() {
+    try {
+      com.github.luben.zstd.util.Native.load();
+      return true;
+    } catch (LinkageError e) {
+      log.warn("zstd is not available on this platform, only gzip is: {}", e.toString());
+      return false;
+    }
+  }
+
+  /** The request with its body decoded, and without the headers describing the encoded body. */
+  private static final class DecodingRequest extends HttpServletRequestWrapper {
+    private final ContentCoding coding;
+    private final long maxSize;
+    private ServletInputStream body;
+    private BufferedReader reader;
+
+    private DecodingRequest(HttpServletRequest request, ContentCoding coding, long maxSize) {
+      super(request);
+      this.coding = coding;
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+      if (reader != null) {
+        throw new IllegalStateException("getReader() has already been called");
+      }
+      if (body == null) {
+        body = new DecodedInputStream(coding.decoding(super.getInputStream()), maxSize);
+      }
+      return body;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+      if (reader == null) {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+      }
+      return reader;
+    }
+
+    @Override
+    public int getContentLength() {
+      return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+      return -1;
+    }
+
+    @Override
+    public String getHeader(String name) {
+      return hidden(name) ? null : super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+      return hidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+      List<String> names = Collections.list(super.getHeaderNames());
+      names.removeIf(DecodingRequest::hidden);
+      return Collections.enumeration(names);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+      return hidden(name) ? -1 : super.getIntHeader(name);
+    }
+
+    private static boolean hidden(String name) {
+      return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+          || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+  }
+
+  /** Reads the decoded body, failing once it grows beyond the limit. */
+  private static final class DecodedInputStream extends ServletInputStream {
+    private final InputStream in;
+    private final long maxSize;
+    private long size;
+    private boolean finished;
+
+    private DecodedInputStream(InputStream in, long maxSize) {
+      this.in = in;
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = in.read();
+      count(b < 0 ? -1 : 1);
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = in.read(b, off, len);
+      count(read);
+      return read;
+    }
+
+    @Override
+    public boolean isFinished() {
+      return finished;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setReadListener(ReadListener readListener) {
+      throw new UnsupportedOperationException("Compressed request bodies are read blocking");
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+
+    private void count(int read) throws IOException {
+      if (read < 0) {
+        finished = true;
+      } else if ((size += read) > maxSize) {
+        throw new IOException("The decoded request body is larger than " + maxSize + " bytes");
+      }
+    }
+  }
+
+  /**
+   * The response encoding its body as it is written. {@code Content-Encoding} is set, and the
+   * {@code Content-Length} of the unencoded body dropped, when the body is first written to, so
+   * responses without one are left alone.
+   */
+  private static final class EncodingResponse extends HttpServletResponseWrapper {
+    private final ContentCoding coding;
+    private final int level;
+    private final Counter rawBytes;
+    private final Counter encodedBytes;
+    private EncodingOutputStream body;
+    private PrintWriter writer;
+
+    private EncodingResponse(
+        HttpServletResponse response,
+        ContentCoding coding,
+        int level,
+        MeterRegistry meterRegistry) {
+      super(response);
+      this.coding = coding;
+      this.level = level;
+      this.rawBytes = bytesCounter(meterRegistry, coding, "raw");
+      this.encodedBytes = bytesCounter(meterRegistry, coding, "encoded");
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (writer != null) {
+        throw new IllegalStateException("getWriter() has already been called");
+      }
+      return body();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (writer == null) {
+        if (body != null) {
+          throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        writer = new PrintWriter(new OutputStreamWriter(body(), getCharacterEncoding()));
+      }
+      return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (writer != null) {
+        writer.flush();
+      } else if (body != null) {
+        body.flush();
+      }
+      super.flushBuffer();
+    }
+
+    @Override
+    public void setContentLength(int length) {
+      // The length of the unencoded body.
+    }
+
+    @Override
+    public void setContentLengthLong(long length) {
+      // The length of the unencoded body.
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+      if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+        super.setHeader(name, value);
+      }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+      if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+        super.addHeader(name, value);
+      }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+      if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+        super.setIntHeader(name, value);
+      }
+    }
+
+    /** Writes the coding's trailer and frees the encoder, also after the chain failed. */
+    private void finish() throws IOException {
+      try {
+        if (writer != null) {
+          writer.flush();
+        }
+      } finally {
+        if (body != null) {
+          body.close();
+        }
+      }
+    }
+
+    private EncodingOutputStream body() throws IOException {
+      if (body == null) {
+        ServletOutputStream target = super.getOutputStream();
+        super.setHeader(HttpHeaders.CONTENT_ENCODING, coding.token());
+        super.setContentLengthLong(-1);
+        body =
+            new EncodingOutputStream(
+                target, coding.encoding(new CountingOutputStream(target, encodedBytes), level));
+      }
+      return body;
+    }
+
+    private static Counter bytesCounter(MeterRegistry registry, ContentCoding coding, String form) {
+      return Counter.builder("fhir.compression.bytes")
+          .description("Bytes of compressed response bodies, before and after encoding")
+          .baseUnit("bytes")
+          .tag("coding", coding.token())
+          .tag("form", form)
+          .register(registry);
+    }
+
+    /** The servlet stream of the response, writing through the encoder. */
+    private final class EncodingOutputStream extends ServletOutputStream {
+      private final ServletOutputStream target;
+      private final OutputStream encoder;
+      private boolean closed;
+
+      private EncodingOutputStream(ServletOutputStream target, OutputStream encoder) {
+        this.target = target;
+        this.encoder = encoder;
+      }
+
+      @Override
+      public void write(int b) throws IOException {
+        encoder.write(b);
+        rawBytes.increment();
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        encoder.write(b, off, len);
+        rawBytes.increment(len);
+      }
+
+      @Override
+      public void flush() throws IOException {
+        if (!closed) {
+          encoder.flush();
+        }
+      }
+
+      @Override
+      public void close() throws IOException {
+        if (!closed) {
+          closed = true;
+          encoder.close();
+        }
+      }
+
+      @Override
+      public boolean isReady() {
+        return target.isReady();
+      }
+
+      @Override
+      public void setWriteListener(WriteListener writeListener) {
+        throw new UnsupportedOperationException("Compressed responses are written blocking");
+      }
+    }
+  }
+
+  /** Counts the encoded bytes on their way to the response. */
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private final Counter bytes;
+
+    private CountingOutputStream(OutputStream out, Counter bytes) {
+      super(out);
+      this.bytes = bytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      bytes.increment();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      bytes.increment(len);
+    }
+  }
+}
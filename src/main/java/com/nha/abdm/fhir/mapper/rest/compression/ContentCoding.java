@@ -0,0 +1,108 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.compression;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The {@code Content-Encoding}s of request and response bodies. Both directions stream: an encoder
+ * flushes what it has compressed so far whenever it is flushed, so NDJSON lines still go out one at
+ * a time, and closing it ends the compressed data but not the stream it writes to.
+ */
+public enum ContentCoding {
+  GZIP("gzip") {
+    @Override
+    public InputStream decoding(InputStream in) throws IOException {
+      return new GZIPInputStream(in, BUFFER_SIZE);
+    }
+
+    @Override
+    public OutputStream encoding(OutputStream out, int level) throws IOException {
+      return new GZIPOutputStream(new NonClosingOutputStream(out), BUFFER_SIZE, true) {
+        {
+          def.setLevel(level);
+        }
+      };
+    }
+  },
+
+  ZSTD("zstd") {
+    @Override
+    public InputStream decoding(InputStream in) throws IOException {
+      return new ZstdInputStream(in);
+    }
+
+    @Override
+    public OutputStream encoding(OutputStream out, int level) throws IOException {
+      return new ZstdOutputStream(new NonClosingOutputStream(out), level);
+    }
+  };
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final String token;
+
+  ContentCoding(String token) {
+    this.token = token;
+  }
+
+  /**
+   * @return the name of the coding in {@code Content-Encoding} and {@code Accept-Encoding}
+   */
+  public String token() {
+    return token;
+  }
+
+  /**
+   * @param in the encoded body
+   * @return the decoded body
+   */
+  public abstract InputStream decoding(InputStream in) throws IOException;
+
+  /**
+   * @param out where the encoded body goes, left open when the encoder is closed
+   * @param level the compression level of the coding
+   * @return a stream encoding what is written to it
+   */
+  public abstract OutputStream encoding(OutputStream out, int level) throws IOException;
+
+  /**
+   * @param token a coding as found in a header, in any case
+   * @return the coding, or null when it is none of these ({@code x-gzip} is gzip)
+   */
+  public static ContentCoding of(String token) {
+    String name = token.trim();
+    if (name.equalsIgnoreCase("x-gzip")) {
+      return GZIP;
+    }
+    for (ContentCoding coding : values()) {
+      if (coding.token.equalsIgnoreCase(name)) {
+        return coding;
+      }
+    }
+    return null;
+  }
+
+  /** Keeps the response stream open when an encoder is closed to write its trailer. */
+  private static final class NonClosingOutputStream extends FilterOutputStream {
+    private NonClosingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.flush();
+    }
+  }
+}
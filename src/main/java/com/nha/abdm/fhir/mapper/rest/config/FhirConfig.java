@@ -0,0 +1,107 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.config;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import com.nha.abdm.fhir.mapper.rest.common.ids.DeterministicIdGenerator;
+import com.nha.abdm.fhir.mapper.rest.common.ids.IdGenerator;
+import com.nha.abdm.fhir.mapper.rest.common.ids.RandomIdGenerator;
+import com.nha.abdm.fhir.mapper.rest.common.ids.TimeOrderedIdGenerator;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Appointment;
+import org.hl7.fhir.r4.model.Binary;
+import org.hl7.fhir.r4.model.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+/**
+ * The application-wide R4 {@link FhirContext}. HAPI scans a resource type's model the first time it
+ * is used, which made the first request for every record type slow after a deploy, so the context
+ * is warmed up front: every resource type returned by the builders in {@code rest.dto} (plus the
+ * ones the converters create inline) is scanned and encoded once before the bean is handed out.
+ */
+@Configuration
+public class FhirConfig {
+  private static final Logger log = LoggerFactory.getLogger(FhirConfig.class);
+  private static final String BUILDER_PACKAGE = "com.nha.abdm.fhir.mapper.rest.dto";
+  private static final List<Class<? extends IBaseResource>> INLINE_RESOURCE_TYPES =
+      List.of(Bundle.class, Appointment.class, Binary.class);
+
+  @Bean
+  public FhirContext fhirContext(@Value("${fhir.context.warm-up:true}") boolean warmUp) {
+    FhirContext ctx = FhirContext.forR4();
+    if (warmUp) {
+      warmUp(ctx);
+    }
+    return ctx;
+  }
+
+  /**
+   * @param strategy {@code time-ordered} (default), {@code random} for the previous random UUIDs,
+   *     or {@code deterministic} for ids that repeat when the same record is converted again
+   */
+  @Bean
+  public IdGenerator idGenerator(@Value("${fhir.id.strategy:time-ordered}") String strategy) {
+    return switch (strategy) {
+      case "time-ordered" -> new TimeOrderedIdGenerator();
+      case "random" -> new RandomIdGenerator();
+      case "deterministic" -> new DeterministicIdGenerator();
+      default -> throw new IllegalArgumentException(
+          "Unknown fhir.id.strategy "
+              + strategy
+              + ", expected time-ordered, random or deterministic");
+    };
+  }
+
+  private void warmUp(FhirContext ctx) {
+    long start = System.nanoTime();
+    Set<Class<? extends IBaseResource>> resourceTypes = resourceTypes();
+    IParser parser = ctx.newJsonParser();
+    for (Class<? extends IBaseResource> resourceType : resourceTypes) {
+      ctx.getResourceDefinition(resourceType);
+      try {
+        parser.encodeResourceToString(resourceType.getDeclaredConstructor().newInstance());
+      } catch (ReflectiveOperationException e) {
+        log.warn("Could not warm up encoding of {}", resourceType.getSimpleName(), e);
+      }
+    }
+    log.info(
+        "Warmed up FHIR context for {} resource types in {} ms",
+        resourceTypes.size(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Set<Class<? extends IBaseResource>> resourceTypes() {
+    Set<Class<? extends IBaseResource>> resourceTypes = new LinkedHashSet<>(INLINE_RESOURCE_TYPES);
+    ClassPathScanningCandidateComponentProvider scanner =
+        new ClassPathScanningCandidateComponentProvider(false);
+    scanner.addIncludeFilter(new AnnotationTypeFilter(Component.class));
+    for (BeanDefinition builder : scanner.findCandidateComponents(BUILDER_PACKAGE)) {
+      Class<?> builderType =
+          ClassUtils.resolveClassName(builder.getBeanClassName(), getClass().getClassLoader());
+      for (Method method : builderType.getDeclaredMethods()) {
+        Class<?> returnType = method.getReturnType();
+        if (Modifier.isPublic(method.getModifiers())
+            && IBaseResource.class.isAssignableFrom(returnType)
+            && !Modifier.isAbstract(returnType.getModifiers())) {
+          resourceTypes.add((Class<? extends IBaseResource>) returnType);
+        }
+      }
+    }
+    return resourceTypes;
+  }
+}
@@ -0,0 +1,116 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.config;
+
+import ca.uhn.fhir.context.FhirContext;
+import ca.uhn.fhir.parser.IParser;
+import com.nha.abdm.fhir.mapper.rest.attachments.AttachmentSpool;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The one place FHIR JSON is produced and read. HAPI parsers are cheap but not thread-safe, so each
+ * call borrows a parser, configured once from the shared {@link FhirContext}, from a pool that
+ * grows to the number of calls running at once. A pool rather than a parser per thread, since with
+ * virtual threads every request is a new thread.
+ *
+ * <p>Documents spooled by the {@link AttachmentSpool} are encoded as placeholders by HAPI and
+ * expanded from their files on the way to the writer.
+ */
+@Component
+public class FhirJsonSerializer {
+  private final Queue<IParser> parsers = new ConcurrentLinkedQueue<>();
+  private final Supplier<IParser> newParser;
+  private final ConversionMetrics conversionMetrics;
+  private final AttachmentSpool attachmentSpool;
+
+  public FhirJsonSerializer(
+      FhirContext fhirContext,
+      ConversionMetrics conversionMetrics,
+      AttachmentSpool attachmentSpool,
+      @Value("${fhir.json.pretty-print:false}") boolean prettyPrint) {
+    this.conversionMetrics = conversionMetrics;
+    this.attachmentSpool = attachmentSpool;
+    this.newParser = () -> fhirContext.newJsonParser().setPrettyPrint(prettyPrint);
+  }
+
+  public String encode(IBaseResource resource) {
+    StringWriter json = new StringWriter();
+    try {
+      encode(resource, json);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return json.toString();
+  }
+
+  public void encode(IBaseResource resource, Writer writer) throws IOException {
+    long start = System.nanoTime();
+    CountingWriter counting = new CountingWriter(writer);
+    Writer expanding = attachmentSpool.expanding(counting, resource);
+    IParser parser = borrow();
+    try {
+      parser.encodeResourceToWriter(resource, expanding);
+    } finally {
+      parsers.offer(parser);
+    }
+    expanding.close();
+    conversionMetrics.recordEncoding(resource, System.nanoTime() - start, counting.count);
+  }
+
+  public <T extends IBaseResource> T parse(Class<T> resourceType, Reader reader) {
+    IParser parser = borrow();
+    try {
+      return parser.parseResource(resourceType, reader);
+    } finally {
+      parsers.offer(parser);
+    }
+  }
+
+  private IParser borrow() {
+    IParser parser = parsers.poll();
+    return parser != null ? parser : newParser.get();
+  }
+
+  /** Passes everything through, counting the characters written. */
+  private static final class CountingWriter extends FilterWriter {
+    private long count;
+
+    private CountingWriter(Writer out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+      out.write(c);
+      count++;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      out.write(cbuf, off, len);
+      count += len;
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+      out.write(str, off, len);
+      count += len;
+    }
+
+    @Override
+    public void close() {
+      // The caller owns the target.
+    }
+  }
+}
@@ -0,0 +1,70 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.config;
+
+import ca.uhn.fhir.parser.DataFormatException;
+import com.nha.abdm.fhir.mapper.rest.converter.ConversionCache;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+/**
+ * Reads and writes HAPI resources as FHIR JSON, encoding straight onto the response stream so a
+ * bundle is never held as one JSON String on top of its object model. Bundles marked for the {@link
+ * ConversionCache} are stored there as they are written.
+ */
+public class FhirResourceHttpMessageConverter extends AbstractHttpMessageConverter<IBaseResource> {
+  public static final MediaType APPLICATION_FHIR_JSON = MediaType.valueOf("application/fhir+json");
+
+  private final FhirJsonSerializer fhirJsonSerializer;
+  private final ConversionCache conversionCache;
+
+  public FhirResourceHttpMessageConverter(
+      FhirJsonSerializer fhirJsonSerializer, ConversionCache conversionCache) {
+    super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON, APPLICATION_FHIR_JSON);
+    this.fhirJsonSerializer = fhirJsonSerializer;
+    this.conversionCache = conversionCache;
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return IBaseResource.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  protected IBaseResource readInternal(
+      Class<? extends IBaseResource> clazz, HttpInputMessage inputMessage) throws IOException {
+    try (Reader reader = new InputStreamReader(inputMessage.getBody(), charset(inputMessage))) {
+      return fhirJsonSerializer.parse(clazz, reader);
+    } catch (DataFormatException e) {
+      throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+    }
+  }
+
+  @Override
+  protected void writeInternal(IBaseResource resource, HttpOutputMessage outputMessage)
+      throws IOException {
+    ConversionCache.Recording body = conversionCache.recording(resource, outputMessage.getBody());
+    Writer writer = new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8), 8192);
+    try {
+      fhirJsonSerializer.encode(resource, writer);
+    } catch (DataFormatException e) {
+      throw new HttpMessageNotWritableException("Could not encode " + resource.fhirType(), e);
+    }
+    writer.flush();
+    body.store();
+  }
+
+  private static Charset charset(HttpInputMessage inputMessage) {
+    MediaType contentType = inputMessage.getHeaders().getContentType();
+    return contentType != null && contentType.getCharset() != null
+        ? contentType.getCharset()
+        : StandardCharsets.UTF_8;
+  }
+}
@@ -0,0 +1,130 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.config;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Whether work runs on virtual threads: with {@code spring.threads.virtual.enabled} Spring Boot
+ * serves requests on them, and the executors of the converters follow the same setting. Virtual
+ * threads need Java 21; the executor factory is looked up at runtime so the application still
+ * builds and runs on 17, where the setting is ignored with a warning.
+ */
+@Component
+public class VirtualThreads {
+  private static final Logger log = LoggerFactory.getLogger(VirtualThreads.class);
+  private static final MethodHandle NEW_EXECUTOR = findExecutorFactory();
+
+  private final boolean enabled;
+
+  public VirtualThreads(@Value("${spring.threads.virtual.enabled:false}") boolean enabled) {
+    this.enabled = enabled && isSupported();
+    if (enabled && !isSupported()) {
+      log.warn(
+          "spring.threads.virtual.enabled is set but Java {} has no virtual threads, using platform"
+              + " threads",
+          Runtime.version().feature());
+    }
+  }
+
+  /**
+   * @return whether virtual threads are requested and available
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public static boolean isSupported() {
+    return NEW_EXECUTOR != null;
+  }
+
+  /**
+   * An executor starting a virtual thread per task, of which at most {@code limit} run at once; the
+   * others wait holding nothing but their virtual thread.
+   *
+   * @param limit tasks running at once
+   * @throws IllegalStateException when the JVM has no virtual threads
+   */
+  public static ExecutorService newBoundedExecutor(int limit) {
+    if (NEW_EXECUTOR == null) {
+      throw new IllegalStateException(
+          "Virtual threads need Java 21 or later, running on " + Runtime.version());
+    }
+    try {
+      return new BoundedExecutor((ExecutorService) NEW_EXECUTOR.invoke(), limit);
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot create the virtual thread executor", e);
+    }
+  }
+
+  private static MethodHandle findExecutorFactory() {
+    try {
+      return MethodHandles.publicLookup()
+          .findStatic(
+              Executors.class,
+              "newVirtualThreadPerTaskExecutor",
+              MethodType.methodType(ExecutorService.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      return null;
+    }
+  }
+
+  private static final class BoundedExecutor extends AbstractExecutorService {
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    private BoundedExecutor(ExecutorService delegate, int limit) {
+      this.delegate = delegate;
+      this.permits = new Semaphore(limit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      delegate.execute(
+          () -> {
+            permits.acquireUninterruptibly();
+            try {
+              command.run();
+            } finally {
+              permits.release();
+            }
+          });
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.config;
+
+import com.nha.abdm.fhir.mapper.rest.converter.ConversionCache;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import com.nha.abdm.fhir.mapper.rest.metrics.TimedValidator;
+import java.util.List;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.validation.Validator;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+  private final FhirJsonSerializer fhirJsonSerializer;
+  private final jakarta.validation.Validator validator;
+  private final ConversionMetrics conversionMetrics;
+  private final ConversionCache conversionCache;
+
+  public WebConfig(
+      FhirJsonSerializer fhirJsonSerializer,
+      jakarta.validation.Validator validator,
+      ConversionMetrics conversionMetrics,
+      ConversionCache conversionCache) {
+    this.fhirJsonSerializer = fhirJsonSerializer;
+    this.validator = validator;
+    this.conversionMetrics = conversionMetrics;
+    this.conversionCache = conversionCache;
+  }
+
+  /** Puts the FHIR converter ahead of Jackson, which cannot serialize HAPI resources. */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(0, new FhirResourceHttpMessageConverter(fhirJsonSerializer, conversionCache));
+  }
+
+  /** Times the validation of {@code @Valid} request bodies, see {@link TimedValidator}. */
+  @Override
+  public Validator getValidator() {
+    return new TimedValidator(validator, conversionMetrics);
+  }
+}
@@ -1,14 +1,21 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.controller;
 
-import ca.uhn.fhir.context.FhirContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nha.abdm.fhir.mapper.rest.common.constants.ErrorCode;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.FacadeError;
 import com.nha.abdm.fhir.mapper.rest.converter.*;
 import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedService;
 import com.nha.abdm.fhir.mapper.rest.requests.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.List;
 import java.util.Objects;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -29,7 +36,9 @@ public class BundleController {
   @Autowired DischargeSummaryConverter dischargeSummaryConverter;
   @Autowired WellnessRecordConverter wellnessRecordConverter;
   @Autowired SnomedService snomedService;
-  FhirContext ctx = FhirContext.forR4();
+  @Autowired BundleDispatcher bundleDispatcher;
+  @Autowired BundleStreamer bundleStreamer;
+  @Autowired ConversionCache conversionCache;
 
   /**
    * @param immunizationRequest which has immunization details like vaccine and type of vaccine
@@ -40,16 +49,10 @@ public class BundleController {
   public Object createImmunizationBundle(
       @Valid @RequestBody ImmunizationRequest immunizationRequest) throws ParseException {
 
-    BundleResponse bundleResponse =
-        immunizationConverter.makeImmunizationBundle(immunizationRequest);
-
-    if (Objects.nonNull(bundleResponse.getError()))
-      return ResponseEntity.badRequest()
-          .contentType(MediaType.APPLICATION_JSON)
-          .body(FacadeError.builder().error(bundleResponse.getError()).build());
-    return ResponseEntity.status(HttpStatus.CREATED)
-        .contentType(MediaType.APPLICATION_JSON)
-        .body(ctx.newJsonParser().encodeResourceToString(bundleResponse.getBundle()));
+    return created(
+        "ImmunizationRecord",
+        immunizationRequest,
+        () -> immunizationConverter.makeImmunizationBundle(immunizationRequest));
   }
 
   /**
@@ -61,16 +64,10 @@ public class BundleController {
   public ResponseEntity<Object> createPrescriptionBundle(
       @Valid @RequestBody PrescriptionRequest prescriptionRequest) throws ParseException {
 
-    BundleResponse bundleResponse =
-        prescriptionConverter.convertToPrescriptionBundle(prescriptionRequest);
-
-    if (Objects.nonNull(bundleResponse.getError()))
-      return ResponseEntity.badRequest()
-          .contentType(MediaType.APPLICATION_JSON)
-          .body(FacadeError.builder().error(bundleResponse.getError()).build());
-    return ResponseEntity.status(HttpStatus.CREATED)
-        .contentType(MediaType.APPLICATION_JSON)
-        .body(ctx.newJsonParser().encodeResourceToString(bundleResponse.getBundle()));
+    return created(
+        "PrescriptionRecord",
+        prescriptionRequest,
+        () -> prescriptionConverter.convertToPrescriptionBundle(prescriptionRequest));
   }
 
   /**
@@ -82,16 +79,10 @@ public class BundleController {
   public ResponseEntity<Object> createOPConsultationBundle(
       @Valid @RequestBody OPConsultationRequest opConsultationRequest) throws ParseException {
 
-    BundleResponse bundleResponse =
-        opConsultationConverter.convertToOPConsultationBundle(opConsultationRequest);
-
-    if (Objects.nonNull(bundleResponse.getError()))
-      return ResponseEntity.badRequest()
-          .contentType(MediaType.APPLICATION_JSON)
-          .body(FacadeError.builder().error(bundleResponse.getError()).build());
-    return ResponseEntity.status(HttpStatus.CREATED)
-        .contentType(MediaType.APPLICATION_JSON)
-        .body(ctx.newJsonParser().encodeResourceToString(bundleResponse.getBundle()));
+    return created(
+        "OPConsultRecord",
+        opConsultationRequest,
+        () -> opConsultationConverter.convertToOPConsultationBundle(opConsultationRequest));
   }
 
   /**
@@ -103,16 +94,10 @@ public class BundleController {
   public ResponseEntity<Object> createHealthDocumentBundle(
       @Valid @RequestBody HealthDocumentRecord healthDocumentRecord) throws ParseException {
 
-    BundleResponse bundleResponse =
-        healthDocumentConverter.convertToHealthDocumentBundle(healthDocumentRecord);
-
-    if (Objects.nonNull(bundleResponse.getError()))
-      return ResponseEntity.badRequest()
-          .contentType(MediaType.APPLICATION_JSON)
-          .body(FacadeError.builder().error(bundleResponse.getError()).build());
-    return ResponseEntity.status(HttpStatus.CREATED)
-        .contentType(MediaType.APPLICATION_JSON)
-        .body(ctx.newJsonParser().encodeResourceToString(bundleResponse.getBundle()));
+    return created(
+        "HealthDocumentRecord",
+        healthDocumentRecord,
+        () -> healthDocumentConverter.convertToHealthDocumentBundle(healthDocumentRecord));
   }
 
   /**
@@ -125,16 +110,10 @@ public class BundleController {
   public ResponseEntity<Object> createDiagnosticReportBundle(
       @Valid @RequestBody DiagnosticReportRequest diagnosticReportRequest) throws ParseException {
 
-    BundleResponse bundleResponse =
-        diagnosticReportConverter.convertToDiagnosticBundle(diagnosticReportRequest);
-
-    if (Objects.nonNull(bundleResponse.getError()))
-      return ResponseEntity.badRequest()
-          .contentType(MediaType.APPLICATION_JSON)
-          .body(FacadeError.builder().error(bundleResponse.getError()).build());
-    return ResponseEntity.status(HttpStatus.CREATED)
-        .contentType(MediaType.APPLICATION_JSON)
-        .body(ctx.newJsonParser().encodeResourceToString(bundleResponse.getBundle()));
+    return created(
+        "DiagnosticReportRecord",
+        diagnosticReportRequest,
+        () -> diagnosticReportConverter.convertToDiagnosticBundle(diagnosticReportRequest));
   }
 
   /**
@@ -146,16 +125,10 @@ public class BundleController {
   public ResponseEntity<Object> createDischargeSummaryBundle(
       @Valid @RequestBody DischargeSummaryRequest dischargeSummaryRequest) throws ParseException {
 
-    BundleResponse bundleResponse =
-        dischargeSummaryConverter.convertToDischargeSummary(dischargeSummaryRequest);
-
-    if (Objects.nonNull(bundleResponse.getError()))
-      return ResponseEntity.badRequest()
-          .contentType(MediaType.APPLICATION_JSON)
-          .body(FacadeError.builder().error(bundleResponse.getError()).build());
-    return ResponseEntity.status(HttpStatus.CREATED)
-        .contentType(MediaType.APPLICATION_JSON)
-        .body(ctx.newJsonParser().encodeResourceToString(bundleResponse.getBundle()));
+    return created(
+        "DischargeSummaryRecord",
+        dischargeSummaryRequest,
+        () -> dischargeSummaryConverter.convertToDischargeSummary(dischargeSummaryRequest));
   }
 
   /**
@@ -165,10 +138,72 @@ public class BundleController {
    */
   @PostMapping("/wellness-record")
   public ResponseEntity<Object> createWellnessBundle(
-      @Valid @RequestBody WellnessRecordRequest wellnessRecordRequest) {
+      @Valid @RequestBody WellnessRecordRequest wellnessRecordRequest) throws ParseException {
 
-    BundleResponse bundleResponse =
-        wellnessRecordConverter.getWellnessBundle(wellnessRecordRequest);
+    return created(
+        "WellnessRecord",
+        wellnessRecordRequest,
+        () -> wellnessRecordConverter.getWellnessBundle(wellnessRecordRequest));
+  }
+
+  /**
+   * @param items records of any type, each tagged with its bundleType
+   * @return one result per item with either the FHIR bundle or the error of that item
+   */
+  @PostMapping("/batch")
+  public ResponseEntity<Object> createBundles(@RequestBody List<JsonNode> items) {
+    if (items.size() > bundleDispatcher.getMaxItems())
+      return ResponseEntity.badRequest()
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(
+              FacadeError.builder()
+                  .error(
+                      new ErrorResponse(
+                          ErrorCode.VALIDATION_ERROR,
+                          "A batch can hold at most " + bundleDispatcher.getMaxItems() + " items"))
+                  .build());
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(bundleDispatcher.convertAll(items));
+  }
+
+  /**
+   * Converts a newline-delimited stream of records of any type, writing each bundle, or the error
+   * of that line, as soon as it is ready.
+   *
+   * @param request NDJSON body, one record per line
+   * @param response NDJSON body, one bundle or error per input line in the same order
+   * @throws IOException when reading the body or writing the response fails
+   */
+  @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public void streamBundles(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    bundleStreamer.convert(request.getInputStream(), response.getOutputStream());
+  }
+
+  /**
+   * Converts a request, or answers it from the {@link ConversionCache} when the same request was
+   * converted before.
+   *
+   * @param bundleType the type of bundle, as in the batch's {@code bundleType}
+   * @param request the bound request
+   * @param conversion the converter call for the request
+   * @return the bundle with 201, or the conversion's error with 400
+   * @throws ParseException while parsing the string into date
+   */
+  private ResponseEntity<Object> created(String bundleType, Object request, Conversion conversion)
+      throws ParseException {
+    ConversionCache.Key key = conversionCache.key(bundleType, request);
+    byte[] cached = conversionCache.get(key);
+    if (cached != null)
+      return ResponseEntity.status(HttpStatus.CREATED)
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(cached);
+
+    BundleResponse bundleResponse = conversion.run();
 
     if (Objects.nonNull(bundleResponse.getError()))
       return ResponseEntity.badRequest()
@@ -176,6 +211,13 @@ public class BundleController {
           .body(FacadeError.builder().error(bundleResponse.getError()).build());
     return ResponseEntity.status(HttpStatus.CREATED)
         .contentType(MediaType.APPLICATION_JSON)
-        .body(ctx.newJsonParser().encodeResourceToString(bundleResponse.getBundle()));
+        .body(
+            key != null
+                ? conversionCache.cacheOnWrite(key, bundleResponse.getBundle())
+                : bundleResponse.getBundle());
+  }
+
+  private interface Conversion {
+    BundleResponse run() throws ParseException;
   }
 }
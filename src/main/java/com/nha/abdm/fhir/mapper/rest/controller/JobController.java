@@ -0,0 +1,115 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.nha.abdm.fhir.mapper.rest.common.constants.ErrorCode;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionJob;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FacadeError;
+import com.nha.abdm.fhir.mapper.rest.converter.BundleDispatcher;
+import com.nha.abdm.fhir.mapper.rest.jobs.JobQueue;
+import com.nha.abdm.fhir.mapper.rest.jobs.JobStore;
+import java.net.URI;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+@RestController
+@RequestMapping(path = "/v1/jobs")
+public class JobController {
+  private static final String RETRY_AFTER_SECONDS = "1";
+
+  @Autowired JobQueue jobQueue;
+  @Autowired JobStore jobStore;
+  @Autowired BundleDispatcher bundleDispatcher;
+
+  @Value("${jobs.max-wait:60s}")
+  Duration maxWait;
+
+  /**
+   * Queues the conversion of a record of any type, to be fetched from the returned location.
+   *
+   * @param item a record tagged with its bundleType, as a batch item
+   * @return the queued job with 202, or 503 when the queue is full
+   * @throws Exception when the record cannot be stored
+   */
+  @PostMapping
+  public ResponseEntity<Object> submitJob(@RequestBody JsonNode item) throws Exception {
+    String bundleType = item.hasNonNull("bundleType") ? item.get("bundleType").asText() : null;
+    if (bundleType == null || !bundleDispatcher.getBundleTypes().contains(bundleType))
+      return ResponseEntity.badRequest()
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(
+              error(
+                  ErrorCode.INCORRECT_BUNDLE_TYPE,
+                  "bundleType must be one of "
+                      + String.join(", ", bundleDispatcher.getBundleTypes())));
+
+    ConversionJob job = jobQueue.submit(bundleType, item);
+    if (job == null)
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+          .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(error(ErrorCode.JOB_QUEUE_FULL, "Too many jobs are queued, retry later"));
+    URI location =
+        ServletUriComponentsBuilder.fromCurrentRequest()
+            .path("/{id}")
+            .buildAndExpand(job.getId())
+            .toUri();
+    return ResponseEntity.accepted()
+        .location(location)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(job);
+  }
+
+  /**
+   * Returns what the bundle endpoint of the job's type would have: the bundle with 201 or the error
+   * with 400. While the job has not finished, returns it with 202, after waiting up to {@code wait}
+   * seconds for it to finish.
+   *
+   * @param id the job id
+   * @param wait seconds to wait for the job, at most {@code jobs.max-wait}
+   * @return the job's response, the unfinished job, or 404 once it has expired
+   */
+  @GetMapping("/{id}")
+  public DeferredResult<ResponseEntity<Object>> getJob(
+      @PathVariable("id") String id, @RequestParam(name = "wait", defaultValue = "0") long wait) {
+    long timeout = Duration.ofSeconds(Math.max(0, Math.min(wait, maxWait.toSeconds()))).toMillis();
+    DeferredResult<ResponseEntity<Object>> result =
+        new DeferredResult<>(timeout > 0 ? timeout : null, () -> response(id));
+    if (timeout == 0) {
+      result.setResult(response(id));
+    } else {
+      jobQueue.completion(id).thenRun(() -> result.setResult(response(id)));
+    }
+    return result;
+  }
+
+  private ResponseEntity<Object> response(String id) {
+    JobStore.Result finished = jobStore.result(id);
+    if (finished != null)
+      return ResponseEntity.status(finished.httpStatus())
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(finished.body());
+    ConversionJob job = jobStore.find(id);
+    if (job == null)
+      return ResponseEntity.status(HttpStatus.NOT_FOUND)
+          .contentType(MediaType.APPLICATION_JSON)
+          .body(error(ErrorCode.JOB_NOT_FOUND, "No job " + id + ", or it has expired"));
+    return ResponseEntity.accepted()
+        .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(job);
+  }
+
+  private static FacadeError error(String code, String message) {
+    return FacadeError.builder().error(new ErrorResponse(code, message)).build();
+  }
+}
@@ -2,13 +2,17 @@
 package com.nha.abdm.fhir.mapper.rest.controller;
 
 import com.nha.abdm.fhir.mapper.rest.common.constants.SnomedCodeIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.SnomedCacheStats;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.SnomedResponse;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedTerminologyReloader;
 import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedService;
 import java.util.Objects;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -16,6 +20,7 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping(path = "/v1/snomed")
 public class SnomedController {
   @Autowired SnomedService snomedService;
+  @Autowired SnomedTerminologyReloader snomedTerminologyReloader;
 
   /**
    * Returns all the available snomed codes
@@ -39,7 +44,35 @@ public class SnomedController {
           .body(
               SnomedResponse.builder()
                   .message("Invalid Resource")
+                  .terminologyVersion(snomedService.getTerminologyVersion())
                   .availableSnomed(SnomedCodeIdentifier.availableSnomed)
                   .build());
   }
+
+  /**
+   * Returns the hit, miss and eviction counters of the resolved SNOMED code cache
+   *
+   * @return cache statistics
+   */
+  @GetMapping("/cache/stats")
+  public ResponseEntity<SnomedCacheStats> getCacheStats() {
+    return ResponseEntity.ok().body(snomedService.getCacheStats());
+  }
+
+  /**
+   * Loads the SNOMED files from snomed.terminology.location in the background and activates them
+   * once fully indexed; lookups keep using the current version until then.
+   *
+   * @return the version active when the request was accepted
+   */
+  @PostMapping("/reload")
+  public ResponseEntity<SnomedResponse> reloadTerminology() {
+    boolean started = snomedTerminologyReloader.requestReload();
+    return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT)
+        .body(
+            SnomedResponse.builder()
+                .message(started ? "Reload started" : "Reload already in progress")
+                .terminologyVersion(snomedService.getTerminologyVersion())
+                .build());
+  }
 }
@@ -0,0 +1,339 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.converter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nha.abdm.fhir.mapper.rest.attachments.RequestAttachments;
+import com.nha.abdm.fhir.mapper.rest.common.constants.ErrorCode;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.*;
+import com.nha.abdm.fhir.mapper.rest.config.FhirJsonSerializer;
+import com.nha.abdm.fhir.mapper.rest.config.VirtualThreads;
+import com.nha.abdm.fhir.mapper.rest.exceptions.StreamUtils;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import com.nha.abdm.fhir.mapper.rest.requests.*;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.ParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hl7.fhir.r4.model.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts loosely typed request items by their {@code bundleType}: binds the item to the matching
+ * request class, validates it like {@code @Valid} on the single-record endpoints, runs the
+ * converter and encodes the bundle. Every failure is reported on the item instead of being thrown,
+ * so one bad record never fails the others.
+ */
+@Component
+public class BundleDispatcher {
+  private static final Logger log = LoggerFactory.getLogger(BundleDispatcher.class);
+
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+  private final Map<String, Route<?>> routes = new LinkedHashMap<>();
+  private final ExecutorService executor;
+  private final int maxItems;
+  private final FhirJsonSerializer fhirJsonSerializer;
+  private final ConversionMetrics conversionMetrics;
+
+  public BundleDispatcher(
+      ObjectMapper objectMapper,
+      Validator validator,
+      FhirJsonSerializer fhirJsonSerializer,
+      ConversionMetrics conversionMetrics,
+      VirtualThreads virtualThreads,
+      ImmunizationConverter immunizationConverter,
+      PrescriptionConverter prescriptionConverter,
+      HealthDocumentConverter healthDocumentConverter,
+      OPConsultationConverter opConsultationConverter,
+      DiagnosticReportConverter diagnosticReportConverter,
+      DischargeSummaryConverter dischargeSummaryConverter,
+      WellnessRecordConverter wellnessRecordConverter,
+      @Value("${bundle.batch.concurrency:0}") int concurrency,
+      @Value("${bundle.batch.max-items:1000}") int maxItems) {
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+    this.fhirJsonSerializer = fhirJsonSerializer;
+    this.conversionMetrics = conversionMetrics;
+    this.maxItems = maxItems;
+    route(
+        "ImmunizationRecord",
+        ImmunizationRequest.class,
+        immunizationConverter::makeImmunizationBundle);
+    route(
+        "PrescriptionRecord",
+        PrescriptionRequest.class,
+        prescriptionConverter::convertToPrescriptionBundle);
+    route(
+        "HealthDocumentRecord",
+        HealthDocumentRecord.class,
+        healthDocumentConverter::convertToHealthDocumentBundle);
+    route(
+        "OPConsultRecord",
+        OPConsultationRequest.class,
+        opConsultationConverter::convertToOPConsultationBundle);
+    route(
+        "DiagnosticReportRecord",
+        DiagnosticReportRequest.class,
+        diagnosticReportConverter::convertToDiagnosticBundle);
+    route(
+        "DischargeSummaryRecord",
+        DischargeSummaryRequest.class,
+        dischargeSummaryConverter::convertToDischargeSummary);
+    route(
+        "WellnessRecord", WellnessRecordRequest.class, wellnessRecordConverter::getWellnessBundle);
+
+    int threads = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor =
+        virtualThreads.isEnabled()
+            ? VirtualThreads.newBoundedExecutor(threads)
+            : Executors.newFixedThreadPool(
+                threads,
+                runnable -> {
+                  Thread thread =
+                      new Thread(runnable, "bundle-batch-" + threadCount.incrementAndGet());
+                  thread.setDaemon(true);
+                  return thread;
+                });
+  }
+
+  private <R> void route(
+      String bundleType,
+      Class<R> requestType,
+      StreamUtils.CheckedFunction<R, BundleResponse> converter) {
+    routes.put(bundleType, new Route<>(requestType, converter));
+  }
+
+  public int getMaxItems() {
+    return maxItems;
+  }
+
+  /**
+   * @return the {@code bundleType}s items can have
+   */
+  public Set<String> getBundleTypes() {
+    return Collections.unmodifiableSet(routes.keySet());
+  }
+
+  /**
+   * Converts the items in parallel, at most {@code bundle.batch.concurrency} at a time across all
+   * batches.
+   *
+   * @param items request bodies of any supported record type
+   * @return one result per item, in request order
+   */
+  public BatchResponse convertAll(List<JsonNode> items) {
+    List<CompletableFuture<BatchItemResult>> futures = new ArrayList<>(items.size());
+    for (JsonNode item : items) {
+      futures.add(CompletableFuture.supplyAsync(() -> convert(item), executor));
+    }
+    List<BatchItemResult> results = new ArrayList<>(items.size());
+    int succeeded = 0;
+    for (int i = 0; i < futures.size(); i++) {
+      BatchItemResult result = futures.get(i).join();
+      result.setIndex(i);
+      if (result.getError() == null) {
+        succeeded++;
+      }
+      results.add(result);
+    }
+    return BatchResponse.builder()
+        .total(results.size())
+        .succeeded(succeeded)
+        .failed(results.size() - succeeded)
+        .results(results)
+        .build();
+  }
+
+  /**
+   * @param item request body of any supported record type
+   * @return the encoded bundle with status 201, or the error with status 400
+   */
+  public BatchItemResult convert(JsonNode item) {
+    return toResult(dispatch(item));
+  }
+
+  /**
+   * Runs {@link #dispatch} on the shared pool.
+   *
+   * @param item request body of any supported record type
+   * @return the outcome, never completed exceptionally
+   */
+  public CompletableFuture<Outcome> submit(JsonNode item) {
+    return CompletableFuture.supplyAsync(() -> dispatch(item), executor);
+  }
+
+  /**
+   * @param outcome a dispatched item, released once its bundle is encoded
+   * @return the item result, with the bundle encoded when the conversion succeeded
+   */
+  public BatchItemResult toResult(Outcome outcome) {
+    if (outcome.error() != null) {
+      return BatchItemResult.builder()
+          .bundleType(outcome.bundleType())
+          .status(HttpStatus.BAD_REQUEST.value())
+          .error(outcome.error())
+          .build();
+    }
+    try {
+      return BatchItemResult.builder()
+          .bundleType(outcome.bundleType())
+          .status(HttpStatus.CREATED.value())
+          .bundle(fhirJsonSerializer.encode(outcome.bundle()))
+          .build();
+    } finally {
+      outcome.release();
+    }
+  }
+
+  /**
+   * Encodes the bundle as a single line of JSON directly onto the writer.
+   *
+   * @param bundle a converted bundle
+   * @param writer the target, left open
+   * @throws IOException when writing fails
+   */
+  public void writeBundle(Bundle bundle, Writer writer) throws IOException {
+    fhirJsonSerializer.encode(bundle, writer);
+  }
+
+  /**
+   * @param item request body of any supported record type
+   * @return the converted bundle or the error, not yet encoded; {@link Outcome#release release} it
+   *     once the bundle is written
+   */
+  public Outcome dispatch(JsonNode item) {
+    String bundleType =
+        item != null && item.hasNonNull("bundleType") ? item.get("bundleType").asText() : null;
+    Route<?> route = bundleType == null ? null : routes.get(bundleType);
+    if (route == null) {
+      return new Outcome(
+          bundleType,
+          null,
+          FacadeError.builder()
+              .error(
+                  new ErrorResponse(
+                      ErrorCode.INCORRECT_BUNDLE_TYPE,
+                      "bundleType must be one of " + String.join(", ", routes.keySet())))
+              .build());
+    }
+    return route.convert(bundleType, item);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * A converted bundle or the reason the item could not be converted. A bundle may hold documents
+   * spooled while the item was bound, readable until the outcome is released.
+   */
+  public record Outcome(
+      String bundleType, Bundle bundle, FacadeError error, RequestAttachments attachments) {
+    public Outcome(String bundleType, Bundle bundle, FacadeError error) {
+      this(bundleType, bundle, error, null);
+    }
+
+    /** Deletes the documents spooled for the item. */
+    public void release() {
+      if (attachments != null) {
+        attachments.release();
+      }
+    }
+  }
+
+  private final class Route<R> {
+    private final Class<R> requestType;
+    private final StreamUtils.CheckedFunction<R, BundleResponse> converter;
+
+    private Route(Class<R> requestType, StreamUtils.CheckedFunction<R, BundleResponse> converter) {
+      this.requestType = requestType;
+      this.converter = converter;
+    }
+
+    private Outcome convert(String bundleType, JsonNode item) {
+      RequestAttachments attachments = new RequestAttachments();
+      Outcome outcome = convert(bundleType, item, attachments);
+      if (outcome.bundle() == null) {
+        attachments.release();
+        return outcome;
+      }
+      return new Outcome(bundleType, outcome.bundle(), null, attachments);
+    }
+
+    private Outcome convert(String bundleType, JsonNode item, RequestAttachments attachments) {
+      R request;
+      try {
+        request =
+            objectMapper
+                .reader()
+                .withAttribute(RequestAttachments.class, attachments)
+                .treeToValue(item, requestType);
+      } catch (JsonProcessingException e) {
+        return new Outcome(
+            bundleType,
+            null,
+            FacadeError.builder()
+                .description("Invalid request. Please check the JSON format.")
+                .error(new ErrorResponse(ErrorCode.PARSE_ERROR, e.getOriginalMessage()))
+                .build());
+      }
+
+      long validationStart = System.nanoTime();
+      Set<ConstraintViolation<R>> violations = validator.validate(request);
+      conversionMetrics.recordValidation(
+          bundleType, System.nanoTime() - validationStart, violations.isEmpty());
+      if (!violations.isEmpty()) {
+        List<FieldErrorsResponse> fieldErrors = new ArrayList<>();
+        for (ConstraintViolation<R> violation : violations) {
+          fieldErrors.add(
+              new FieldErrorsResponse(
+                  violation.getPropertyPath().toString(), violation.getMessage()));
+        }
+        return new Outcome(
+            bundleType,
+            null,
+            FacadeError.builder()
+                .validationErrors(
+                    new ValidationErrorResponse(ErrorCode.VALIDATION_ERROR, fieldErrors))
+                .build());
+      }
+
+      try {
+        BundleResponse bundleResponse = converter.apply(request);
+        if (Objects.nonNull(bundleResponse.getError())) {
+          return new Outcome(
+              bundleType, null, FacadeError.builder().error(bundleResponse.getError()).build());
+        }
+        return new Outcome(bundleType, bundleResponse.getBundle(), null);
+      } catch (ParseException e) {
+        return new Outcome(
+            bundleType,
+            null,
+            FacadeError.builder()
+                .error(new ErrorResponse(ErrorCode.PARSE_ERROR, "ParseError: " + e.getMessage()))
+                .build());
+      } catch (Exception e) {
+        log.error("Failed to convert {} item", bundleType, e);
+        return new Outcome(
+            bundleType,
+            null,
+            FacadeError.builder().error(new ErrorResponse("1000", e.getMessage())).build());
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.converter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nha.abdm.fhir.mapper.rest.common.constants.ErrorCode;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.BatchItemResult;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FacadeError;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts a newline-delimited stream of requests into a newline-delimited stream of results.
+ *
+ * <p>Each input line is one request of any record type. Each output line, in input order, is either
+ * the FHIR bundle or a {@link BatchItemResult} carrying the error and the 1-based input line
+ * number. At most {@code bundle.stream.in-flight} lines are converted at a time; the next line is
+ * only read once the oldest one has been written, so a slow client slows the upload down instead of
+ * letting results pile up in memory.
+ */
+@Component
+public class BundleStreamer {
+  private static final Logger log = LoggerFactory.getLogger(BundleStreamer.class);
+
+  private final BundleDispatcher bundleDispatcher;
+  private final ObjectMapper objectMapper;
+  private final int inFlight;
+
+  public BundleStreamer(
+      BundleDispatcher bundleDispatcher,
+      ObjectMapper objectMapper,
+      @Value("${bundle.stream.in-flight:16}") int inFlight) {
+    this.bundleDispatcher = bundleDispatcher;
+    this.objectMapper = objectMapper;
+    this.inFlight = Math.max(1, inFlight);
+  }
+
+  /**
+   * @param input NDJSON requests, read incrementally
+   * @param output NDJSON results, flushed after every line
+   * @throws IOException when reading the requests or writing the results fails
+   */
+  public void convert(InputStream input, OutputStream output) throws IOException {
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    Deque<Pending> pending = new ArrayDeque<>();
+    int lineNumber = 0;
+    int converted = 0;
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.isBlank()) {
+          continue;
+        }
+        pending.add(new Pending(lineNumber, submit(line)));
+        if (pending.size() >= inFlight) {
+          write(pending.poll(), writer);
+          converted++;
+        }
+      }
+      while (!pending.isEmpty()) {
+        write(pending.poll(), writer);
+        converted++;
+      }
+    } finally {
+      // Conversions cannot be cancelled once submitted, so release each one whenever it ends.
+      pending.forEach(item -> item.outcome.thenAccept(BundleDispatcher.Outcome::release));
+      log.debug("Streamed {} of {} lines", converted, lineNumber);
+    }
+  }
+
+  private CompletableFuture<BundleDispatcher.Outcome> submit(String line) {
+    JsonNode item;
+    try {
+      item = objectMapper.readTree(line);
+    } catch (JsonProcessingException e) {
+      return CompletableFuture.completedFuture(
+          new BundleDispatcher.Outcome(
+              null,
+              null,
+              FacadeError.builder()
+                  .description("Invalid request. Please check the JSON format.")
+                  .error(new ErrorResponse(ErrorCode.PARSE_ERROR, e.getOriginalMessage()))
+                  .build()));
+    }
+    return bundleDispatcher.submit(item);
+  }
+
+  private void write(Pending item, Writer writer) throws IOException {
+    BundleDispatcher.Outcome outcome = item.outcome.join();
+    if (outcome.error() == null) {
+      try {
+        bundleDispatcher.writeBundle(outcome.bundle(), writer);
+      } finally {
+        outcome.release();
+      }
+    } else {
+      writer.write(
+          objectMapper.writeValueAsString(
+              BatchItemResult.builder()
+                  .index(item.lineNumber)
+                  .bundleType(outcome.bundleType())
+                  .status(HttpStatus.BAD_REQUEST.value())
+                  .error(outcome.error())
+                  .build()));
+    }
+    writer.write('\n');
+    writer.flush();
+  }
+
+  private record Pending(int lineNumber, CompletableFuture<BundleDispatcher.Outcome> outcome) {}
+}
@@ -0,0 +1,242 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.converter;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import org.hl7.fhir.instance.model.api.IBaseResource;
+import org.hl7.fhir.r4.model.Bundle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Encoded bundles of recent requests, so that a request retried with the same body gets the very
+ * same bundle back, ids included, without converting and encoding it again. Entries are keyed by
+ * the bundle type, the active SNOMED terminology version and a SHA-256 of the bound request written
+ * as canonical JSON: properties and map entries sorted, no whitespace, fields the request does not
+ * bind dropped. So two bodies differing only in formatting or key order share an entry, and a new
+ * terminology version is never answered with codes of the previous one.
+ *
+ * <p>Off unless {@code conversion.cache.enabled}. Entries expire {@code conversion.cache.ttl} after
+ * they were stored and are evicted once they add up to {@code conversion.cache.max-size} bytes.
+ * Only successful conversions are stored. Statistics are in the {@code cache.*} metrics with {@code
+ * cache=conversion}.
+ *
+ * <p>{@code conversion.cache.max-entry-size} bounds what a request may cost the cache: a request
+ * whose canonical JSON exceeds it, such as one with large documents, is not cached, and writing it
+ * out stops at the limit; nor is one whose bundle encodes to more. A bundle to be stored is copied
+ * as it is written to the response, see {@link #cacheOnWrite}, and the copy is dropped once it
+ * exceeds the limit, so no more than that is ever buffered.
+ *
+ * <p>Concurrent first requests with one body are each converted; the last one stored wins.
+ */
+@Component
+public class ConversionCache {
+  private static final String KEY = ConversionCache.class.getName() + ".key";
+
+  private final SnomedService snomedService;
+  private final boolean enabled;
+  private final long maxEntrySize;
+  private final ObjectMapper canonicalMapper;
+  private final Cache<Key, byte[]> cache;
+
+  public ConversionCache(
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      SnomedService snomedService,
+      @Value("${conversion.cache.enabled:false}") boolean enabled,
+      @Value("${conversion.cache.ttl:10m}") Duration ttl,
+      @Value("${conversion.cache.max-size:128MB}") DataSize maxSize,
+      @Value("${conversion.cache.max-entry-size:1MB}") DataSize maxEntrySize) {
+    this.snomedService = snomedService;
+    this.enabled = enabled;
+    this.maxEntrySize = maxEntrySize.toBytes();
+    ObjectMapper canonical = objectMapper.copy();
+    canonical.setConfig(
+        canonical
+            .getSerializationConfig()
+            .with(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .without(SerializationFeature.INDENT_OUTPUT));
+    this.canonicalMapper = canonical;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxSize.toBytes())
+            .<Key, byte[]>weigher((key, bundle) -> bundle.length)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+    if (enabled) {
+      CaffeineCacheMetrics.monitor(meterRegistry, cache, "conversion");
+    }
+  }
+
+  /**
+   * @param bundleType the type of bundle the request converts to
+   * @param request the bound request
+   * @return the key of the request, or null when it is not to be cached
+   */
+  public Key key(String bundleType, Object request) {
+    if (!enabled) {
+      return null;
+    }
+    String terminologyVersion = snomedService.getTerminologyVersion();
+    HashingOutputStream hash = new HashingOutputStream(maxEntrySize);
+    try {
+      canonicalMapper.writeValue(hash, request);
+    } catch (IOException e) {
+      return null;
+    }
+    return new Key(bundleType, terminologyVersion, hash.digest());
+  }
+
+  /**
+   * @param key the key of the request, possibly null
+   * @return the encoded bundle stored for the request, or null
+   */
+  public byte[] get(Key key) {
+    return key != null ? cache.getIfPresent(key) : null;
+  }
+
+  /**
+   * Marks the bundle to be stored under the key once it has been written with a {@link Recording}.
+   *
+   * @param key the key of the request the bundle was converted from
+   * @return the bundle
+   */
+  public Bundle cacheOnWrite(Key key, Bundle bundle) {
+    bundle.setUserData(KEY, key);
+    return bundle;
+  }
+
+  /**
+   * @param resource the resource about to be written
+   * @param out where it is written
+   * @return the stream to write the resource to, copying it when it was marked by {@link
+   *     #cacheOnWrite}
+   */
+  public Recording recording(IBaseResource resource, OutputStream out) {
+    Key key =
+        resource instanceof Bundle bundle && bundle.getUserData(KEY) instanceof Key marked
+            ? marked
+            : null;
+    return new Recording(out, key);
+  }
+
+  public record Key(String bundleType, String terminologyVersion, String hash) {}
+
+  /**
+   * Passes everything through, keeping a copy of a marked bundle while it fits an entry. Call
+   * {@link #store} once the bundle was written completely; closing does not close the target.
+   */
+  public final class Recording extends FilterOutputStream {
+    private final Key key;
+    private ByteArrayOutputStream copy;
+
+    private Recording(OutputStream out, Key key) {
+      super(out);
+      this.key = key;
+      this.copy = key != null ? new ByteArrayOutputStream() : null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      keep(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      keep(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.flush();
+    }
+
+    /** Stores the copy, unless the bundle outgrew an entry. */
+    public void store() {
+      if (copy != null) {
+        cache.put(key, copy.toByteArray());
+        copy = null;
+      }
+    }
+
+    private void keep(byte[] b, int off, int len) {
+      if (copy != null) {
+        if (copy.size() + len > maxEntrySize) {
+          copy = null;
+        } else {
+          copy.write(b, off, len);
+        }
+      }
+    }
+  }
+
+  /** Thrown once a request is too large to be cached, ending its serialization. */
+  private static final class TooLargeException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private TooLargeException() {
+      super(null, null);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+
+  /** Digests what is written to it, failing once more than the limit was written. */
+  private static final class HashingOutputStream extends OutputStream {
+    private final MessageDigest digest;
+    private final long limit;
+    private long size;
+
+    private HashingOutputStream(long limit) {
+      try {
+        this.digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+      this.limit = limit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (++size > limit) {
+        throw new TooLargeException();
+      }
+      digest.update((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      size += len;
+      if (size > limit) {
+        throw new TooLargeException();
+      }
+      digest.update(b, off, len);
+    }
+
+    private String digest() {
+      return HexFormat.of().formatHex(digest.digest());
+    }
+  }
+}
@@ -1,16 +1,20 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.converter;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ErrorCode;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
+import com.nha.abdm.fhir.mapper.rest.common.ids.IdGenerator;
 import com.nha.abdm.fhir.mapper.rest.dto.compositions.MakeDiagnosticComposition;
 import com.nha.abdm.fhir.mapper.rest.dto.resources.*;
 import com.nha.abdm.fhir.mapper.rest.exceptions.StreamUtils;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionStage;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionTimer;
 import com.nha.abdm.fhir.mapper.rest.requests.DiagnosticReportRequest;
 import java.text.ParseException;
 import java.util.*;
@@ -34,6 +38,8 @@ public class DiagnosticReportConverter {
   private final MakeDiagnosticLabResource makeDiagnosticLabResource;
   private final MakeEncounterResource makeEncounterResource;
   private final MakeDiagnosticComposition makeDiagnosticComposition;
+  private final IdGenerator idGenerator;
+  private final ConversionMetrics conversionMetrics;
 
   public DiagnosticReportConverter(
       MakeOrganisationResource makeOrganisationResource,
@@ -44,7 +50,9 @@ public class DiagnosticReportConverter {
       MakeObservationResource makeObservationResource,
       MakeDiagnosticLabResource makeDiagnosticLabResource,
       MakeEncounterResource makeEncounterResource,
-      MakeDiagnosticComposition makeDiagnosticComposition) {
+      MakeDiagnosticComposition makeDiagnosticComposition,
+      IdGenerator idGenerator,
+      ConversionMetrics conversionMetrics) {
     this.makeOrganisationResource = makeOrganisationResource;
     this.makeBundleMetaResource = makeBundleMetaResource;
     this.makePatientResource = makePatientResource;
@@ -54,41 +62,54 @@ public class DiagnosticReportConverter {
     this.makeDiagnosticLabResource = makeDiagnosticLabResource;
     this.makeEncounterResource = makeEncounterResource;
     this.makeDiagnosticComposition = makeDiagnosticComposition;
+    this.idGenerator = idGenerator;
+    this.conversionMetrics = conversionMetrics;
   }
 
   public BundleResponse convertToDiagnosticBundle(DiagnosticReportRequest diagnosticReportRequest)
       throws ParseException {
-    try {
+    try (ConversionTimer timer = conversionMetrics.start("DiagnosticReportRecord")) {
       if (diagnosticReportRequest == null) {
         return BundleResponse.builder()
             .error(ErrorResponse.builder().code("1001").message("Request is null").build())
             .build();
       }
 
+      ConversionContext context =
+          new ConversionContext(
+              diagnosticReportRequest.getVisitDate(),
+              idGenerator.forRecord(
+                  "DiagnosticReportRecord:" + diagnosticReportRequest.getCareContextReference()));
+
       // Initialize bundle entries
       List<Bundle.BundleEntryComponent> entries = new ArrayList<>();
 
       // Organization resource
       Organization organization =
-          makeOrganisationResource.getOrganization(diagnosticReportRequest.getOrganisation());
+          makeOrganisationResource.getOrganization(
+              context, diagnosticReportRequest.getOrganisation());
 
       // Patient resource
-      Patient patient = makePatientResource.getPatient(diagnosticReportRequest.getPatient());
+      Patient patient =
+          makePatientResource.getPatient(context, diagnosticReportRequest.getPatient());
 
       // Practitioners
       List<Practitioner> practitionerList =
           Optional.ofNullable(diagnosticReportRequest.getPractitioners())
               .orElse(Collections.emptyList())
               .stream()
-              .map(StreamUtils.wrapException(makePractitionerResource::getPractitioner))
+              .map(
+                  StreamUtils.wrapException(
+                      practitioner ->
+                          makePractitionerResource.getPractitioner(context, practitioner)))
               .toList();
+      context.setPatient(patient);
+      context.setPractitioners(practitionerList);
 
       // Encounter resource
       Encounter encounter =
-          makeEncounterResource.getEncounter(
-              patient,
-              diagnosticReportRequest.getEncounter(),
-              diagnosticReportRequest.getVisitDate());
+          makeEncounterResource.getEncounter(context, diagnosticReportRequest.getEncounter());
+      timer.lap(ConversionStage.PARTICIPANTS);
 
       // Diagnostic Reports and Observations
       List<DiagnosticReport> diagnosticReportList = new ArrayList<>();
@@ -105,7 +126,7 @@ public class DiagnosticReportConverter {
                             StreamUtils.wrapException(
                                 observationResource -> {
                                   return makeObservationResource.getObservation(
-                                      patient, practitionerList, observationResource);
+                                      context, observationResource);
                                 }))
                         .peek(diagnosticObservationList::add)
                         .toList();
@@ -113,15 +134,12 @@ public class DiagnosticReportConverter {
                 try {
                   diagnosticReportList.add(
                       makeDiagnosticLabResource.getDiagnosticReport(
-                          patient,
-                          practitionerList,
-                          observationList,
-                          encounter,
-                          diagnosticResource));
+                          context, observationList, encounter, diagnosticResource));
                 } catch (ParseException e) {
                   throw new RuntimeException(e);
                 }
               });
+      timer.lap(ConversionStage.RESOURCES);
 
       // Document References
       List<DocumentReference> documentReferenceList =
@@ -132,31 +150,27 @@ public class DiagnosticReportConverter {
                   StreamUtils.wrapException(
                       documentResource -> {
                         return makeDocumentResource.getDocument(
-                            patient,
+                            context,
                             organization,
                             documentResource,
                             BundleCompositionIdentifier.DIAGNOSTIC_STUDIES_REPORT_CODE,
                             documentResource.getType());
                       }))
               .toList();
+      timer.lap(ConversionStage.DOCUMENTS);
 
       // Composition resource
       Composition composition =
           makeDiagnosticComposition.makeCompositionResource(
-              patient,
-              diagnosticReportRequest.getVisitDate(),
-              practitionerList,
-              organization,
-              encounter,
-              diagnosticReportList,
-              documentReferenceList);
+              context, organization, encounter, diagnosticReportList, documentReferenceList);
+      timer.lap(ConversionStage.COMPOSITION);
 
       // Build the bundle
       Bundle bundle = new Bundle();
-      bundle.setId(UUID.randomUUID().toString());
+      bundle.setId(context.newId());
       bundle.setType(Bundle.BundleType.DOCUMENT);
-      bundle.setTimestampElement(Utils.getCurrentTimeStamp());
-      bundle.setMeta(makeBundleMetaResource.getMeta());
+      bundle.setTimestampElement(context.getTimestamp());
+      bundle.setMeta(makeBundleMetaResource.getMeta(context));
       bundle.setIdentifier(
           new Identifier()
               .setSystem(BundleUrlIdentifier.WRAPPER_URL)
@@ -181,7 +195,8 @@ public class DiagnosticReportConverter {
 
       bundle.setEntry(entries);
 
-      return BundleResponse.builder().bundle(bundle).build();
+      timer.lap(ConversionStage.ASSEMBLY);
+      return BundleResponse.builder().bundle(timer.succeeded(bundle)).build();
 
     } catch (Exception e) {
       if (e instanceof InvalidDataAccessResourceUsageException) {
@@ -1,21 +1,26 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.converter;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ErrorCode;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.DocumentResource;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
+import com.nha.abdm.fhir.mapper.rest.common.ids.IdGenerator;
 import com.nha.abdm.fhir.mapper.rest.dto.compositions.MakeDischargeComposition;
 import com.nha.abdm.fhir.mapper.rest.dto.resources.*;
 import com.nha.abdm.fhir.mapper.rest.exceptions.StreamUtils;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionStage;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionTimer;
 import com.nha.abdm.fhir.mapper.rest.requests.DischargeSummaryRequest;
 import com.nha.abdm.fhir.mapper.rest.requests.helpers.*;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.hl7.fhir.r4.model.*;
 import org.slf4j.Logger;
@@ -43,6 +48,9 @@ public class DischargeSummaryConverter {
   private final MakeProcedureResource makeProcedureResource;
   private final MakeDischargeComposition makeDischargeComposition;
   private final MakeCarePlanResource makeCarePlanResource;
+  private final IdGenerator idGenerator;
+  private final ConversionMetrics conversionMetrics;
+  private final SectionExecutor sectionExecutor;
 
   public DischargeSummaryConverter(
       MakeOrganisationResource makeOrganisationResource,
@@ -60,7 +68,10 @@ public class DischargeSummaryConverter {
       MakeDiagnosticLabResource makeDiagnosticLabResource,
       MakeProcedureResource makeProcedureResource,
       MakeDischargeComposition makeDischargeComposition,
-      MakeCarePlanResource makeCarePlanResource) {
+      MakeCarePlanResource makeCarePlanResource,
+      IdGenerator idGenerator,
+      ConversionMetrics conversionMetrics,
+      SectionExecutor sectionExecutor) {
     this.makeOrganisationResource = makeOrganisationResource;
     this.makeBundleMetaResource = makeBundleMetaResource;
     this.makePatientResource = makePatientResource;
@@ -76,147 +87,157 @@ public class DischargeSummaryConverter {
     this.makeProcedureResource = makeProcedureResource;
     this.makeDischargeComposition = makeDischargeComposition;
     this.makeCarePlanResource = makeCarePlanResource;
+    this.idGenerator = idGenerator;
+    this.conversionMetrics = conversionMetrics;
+    this.sectionExecutor = sectionExecutor;
   }
 
   public BundleResponse convertToDischargeSummary(DischargeSummaryRequest dischargeSummaryRequest)
       throws ParseException {
-    try {
+    try (ConversionTimer timer = conversionMetrics.start("DischargeSummaryRecord")) {
+      String recordKey =
+          "DischargeSummaryRecord:" + dischargeSummaryRequest.getCareContextReference();
+      ConversionContext context =
+          new ConversionContext(
+              dischargeSummaryRequest.getAuthoredOn(), idGenerator.forRecord(recordKey));
 
       List<Bundle.BundleEntryComponent> entries = new ArrayList<>();
 
       Organization organization =
-          makeOrganisationResource.getOrganization(dischargeSummaryRequest.getOrganisation());
+          makeOrganisationResource.getOrganization(
+              context, dischargeSummaryRequest.getOrganisation());
 
-      Patient patient = makePatientResource.getPatient(dischargeSummaryRequest.getPatient());
+      Patient patient =
+          makePatientResource.getPatient(context, dischargeSummaryRequest.getPatient());
 
       List<Practitioner> practitionerList =
           Optional.ofNullable(dischargeSummaryRequest.getPractitioners())
               .orElse(Collections.emptyList())
               .stream()
-              .map(StreamUtils.wrapException(makePractitionerResource::getPractitioner))
+              .map(
+                  StreamUtils.wrapException(
+                      practitioner ->
+                          makePractitionerResource.getPractitioner(context, practitioner)))
               .collect(Collectors.toList());
+      context.setPatient(patient);
+      context.setPractitioners(practitionerList);
 
       Encounter encounter =
           makeEncounterResource.getEncounter(
-              patient,
+              context,
               dischargeSummaryRequest.getEncounter() != null
                   ? dischargeSummaryRequest.getEncounter()
-                  : null,
-              dischargeSummaryRequest.getAuthoredOn());
-      List<Condition> chiefComplaintList =
-          dischargeSummaryRequest.getChiefComplaints() != null
-              ? makeCheifComplaintsList(dischargeSummaryRequest, patient)
-              : new ArrayList<>();
-      List<Observation> physicalObservationList =
-          dischargeSummaryRequest.getPhysicalExaminations() != null
-              ? makePhysicalObservations(dischargeSummaryRequest, patient, practitionerList)
-              : new ArrayList<>();
-      List<AllergyIntolerance> allergieList =
-          dischargeSummaryRequest.getAllergies() != null
-              ? makeAllergiesList(patient, practitionerList, dischargeSummaryRequest)
-              : new ArrayList<>();
-      List<Condition> medicalHistoryList =
-          dischargeSummaryRequest.getMedicalHistories() != null
-              ? makeMedicalHistoryList(dischargeSummaryRequest, patient)
-              : new ArrayList<>();
-      List<FamilyMemberHistory> familyMemberHistoryList =
-          dischargeSummaryRequest.getFamilyHistories() != null
-              ? makeFamilyMemberHistory(patient, dischargeSummaryRequest)
-              : new ArrayList<>();
-      List<MedicationRequest> medicationList = new ArrayList<>();
-      List<Condition> medicationConditionList = new ArrayList<>();
-      for (PrescriptionResource prescriptionResource : dischargeSummaryRequest.getMedications()) {
-        Condition medicationCondition =
-            prescriptionResource.getReason() != null
-                ? makeConditionResource.getCondition(
-                    prescriptionResource.getReason(),
-                    patient,
-                    dischargeSummaryRequest.getAuthoredOn(),
-                    null)
-                : null;
-        medicationList.add(
-            makeMedicationRequestResource.getMedicationResource(
-                dischargeSummaryRequest.getAuthoredOn(),
-                prescriptionResource,
-                medicationCondition,
-                organization,
-                practitionerList,
-                patient));
-        if (medicationCondition != null) {
-          medicationConditionList.add(medicationCondition);
-        }
-      }
+                  : null);
+      timer.lap(ConversionStage.PARTICIPANTS);
+      SectionExecutor.Sections sections = sectionExecutor.open(context, recordKey);
+      CompletableFuture<List<Condition>> chiefComplaints =
+          sections.submit(
+              "chiefComplaints",
+              section ->
+                  dischargeSummaryRequest.getChiefComplaints() != null
+                      ? makeCheifComplaintsList(dischargeSummaryRequest, section)
+                      : new ArrayList<>());
+      CompletableFuture<List<Observation>> physicalObservations =
+          sections.submit(
+              "physicalExaminations",
+              section ->
+                  dischargeSummaryRequest.getPhysicalExaminations() != null
+                      ? makePhysicalObservations(dischargeSummaryRequest, section)
+                      : new ArrayList<>());
+      CompletableFuture<List<AllergyIntolerance>> allergies =
+          sections.submit(
+              "allergies",
+              section ->
+                  dischargeSummaryRequest.getAllergies() != null
+                      ? makeAllergiesList(section, dischargeSummaryRequest)
+                      : new ArrayList<>());
+      CompletableFuture<List<Condition>> medicalHistories =
+          sections.submit(
+              "medicalHistories",
+              section ->
+                  dischargeSummaryRequest.getMedicalHistories() != null
+                      ? makeMedicalHistoryList(dischargeSummaryRequest, section)
+                      : new ArrayList<>());
+      CompletableFuture<List<FamilyMemberHistory>> familyHistories =
+          sections.submit(
+              "familyHistories",
+              section ->
+                  dischargeSummaryRequest.getFamilyHistories() != null
+                      ? makeFamilyMemberHistory(section, dischargeSummaryRequest)
+                      : new ArrayList<>());
+      CompletableFuture<Medications> medications =
+          sections.submit(
+              "medications",
+              section -> makeMedications(section, organization, dischargeSummaryRequest));
       // Diagnostic Reports and Observations
+      List<CompletableFuture<Diagnostic>> diagnostics = new ArrayList<>();
+      for (DiagnosticResource diagnosticResource :
+          Optional.ofNullable(dischargeSummaryRequest.getDiagnostics())
+              .orElse(Collections.emptyList())) {
+        diagnostics.add(
+            sections.submit(
+                "diagnostics/" + diagnostics.size(),
+                section -> makeDiagnostic(section, encounter, diagnosticResource)));
+      }
+      CompletableFuture<List<Procedure>> procedures =
+          sections.submit(
+              "procedures",
+              section ->
+                  dischargeSummaryRequest.getProcedures() != null
+                      ? makeProcedureList(dischargeSummaryRequest, section)
+                      : new ArrayList<>());
+      Practitioner carePlanPractitioner =
+          practitionerList.isEmpty()
+              ? null
+              : practitionerList.get(0); // Fix: change 'prac' to proper practitioner
+      CompletableFuture<CarePlan> carePlanSection =
+          sections.submit(
+              "carePlan",
+              section ->
+                  dischargeSummaryRequest.getCarePlan() != null
+                      ? makeCarePlanResource.getCarePlan(
+                          dischargeSummaryRequest.getCarePlan(), section, carePlanPractitioner)
+                      : null);
+      sections.await();
+      List<Condition> chiefComplaintList = chiefComplaints.join();
+      List<Observation> physicalObservationList = physicalObservations.join();
+      List<AllergyIntolerance> allergieList = allergies.join();
+      List<Condition> medicalHistoryList = medicalHistories.join();
+      List<FamilyMemberHistory> familyMemberHistoryList = familyHistories.join();
+      List<MedicationRequest> medicationList = medications.join().requests();
+      List<Condition> medicationConditionList = medications.join().conditions();
       List<DiagnosticReport> diagnosticReportList = new ArrayList<>();
       List<Observation> diagnosticObservationList = new ArrayList<>();
-      Optional.ofNullable(dischargeSummaryRequest.getDiagnostics())
-          .orElse(Collections.emptyList())
-          .forEach(
-              diagnosticResource -> {
-                List<Observation> observationList =
-                    Optional.ofNullable(diagnosticResource.getResult())
-                        .orElse(Collections.emptyList())
-                        .stream()
-                        .map(
-                            StreamUtils.wrapException(
-                                observationResource -> {
-                                  return makeObservationResource.getObservation(
-                                      patient, practitionerList, observationResource);
-                                }))
-                        .peek(diagnosticObservationList::add)
-                        .toList();
-
-                try {
-                  diagnosticReportList.add(
-                      makeDiagnosticLabResource.getDiagnosticReport(
-                          patient,
-                          practitionerList,
-                          observationList,
-                          encounter,
-                          diagnosticResource));
-                } catch (ParseException e) {
-                  throw new RuntimeException(e);
-                }
-              });
-
-      List<Procedure> procedureList =
-          dischargeSummaryRequest.getProcedures() != null
-              ? makeProcedureList(dischargeSummaryRequest, patient)
-              : new ArrayList<>();
-      List<DocumentReference> documentReferenceList =
-          Optional.ofNullable(dischargeSummaryRequest.getDocuments())
-              .orElse(Collections.emptyList())
-              .stream()
-              .map(
-                  StreamUtils.wrapException(
-                      documentResource ->
-                          makeDocumentReference(patient, organization, documentResource)))
-              .toList();
-
-      CarePlan carePlan = null;
+      for (CompletableFuture<Diagnostic> diagnostic : diagnostics) {
+        diagnosticReportList.add(diagnostic.join().report());
+        diagnosticObservationList.addAll(diagnostic.join().observations());
+      }
+      List<Procedure> procedureList = procedures.join();
+      CarePlan carePlan = carePlanSection.join();
       Appointment appointment = null;
-      if (dischargeSummaryRequest.getCarePlan() != null) {
-        carePlan =
-            makeCarePlanResource.getCarePlan(
-                dischargeSummaryRequest.getCarePlan(),
-                patient,
-                practitionerList.isEmpty()
-                    ? null
-                    : practitionerList.get(0) // Fix: change 'prac' to proper practitioner
-                );
-
-        // Extract appointment from CarePlan if it exists
-        if (carePlan.getUserData("appointment") instanceof Appointment) {
-          appointment = (Appointment) carePlan.getUserData("appointment");
-        }
+      // Extract appointment from CarePlan if it exists
+      if (carePlan != null && carePlan.getUserData("appointment") instanceof Appointment) {
+        appointment = (Appointment) carePlan.getUserData("appointment");
+      }
+      timer.lap(ConversionStage.RESOURCES);
+      List<CompletableFuture<DocumentReference>> documentReferences = new ArrayList<>();
+      for (DocumentResource documentResource :
+          Optional.ofNullable(dischargeSummaryRequest.getDocuments())
+              .orElse(Collections.emptyList())) {
+        documentReferences.add(
+            sections.submit(
+                "documents/" + documentReferences.size(),
+                section -> makeDocumentReference(section, organization, documentResource)));
       }
+      sections.await();
+      List<DocumentReference> documentReferenceList =
+          documentReferences.stream().map(CompletableFuture::join).toList();
+      timer.lap(ConversionStage.DOCUMENTS);
 
       Composition composition =
           makeDischargeComposition.makeDischargeCompositionResource(
-              patient,
-              dischargeSummaryRequest.getAuthoredOn(),
+              context,
               encounter,
-              practitionerList,
               organization,
               chiefComplaintList,
               physicalObservationList,
@@ -230,12 +251,13 @@ public class DischargeSummaryConverter {
               documentReferenceList,
               BundleCompositionIdentifier.DISCHARGE_SUMMARY_CODE,
               BundleCompositionIdentifier.DISCHARGE_SUMMARY);
+      timer.lap(ConversionStage.COMPOSITION);
 
       Bundle bundle = new Bundle();
-      bundle.setId(UUID.randomUUID().toString());
+      bundle.setId(context.newId());
       bundle.setType(Bundle.BundleType.DOCUMENT);
-      bundle.setTimestampElement(Utils.getCurrentTimeStamp());
-      bundle.setMeta(makeBundleMetaResource.getMeta());
+      bundle.setTimestampElement(context.getTimestamp());
+      bundle.setMeta(makeBundleMetaResource.getMeta(context));
       bundle.setIdentifier(
           new Identifier()
               .setSystem(BundleUrlIdentifier.WRAPPER_URL)
@@ -353,7 +375,8 @@ public class DischargeSummaryConverter {
                 .setResource(documentReference));
       }
       bundle.setEntry(entries);
-      return BundleResponse.builder().bundle(bundle).build();
+      timer.lap(ConversionStage.ASSEMBLY);
+      return BundleResponse.builder().bundle(timer.succeeded(bundle)).build();
     } catch (Exception e) {
       if (e instanceof InvalidDataAccessResourceUsageException) {
         log.error(e.getMessage());
@@ -370,11 +393,62 @@ public class DischargeSummaryConverter {
     }
   }
 
+  private Medications makeMedications(
+      ConversionContext context,
+      Organization organization,
+      DischargeSummaryRequest dischargeSummaryRequest)
+      throws ParseException {
+    List<MedicationRequest> medicationList = new ArrayList<>();
+    List<Condition> medicationConditionList = new ArrayList<>();
+    for (PrescriptionResource prescriptionResource : dischargeSummaryRequest.getMedications()) {
+      Condition medicationCondition =
+          prescriptionResource.getReason() != null
+              ? makeConditionResource.getCondition(
+                  prescriptionResource.getReason(),
+                  context,
+                  dischargeSummaryRequest.getAuthoredOn(),
+                  null)
+              : null;
+      medicationList.add(
+          makeMedicationRequestResource.getMedicationResource(
+              dischargeSummaryRequest.getAuthoredOn(),
+              prescriptionResource,
+              medicationCondition,
+              organization,
+              context));
+      if (medicationCondition != null) {
+        medicationConditionList.add(medicationCondition);
+      }
+    }
+    return new Medications(medicationList, medicationConditionList);
+  }
+
+  private Diagnostic makeDiagnostic(
+      ConversionContext context, Encounter encounter, DiagnosticResource diagnosticResource) {
+    List<Observation> observationList =
+        Optional.ofNullable(diagnosticResource.getResult()).orElse(Collections.emptyList()).stream()
+            .map(
+                StreamUtils.wrapException(
+                    observationResource -> {
+                      return makeObservationResource.getObservation(context, observationResource);
+                    }))
+            .toList();
+
+    try {
+      return new Diagnostic(
+          makeDiagnosticLabResource.getDiagnosticReport(
+              context, observationList, encounter, diagnosticResource),
+          observationList);
+    } catch (ParseException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   private DocumentReference makeDocumentReference(
-      Patient patient, Organization organization, DocumentResource documentResource)
+      ConversionContext context, Organization organization, DocumentResource documentResource)
       throws ParseException {
     return makeDocumentResource.getDocument(
-        patient,
+        context,
         organization,
         documentResource,
         BundleCompositionIdentifier.DISCHARGE_SUMMARY_CODE,
@@ -382,7 +456,8 @@ public class DischargeSummaryConverter {
   }
 
   private List<Procedure> makeProcedureList(
-      DischargeSummaryRequest dischargeSummaryRequest, Patient patient) throws ParseException {
+      DischargeSummaryRequest dischargeSummaryRequest, ConversionContext context)
+      throws ParseException {
 
     return Optional.ofNullable(dischargeSummaryRequest.getProcedures())
         .orElse(Collections.emptyList())
@@ -390,24 +465,26 @@ public class DischargeSummaryConverter {
         .map(
             StreamUtils.wrapException(
                 procedureResource ->
-                    makeProcedureResource.getProcedure(patient, procedureResource)))
+                    makeProcedureResource.getProcedure(context, procedureResource)))
         .toList();
   }
 
   private List<FamilyMemberHistory> makeFamilyMemberHistory(
-      Patient patient, DischargeSummaryRequest dischargeSummaryRequest) throws ParseException {
+      ConversionContext context, DischargeSummaryRequest dischargeSummaryRequest)
+      throws ParseException {
     return Optional.ofNullable(dischargeSummaryRequest.getFamilyHistories())
         .orElse(Collections.emptyList())
         .stream()
         .map(
             StreamUtils.wrapException(
                 familyObservationResource ->
-                    makeFamilyMemberResource.getFamilyHistory(patient, familyObservationResource)))
+                    makeFamilyMemberResource.getFamilyHistory(context, familyObservationResource)))
         .toList();
   }
 
   private List<Condition> makeMedicalHistoryList(
-      DischargeSummaryRequest dischargeSummaryRequest, Patient patient) throws ParseException {
+      DischargeSummaryRequest dischargeSummaryRequest, ConversionContext context)
+      throws ParseException {
     return Optional.ofNullable(dischargeSummaryRequest.getMedicalHistories())
         .orElse(Collections.emptyList())
         .stream()
@@ -416,16 +493,14 @@ public class DischargeSummaryConverter {
                 chiefComplaintResource ->
                     makeConditionResource.getCondition(
                         chiefComplaintResource.getComplaint(),
-                        patient,
+                        context,
                         chiefComplaintResource.getRecordedDate(),
                         chiefComplaintResource.getDateRange())))
         .toList();
   }
 
   private List<AllergyIntolerance> makeAllergiesList(
-      Patient patient,
-      List<Practitioner> practitionerList,
-      DischargeSummaryRequest dischargeSummaryRequest)
+      ConversionContext context, DischargeSummaryRequest dischargeSummaryRequest)
       throws ParseException {
     if (dischargeSummaryRequest.getAllergies() == null) {
       return Collections.emptyList();
@@ -435,8 +510,7 @@ public class DischargeSummaryConverter {
             StreamUtils.wrapException(
                 allergy ->
                     makeAllergyToleranceResource.getAllergy(
-                        patient,
-                        practitionerList,
+                        context,
                         allergy.getName(),
                         dischargeSummaryRequest.getAuthoredOn(),
                         allergy.getVerificationStatus())))
@@ -444,9 +518,7 @@ public class DischargeSummaryConverter {
   }
 
   private List<Observation> makePhysicalObservations(
-      DischargeSummaryRequest dischargeSummaryRequest,
-      Patient patient,
-      List<Practitioner> practitionerList)
+      DischargeSummaryRequest dischargeSummaryRequest, ConversionContext context)
       throws ParseException {
     return Optional.ofNullable(dischargeSummaryRequest.getPhysicalExaminations())
         .orElse(Collections.emptyList())
@@ -454,13 +526,13 @@ public class DischargeSummaryConverter {
         .map(
             StreamUtils.wrapException(
                 observationResource ->
-                    makeObservationResource.getObservation(
-                        patient, practitionerList, observationResource)))
+                    makeObservationResource.getObservation(context, observationResource)))
         .toList();
   }
 
   private List<Condition> makeCheifComplaintsList(
-      DischargeSummaryRequest dischargeSummaryRequest, Patient patient) throws ParseException {
+      DischargeSummaryRequest dischargeSummaryRequest, ConversionContext context)
+      throws ParseException {
     return Optional.ofNullable(dischargeSummaryRequest.getChiefComplaints())
         .orElse(Collections.emptyList())
         .stream()
@@ -469,9 +541,13 @@ public class DischargeSummaryConverter {
                 chiefComplaint ->
                     makeConditionResource.getCondition(
                         chiefComplaint.getComplaint(),
-                        patient,
+                        context,
                         chiefComplaint.getRecordedDate(),
                         chiefComplaint.getDateRange())))
         .toList();
   }
+
+  private record Medications(List<MedicationRequest> requests, List<Condition> conditions) {}
+
+  private record Diagnostic(DiagnosticReport report, List<Observation> observations) {}
 }
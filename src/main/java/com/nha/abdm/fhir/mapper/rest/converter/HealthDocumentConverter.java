@@ -1,16 +1,20 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.converter;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ErrorCode;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
+import com.nha.abdm.fhir.mapper.rest.common.ids.IdGenerator;
 import com.nha.abdm.fhir.mapper.rest.dto.compositions.MakeHealthDocumentComposition;
 import com.nha.abdm.fhir.mapper.rest.dto.resources.*;
 import com.nha.abdm.fhir.mapper.rest.exceptions.StreamUtils;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionStage;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionTimer;
 import com.nha.abdm.fhir.mapper.rest.requests.HealthDocumentRecord;
 import java.text.ParseException;
 import java.util.*;
@@ -32,6 +36,8 @@ public class HealthDocumentConverter {
   private final MakeDocumentResource makeDocumentResource;
   private final MakeEncounterResource makeEncounterResource;
   private final MakeHealthDocumentComposition makeHealthDocumentComposition;
+  private final IdGenerator idGenerator;
+  private final ConversionMetrics conversionMetrics;
 
   public HealthDocumentConverter(
       MakeOrganisationResource makeOrganisationResource,
@@ -40,7 +46,9 @@ public class HealthDocumentConverter {
       MakePractitionerResource makePractitionerResource,
       MakeDocumentResource makeDocumentResource,
       MakeEncounterResource makeEncounterResource,
-      MakeHealthDocumentComposition makeHealthDocumentComposition) {
+      MakeHealthDocumentComposition makeHealthDocumentComposition,
+      IdGenerator idGenerator,
+      ConversionMetrics conversionMetrics) {
     this.makeOrganisationResource = makeOrganisationResource;
     this.makeBundleMetaResource = makeBundleMetaResource;
     this.makePatientResource = makePatientResource;
@@ -48,22 +56,36 @@ public class HealthDocumentConverter {
     this.makeDocumentResource = makeDocumentResource;
     this.makeEncounterResource = makeEncounterResource;
     this.makeHealthDocumentComposition = makeHealthDocumentComposition;
+    this.idGenerator = idGenerator;
+    this.conversionMetrics = conversionMetrics;
   }
 
   public BundleResponse convertToHealthDocumentBundle(HealthDocumentRecord healthDocumentRecord)
       throws ParseException {
-    try {
+    try (ConversionTimer timer = conversionMetrics.start("HealthDocumentRecord")) {
+      ConversionContext context =
+          new ConversionContext(
+              healthDocumentRecord.getAuthoredOn(),
+              idGenerator.forRecord(
+                  "HealthDocumentRecord:" + healthDocumentRecord.getCareContextReference()));
       Organization organization =
           Objects.nonNull(healthDocumentRecord.getOrganisation())
-              ? makeOrganisationResource.getOrganization(healthDocumentRecord.getOrganisation())
+              ? makeOrganisationResource.getOrganization(
+                  context, healthDocumentRecord.getOrganisation())
               : null;
-      Patient patient = makePatientResource.getPatient(healthDocumentRecord.getPatient());
+      Patient patient = makePatientResource.getPatient(context, healthDocumentRecord.getPatient());
       List<Practitioner> practitionerList =
           Optional.ofNullable(healthDocumentRecord.getPractitioners())
               .orElse(Collections.emptyList())
               .stream()
-              .map(StreamUtils.wrapException(makePractitionerResource::getPractitioner))
+              .map(
+                  StreamUtils.wrapException(
+                      practitioner ->
+                          makePractitionerResource.getPractitioner(context, practitioner)))
               .toList();
+      context.setPatient(patient);
+      context.setPractitioners(practitionerList);
+      timer.lap(ConversionStage.PARTICIPANTS);
 
       List<DocumentReference> documentReferenceList =
           Optional.ofNullable(healthDocumentRecord.getDocuments())
@@ -73,33 +95,30 @@ public class HealthDocumentConverter {
                   StreamUtils.wrapException(
                       documentResource ->
                           makeDocumentResource.getDocument(
-                              patient,
+                              context,
                               organization,
                               documentResource,
                               BundleCompositionIdentifier.HEALTH_DOCUMENT_CODE,
                               BundleCompositionIdentifier.HEALTH_DOCUMENT)))
               .toList();
+      timer.lap(ConversionStage.DOCUMENTS);
 
       Encounter encounter =
           makeEncounterResource.getEncounter(
-              patient,
+              context,
               healthDocumentRecord.getEncounter() != null
                   ? healthDocumentRecord.getEncounter()
-                  : null,
-              healthDocumentRecord.getAuthoredOn());
+                  : null);
+      timer.lap(ConversionStage.PARTICIPANTS);
       Composition composition =
           makeHealthDocumentComposition.makeCompositionResource(
-              patient,
-              healthDocumentRecord.getAuthoredOn(),
-              practitionerList,
-              organization,
-              encounter,
-              documentReferenceList);
+              context, organization, encounter, documentReferenceList);
+      timer.lap(ConversionStage.COMPOSITION);
       Bundle bundle = new Bundle();
-      bundle.setId(UUID.randomUUID().toString());
+      bundle.setId(context.newId());
       bundle.setType(Bundle.BundleType.DOCUMENT);
-      bundle.setTimestampElement(Utils.getCurrentTimeStamp());
-      bundle.setMeta(makeBundleMetaResource.getMeta());
+      bundle.setTimestampElement(context.getTimestamp());
+      bundle.setMeta(makeBundleMetaResource.getMeta(context));
       bundle.setIdentifier(
           new Identifier()
               .setSystem(BundleUrlIdentifier.WRAPPER_URL)
@@ -139,7 +158,8 @@ public class HealthDocumentConverter {
                 .setResource(documentReference));
       }
       bundle.setEntry(entries);
-      return BundleResponse.builder().bundle(bundle).build();
+      timer.lap(ConversionStage.ASSEMBLY);
+      return BundleResponse.builder().bundle(timer.succeeded(bundle)).build();
     } catch (Exception e) {
       if (e instanceof InvalidDataAccessResourceUsageException) {
         log.error(e.getMessage());
@@ -1,17 +1,21 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.converter;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ErrorCode;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.OrganisationResource;
+import com.nha.abdm.fhir.mapper.rest.common.ids.IdGenerator;
 import com.nha.abdm.fhir.mapper.rest.dto.compositions.MakeImmunizationComposition;
 import com.nha.abdm.fhir.mapper.rest.dto.resources.*;
 import com.nha.abdm.fhir.mapper.rest.exceptions.StreamUtils;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionStage;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionTimer;
 import com.nha.abdm.fhir.mapper.rest.requests.ImmunizationRequest;
 import java.text.ParseException;
 import java.util.*;
@@ -32,6 +36,8 @@ public class ImmunizationConverter {
   private final MakeBundleMetaResource makeBundleMetaResource;
   private final MakeEncounterResource makeEncounterResource;
   private final MakeImmunizationComposition makeImmunizationComposition;
+  private final IdGenerator idGenerator;
+  private final ConversionMetrics conversionMetrics;
 
   public ImmunizationConverter(
       MakeDocumentResource makeDocumentReference,
@@ -41,7 +47,9 @@ public class ImmunizationConverter {
       MakeImmunizationResource makeImmunizationResource,
       MakeBundleMetaResource makeBundleMetaResource,
       MakeEncounterResource makeEncounterResource,
-      MakeImmunizationComposition makeImmunizationComposition) {
+      MakeImmunizationComposition makeImmunizationComposition,
+      IdGenerator idGenerator,
+      ConversionMetrics conversionMetrics) {
     this.makeDocumentReference = makeDocumentReference;
     this.makePatientResource = makePatientResource;
     this.makePractitionerResource = makePractitionerResource;
@@ -50,29 +58,41 @@ public class ImmunizationConverter {
     this.makeBundleMetaResource = makeBundleMetaResource;
     this.makeEncounterResource = makeEncounterResource;
     this.makeImmunizationComposition = makeImmunizationComposition;
+    this.idGenerator = idGenerator;
+    this.conversionMetrics = conversionMetrics;
   }
 
   public BundleResponse makeImmunizationBundle(ImmunizationRequest immunizationRequest)
       throws ParseException {
-    try {
+    try (ConversionTimer timer = conversionMetrics.start("ImmunizationRecord")) {
+      ConversionContext context =
+          new ConversionContext(
+              immunizationRequest.getAuthoredOn(),
+              idGenerator.forRecord(
+                  "ImmunizationRecord:" + immunizationRequest.getCareContextReference()));
       Bundle bundle = new Bundle();
-      Patient patient = makePatientResource.getPatient(immunizationRequest.getPatient());
+      Patient patient = makePatientResource.getPatient(context, immunizationRequest.getPatient());
       List<Practitioner> practitionerList =
           Optional.ofNullable(immunizationRequest.getPractitioners())
               .orElse(Collections.emptyList())
               .stream()
-              .map(StreamUtils.wrapException(makePractitionerResource::getPractitioner))
+              .map(
+                  StreamUtils.wrapException(
+                      practitioner ->
+                          makePractitionerResource.getPractitioner(context, practitioner)))
               .toList();
+      context.setPatient(patient);
+      context.setPractitioners(practitionerList);
 
       Organization organization =
-          makeOrganisationResource.getOrganization(immunizationRequest.getOrganisation());
+          makeOrganisationResource.getOrganization(context, immunizationRequest.getOrganisation());
       Encounter encounter =
           makeEncounterResource.getEncounter(
-              patient,
+              context,
               immunizationRequest.getEncounter() != null
                   ? immunizationRequest.getEncounter()
-                  : null,
-              immunizationRequest.getAuthoredOn());
+                  : null);
+      timer.lap(ConversionStage.PARTICIPANTS);
       List<Organization> manufactureList = new ArrayList<>();
       // In makeImmunizationBundle method, around line 75-85
       List<Immunization> immunizationList =
@@ -89,6 +109,7 @@ public class ImmunizationConverter {
                             && !immunizationResource.getManufacturer().isEmpty()) {
                           manufacturer =
                               makeOrganisationResource.getOrganization(
+                                  context,
                                   OrganisationResource.builder()
                                       .facilityId(immunizationResource.getManufacturer())
                                       .facilityName(immunizationResource.getManufacturer())
@@ -99,9 +120,10 @@ public class ImmunizationConverter {
                           }
                         }
                         return makeImmunizationResource.getImmunization(
-                            patient, practitionerList, manufacturer, immunizationResource);
+                            context, manufacturer, immunizationResource);
                       }))
               .toList();
+      timer.lap(ConversionStage.RESOURCES);
 
       List<DocumentReference> documentList =
           Optional.ofNullable(immunizationRequest.getDocuments())
@@ -111,27 +133,23 @@ public class ImmunizationConverter {
                   StreamUtils.wrapException(
                       documentResource ->
                           makeDocumentReference.getDocument(
-                              patient,
+                              context,
                               organization,
                               documentResource,
                               BundleCompositionIdentifier.IMMUNIZATION_RECORD_CODE,
                               BundleCompositionIdentifier.IMMUNIZATION_RECORD)))
               .toList();
+      timer.lap(ConversionStage.DOCUMENTS);
 
       Composition composition =
           makeImmunizationComposition.makeCompositionResource(
-              patient,
-              practitionerList,
-              organization,
-              immunizationRequest.getAuthoredOn(),
-              immunizationList,
-              documentList,
-              encounter);
+              context, organization, immunizationList, documentList, encounter);
+      timer.lap(ConversionStage.COMPOSITION);
 
-      bundle.setId(UUID.randomUUID().toString());
+      bundle.setId(context.newId());
       bundle.setType(Bundle.BundleType.DOCUMENT);
-      bundle.setTimestampElement(Utils.getCurrentTimeStamp());
-      bundle.setMeta(makeBundleMetaResource.getMeta());
+      bundle.setTimestampElement(context.getTimestamp());
+      bundle.setMeta(makeBundleMetaResource.getMeta(context));
       List<Bundle.BundleEntryComponent> entries = new ArrayList<>();
       bundle.setIdentifier(
           new Identifier()
@@ -183,7 +201,8 @@ public class ImmunizationConverter {
                 .setResource(documentReference));
       }
       bundle.setEntry(entries);
-      return BundleResponse.builder().bundle(bundle).build();
+      timer.lap(ConversionStage.ASSEMBLY);
+      return BundleResponse.builder().bundle(timer.succeeded(bundle)).build();
     } catch (Exception e) {
       if (e instanceof InvalidDataAccessResourceUsageException) {
         log.error(e.getMessage());
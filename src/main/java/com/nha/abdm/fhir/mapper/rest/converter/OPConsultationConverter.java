@@ -7,15 +7,21 @@ import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ErrorCode;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.DocumentResource;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
+import com.nha.abdm.fhir.mapper.rest.common.ids.IdGenerator;
 import com.nha.abdm.fhir.mapper.rest.dto.compositions.MakeOpComposition;
 import com.nha.abdm.fhir.mapper.rest.dto.resources.*;
 import com.nha.abdm.fhir.mapper.rest.exceptions.StreamUtils;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionStage;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionTimer;
 import com.nha.abdm.fhir.mapper.rest.requests.OPConsultationRequest;
 import com.nha.abdm.fhir.mapper.rest.requests.helpers.*;
 import java.text.ParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import org.hl7.fhir.r4.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +47,9 @@ public class OPConsultationConverter {
   private final MakeMedicationRequestResource makeMedicationRequestResource;
   private final MakeProcedureResource makeProcedureResource;
   private final MakeOpComposition makeOpComposition;
+  private final IdGenerator idGenerator;
+  private final ConversionMetrics conversionMetrics;
+  private final SectionExecutor sectionExecutor;
 
   public OPConsultationConverter(
       MakeOrganisationResource makeOrganisationResource,
@@ -56,7 +65,10 @@ public class OPConsultationConverter {
       MakeEncounterResource makeEncounterResource,
       MakeMedicationRequestResource makeMedicationRequestResource,
       MakeProcedureResource makeProcedureResource,
-      MakeOpComposition makeOpComposition) {
+      MakeOpComposition makeOpComposition,
+      IdGenerator idGenerator,
+      ConversionMetrics conversionMetrics,
+      SectionExecutor sectionExecutor) {
     this.makeOrganisationResource = makeOrganisationResource;
     this.makeBundleMetaResource = makeBundleMetaResource;
     this.makePatientResource = makePatientResource;
@@ -71,106 +83,147 @@ public class OPConsultationConverter {
     this.makeMedicationRequestResource = makeMedicationRequestResource;
     this.makeProcedureResource = makeProcedureResource;
     this.makeOpComposition = makeOpComposition;
+    this.idGenerator = idGenerator;
+    this.conversionMetrics = conversionMetrics;
+    this.sectionExecutor = sectionExecutor;
   }
 
   public BundleResponse convertToOPConsultationBundle(OPConsultationRequest opConsultationRequest)
       throws ParseException {
-    try {
+    try (ConversionTimer timer = conversionMetrics.start("OPConsultRecord")) {
+      String recordKey = "OPConsultRecord:" + opConsultationRequest.getCareContextReference();
+      ConversionContext context =
+          new ConversionContext(
+              opConsultationRequest.getVisitDate(), idGenerator.forRecord(recordKey));
       Organization organization =
-          makeOrganisationResource.getOrganization(opConsultationRequest.getOrganisation());
-      Patient patient = makePatientResource.getPatient(opConsultationRequest.getPatient());
+          makeOrganisationResource.getOrganization(
+              context, opConsultationRequest.getOrganisation());
+      Patient patient = makePatientResource.getPatient(context, opConsultationRequest.getPatient());
       List<Practitioner> practitionerList =
           Optional.ofNullable(opConsultationRequest.getPractitioners())
               .orElse(Collections.emptyList())
               .stream()
-              .map(StreamUtils.wrapException(makePractitionerResource::getPractitioner))
+              .map(
+                  StreamUtils.wrapException(
+                      practitioner ->
+                          makePractitionerResource.getPractitioner(context, practitioner)))
               .toList();
+      context.setPatient(patient);
+      context.setPractitioners(practitionerList);
       Encounter encounter =
           makeEncounterResource.getEncounter(
-              patient,
+              context,
               opConsultationRequest.getEncounter() != null
                   ? opConsultationRequest.getEncounter()
-                  : null,
-              opConsultationRequest.getVisitDate());
-      List<Condition> chiefComplaintList =
-          opConsultationRequest.getChiefComplaints() != null
-              ? makeCheifComplaintsList(opConsultationRequest, patient)
-              : new ArrayList<>();
-      List<Observation> physicalObservationList =
-          opConsultationRequest.getPhysicalExaminations() != null
-              ? makePhysicalObservations(opConsultationRequest, patient, practitionerList)
-              : new ArrayList<>();
-      List<AllergyIntolerance> allergieList =
-          opConsultationRequest.getAllergies() != null
-              ? makeAllergiesList(patient, practitionerList, opConsultationRequest)
-              : new ArrayList<>();
-      List<Condition> medicalHistoryList =
-          opConsultationRequest.getMedicalHistories() != null
-              ? makeMedicalHistoryList(opConsultationRequest, patient)
-              : new ArrayList<>();
-      List<FamilyMemberHistory> familyMemberHistoryList =
-          opConsultationRequest.getFamilyHistories() != null
-              ? makeFamilyMemberHistory(patient, opConsultationRequest)
-              : new ArrayList<>();
-      List<ServiceRequest> investigationAdviceList =
-          opConsultationRequest.getServiceRequests() != null
-              ? makeInvestigationAdviceList(opConsultationRequest, patient, practitionerList)
-              : new ArrayList<>();
-      HashMap<Medication, MedicationRequest> medicationRequestMap = new HashMap<>();
-      List<MedicationRequest> medicationList = new ArrayList<>();
-      List<Condition> medicationConditionList = new ArrayList<>();
-      if (Objects.nonNull(opConsultationRequest.getMedications())) {
-        for (PrescriptionResource prescriptionResource : opConsultationRequest.getMedications()) {
-          Condition medicationCondition =
-              prescriptionResource.getReason() != null
-                  ? makeConditionResource.getCondition(
-                      prescriptionResource.getReason(),
-                      patient,
-                      opConsultationRequest.getVisitDate(),
-                      null)
-                  : null;
-          medicationList.add(
-              makeMedicationRequestResource.getMedicationResource(
-                  opConsultationRequest.getVisitDate(),
-                  prescriptionResource,
-                  medicationCondition,
-                  organization,
-                  practitionerList,
-                  patient));
-          if (medicationCondition != null) {
-            medicationConditionList.add(medicationCondition);
-          }
-        } // TODO
-      }
-      List<Appointment> followupList =
-          opConsultationRequest.getFollowups() != null
-              ? makeFollowupList(patient, opConsultationRequest)
-              : new ArrayList<>();
-      List<Procedure> procedureList =
-          opConsultationRequest.getProcedures() != null
-              ? makeProcedureList(opConsultationRequest, patient)
-              : new ArrayList<>();
-      List<ServiceRequest> referralList =
-          opConsultationRequest.getReferrals() != null
-              ? makeReferralList(opConsultationRequest, patient, practitionerList)
-              : new ArrayList<>();
-      List<Observation> otherObservationList =
-          opConsultationRequest.getOtherObservations() != null
-              ? makeOtherObservations(patient, practitionerList, opConsultationRequest)
-              : new ArrayList<>();
-      List<DocumentReference> documentReferenceList = new ArrayList<>();
+                  : null);
+      timer.lap(ConversionStage.PARTICIPANTS);
+      SectionExecutor.Sections sections = sectionExecutor.open(context, recordKey);
+      CompletableFuture<List<Condition>> chiefComplaints =
+          sections.submit(
+              "chiefComplaints",
+              section ->
+                  opConsultationRequest.getChiefComplaints() != null
+                      ? makeCheifComplaintsList(opConsultationRequest, section)
+                      : new ArrayList<>());
+      CompletableFuture<List<Observation>> physicalObservations =
+          sections.submit(
+              "physicalExaminations",
+              section ->
+                  opConsultationRequest.getPhysicalExaminations() != null
+                      ? makePhysicalObservations(opConsultationRequest, section)
+                      : new ArrayList<>());
+      CompletableFuture<List<AllergyIntolerance>> allergies =
+          sections.submit(
+              "allergies",
+              section ->
+                  opConsultationRequest.getAllergies() != null
+                      ? makeAllergiesList(section, opConsultationRequest)
+                      : new ArrayList<>());
+      CompletableFuture<List<Condition>> medicalHistories =
+          sections.submit(
+              "medicalHistories",
+              section ->
+                  opConsultationRequest.getMedicalHistories() != null
+                      ? makeMedicalHistoryList(opConsultationRequest, section)
+                      : new ArrayList<>());
+      CompletableFuture<List<FamilyMemberHistory>> familyHistories =
+          sections.submit(
+              "familyHistories",
+              section ->
+                  opConsultationRequest.getFamilyHistories() != null
+                      ? makeFamilyMemberHistory(section, opConsultationRequest)
+                      : new ArrayList<>());
+      CompletableFuture<List<ServiceRequest>> investigationAdvices =
+          sections.submit(
+              "serviceRequests",
+              section ->
+                  opConsultationRequest.getServiceRequests() != null
+                      ? makeInvestigationAdviceList(opConsultationRequest, section)
+                      : new ArrayList<>());
+      CompletableFuture<Medications> medications =
+          sections.submit(
+              "medications",
+              section -> makeMedications(section, organization, opConsultationRequest));
+      CompletableFuture<List<Appointment>> followups =
+          sections.submit(
+              "followups",
+              section ->
+                  opConsultationRequest.getFollowups() != null
+                      ? makeFollowupList(section, opConsultationRequest)
+                      : new ArrayList<>());
+      CompletableFuture<List<Procedure>> procedures =
+          sections.submit(
+              "procedures",
+              section ->
+                  opConsultationRequest.getProcedures() != null
+                      ? makeProcedureList(opConsultationRequest, section)
+                      : new ArrayList<>());
+      CompletableFuture<List<ServiceRequest>> referrals =
+          sections.submit(
+              "referrals",
+              section ->
+                  opConsultationRequest.getReferrals() != null
+                      ? makeReferralList(opConsultationRequest, section)
+                      : new ArrayList<>());
+      CompletableFuture<List<Observation>> otherObservations =
+          sections.submit(
+              "otherObservations",
+              section ->
+                  opConsultationRequest.getOtherObservations() != null
+                      ? makeOtherObservations(section, opConsultationRequest)
+                      : new ArrayList<>());
+      sections.await();
+      List<Condition> chiefComplaintList = chiefComplaints.join();
+      List<Observation> physicalObservationList = physicalObservations.join();
+      List<AllergyIntolerance> allergieList = allergies.join();
+      List<Condition> medicalHistoryList = medicalHistories.join();
+      List<FamilyMemberHistory> familyMemberHistoryList = familyHistories.join();
+      List<ServiceRequest> investigationAdviceList = investigationAdvices.join();
+      List<MedicationRequest> medicationList = medications.join().requests();
+      List<Condition> medicationConditionList = medications.join().conditions();
+      List<Appointment> followupList = followups.join();
+      List<Procedure> procedureList = procedures.join();
+      List<ServiceRequest> referralList = referrals.join();
+      List<Observation> otherObservationList = otherObservations.join();
+      timer.lap(ConversionStage.RESOURCES);
+      List<CompletableFuture<DocumentReference>> documentReferences = new ArrayList<>();
       if (Objects.nonNull(opConsultationRequest.getDocuments())) {
         for (DocumentResource documentResource : opConsultationRequest.getDocuments()) {
-          documentReferenceList.add(makeDocumentReference(patient, organization, documentResource));
+          documentReferences.add(
+              sections.submit(
+                  "documents/" + documentReferences.size(),
+                  section -> makeDocumentReference(section, organization, documentResource)));
         }
       }
+      sections.await();
+      List<DocumentReference> documentReferenceList =
+          documentReferences.stream().map(CompletableFuture::join).toList();
+      timer.lap(ConversionStage.DOCUMENTS);
 
       Composition composition =
           makeOpComposition.makeOPCompositionResource(
-              patient,
-              opConsultationRequest.getVisitDate(),
+              context,
               encounter,
-              practitionerList,
               organization,
               chiefComplaintList,
               physicalObservationList,
@@ -184,12 +237,13 @@ public class OPConsultationConverter {
               referralList,
               otherObservationList,
               documentReferenceList);
+      timer.lap(ConversionStage.COMPOSITION);
 
       Bundle bundle = new Bundle();
-      bundle.setId(UUID.randomUUID().toString());
+      bundle.setId(context.newId());
       bundle.setType(Bundle.BundleType.DOCUMENT);
-      bundle.setTimestampElement(Utils.getCurrentTimeStamp());
-      bundle.setMeta(makeBundleMetaResource.getMeta());
+      bundle.setTimestampElement(context.getTimestamp());
+      bundle.setMeta(makeBundleMetaResource.getMeta(context));
       bundle.setIdentifier(
           new Identifier()
               .setSystem(BundleUrlIdentifier.WRAPPER_URL)
@@ -305,7 +359,8 @@ public class OPConsultationConverter {
                 .setResource(documentReference));
       }
       bundle.setEntry(entries);
-      return BundleResponse.builder().bundle(bundle).build();
+      timer.lap(ConversionStage.ASSEMBLY);
+      return BundleResponse.builder().bundle(timer.succeeded(bundle)).build();
     } catch (Exception e) {
       if (e instanceof InvalidDataAccessResourceUsageException) {
         log.error(e.getMessage());
@@ -322,11 +377,43 @@ public class OPConsultationConverter {
     }
   }
 
+  private Medications makeMedications(
+      ConversionContext context,
+      Organization organization,
+      OPConsultationRequest opConsultationRequest)
+      throws ParseException {
+    List<MedicationRequest> medicationList = new ArrayList<>();
+    List<Condition> medicationConditionList = new ArrayList<>();
+    if (Objects.nonNull(opConsultationRequest.getMedications())) {
+      for (PrescriptionResource prescriptionResource : opConsultationRequest.getMedications()) {
+        Condition medicationCondition =
+            prescriptionResource.getReason() != null
+                ? makeConditionResource.getCondition(
+                    prescriptionResource.getReason(),
+                    context,
+                    opConsultationRequest.getVisitDate(),
+                    null)
+                : null;
+        medicationList.add(
+            makeMedicationRequestResource.getMedicationResource(
+                opConsultationRequest.getVisitDate(),
+                prescriptionResource,
+                medicationCondition,
+                organization,
+                context));
+        if (medicationCondition != null) {
+          medicationConditionList.add(medicationCondition);
+        }
+      } // TODO
+    }
+    return new Medications(medicationList, medicationConditionList);
+  }
+
   private DocumentReference makeDocumentReference(
-      Patient patient, Organization organization, DocumentResource documentResource)
+      ConversionContext context, Organization organization, DocumentResource documentResource)
       throws ParseException {
     return makeDocumentResource.getDocument(
-        patient,
+        context,
         organization,
         documentResource,
         BundleCompositionIdentifier.RECORD_ARTIFACT_CODE,
@@ -334,24 +421,19 @@ public class OPConsultationConverter {
   }
 
   private List<Observation> makeOtherObservations(
-      Patient patient,
-      List<Practitioner> practitionerList,
-      OPConsultationRequest opConsultationRequest)
+      ConversionContext context, OPConsultationRequest opConsultationRequest)
       throws ParseException {
     return Optional.ofNullable(opConsultationRequest.getOtherObservations())
         .orElse(Collections.emptyList())
         .stream()
         .map(
             StreamUtils.wrapException(
-                observation ->
-                    makeObservationResource.getObservation(patient, practitionerList, observation)))
+                observation -> makeObservationResource.getObservation(context, observation)))
         .toList();
   }
 
   private List<ServiceRequest> makeReferralList(
-      OPConsultationRequest opConsultationRequest,
-      Patient patient,
-      List<Practitioner> practitionerList)
+      OPConsultationRequest opConsultationRequest, ConversionContext context)
       throws ParseException {
     return Optional.ofNullable(opConsultationRequest.getReferrals())
         .orElse(Collections.emptyList())
@@ -360,23 +442,25 @@ public class OPConsultationConverter {
             StreamUtils.wrapException(
                 referral ->
                     makeServiceRequestResource.getServiceRequest(
-                        patient, practitionerList, referral, opConsultationRequest.getVisitDate())))
+                        context, referral, opConsultationRequest.getVisitDate())))
         .toList();
   }
 
   private List<Procedure> makeProcedureList(
-      OPConsultationRequest opConsultationRequest, Patient patient) throws ParseException {
+      OPConsultationRequest opConsultationRequest, ConversionContext context)
+      throws ParseException {
     return Optional.ofNullable(opConsultationRequest.getProcedures())
         .orElse(Collections.emptyList())
         .stream()
         .map(
             StreamUtils.wrapException(
-                procedure -> makeProcedureResource.getProcedure(patient, procedure)))
+                procedure -> makeProcedureResource.getProcedure(context, procedure)))
         .toList();
   }
 
   private List<Appointment> makeFollowupList(
-      Patient patient, OPConsultationRequest opConsultationRequest) throws ParseException {
+      ConversionContext context, OPConsultationRequest opConsultationRequest)
+      throws ParseException {
     return Optional.ofNullable(opConsultationRequest.getFollowups())
         .orElse(Collections.emptyList())
         .stream()
@@ -384,7 +468,7 @@ public class OPConsultationConverter {
             StreamUtils.wrapException(
                 item -> {
                   Appointment appointment = new Appointment();
-                  appointment.setId(UUID.randomUUID().toString());
+                  appointment.setId(context.newId());
                   appointment.setStatus(Appointment.AppointmentStatus.PROPOSED);
                   appointment.setParticipant(
                       Collections.singletonList(
@@ -392,7 +476,9 @@ public class OPConsultationConverter {
                               .setActor(
                                   new Reference()
                                       .setReference(
-                                          BundleResourceIdentifier.PATIENT + "/" + patient.getId()))
+                                          BundleResourceIdentifier.PATIENT
+                                              + "/"
+                                              + context.getPatient().getId()))
                               .setStatus(Appointment.ParticipationStatus.ACCEPTED)));
 
                   if (item.getAppointmentEndTime() != null) {
@@ -400,7 +486,8 @@ public class OPConsultationConverter {
                         Utils.getFormattedDateTime(item.getAppointmentEndTime()).getValue());
                   }
                   appointment.setDescription(
-                      "Discussion On the results of your recent Lab Test and further treatment plan");
+                      "Discussion On the results of your recent Lab Test and further treatment"
+                          + " plan");
                   appointment.setStart(
                       Utils.getFormattedDateTime(item.getAppointmentTime())
                           .getValue()); // TODO in UTC format
@@ -414,9 +501,7 @@ public class OPConsultationConverter {
   }
 
   private List<ServiceRequest> makeInvestigationAdviceList(
-      OPConsultationRequest opConsultationRequest,
-      Patient patient,
-      List<Practitioner> practitionerList)
+      OPConsultationRequest opConsultationRequest, ConversionContext context)
       throws ParseException {
     return Optional.ofNullable(opConsultationRequest.getServiceRequests())
         .orElse(Collections.emptyList())
@@ -425,26 +510,25 @@ public class OPConsultationConverter {
             StreamUtils.wrapException(
                 investigation ->
                     makeServiceRequestResource.getServiceRequest(
-                        patient,
-                        practitionerList,
-                        investigation,
-                        opConsultationRequest.getVisitDate())))
+                        context, investigation, opConsultationRequest.getVisitDate())))
         .toList();
   }
 
   private List<FamilyMemberHistory> makeFamilyMemberHistory(
-      Patient patient, OPConsultationRequest opConsultationRequest) throws ParseException {
+      ConversionContext context, OPConsultationRequest opConsultationRequest)
+      throws ParseException {
     return Optional.ofNullable(opConsultationRequest.getFamilyHistories())
         .orElse(Collections.emptyList())
         .stream()
         .map(
             StreamUtils.wrapException(
-                family -> makeFamilyMemberResource.getFamilyHistory(patient, family)))
+                family -> makeFamilyMemberResource.getFamilyHistory(context, family)))
         .toList();
   }
 
   private List<Condition> makeMedicalHistoryList(
-      OPConsultationRequest opConsultationRequest, Patient patient) throws ParseException {
+      OPConsultationRequest opConsultationRequest, ConversionContext context)
+      throws ParseException {
     return Optional.ofNullable(opConsultationRequest.getMedicalHistories())
         .orElse(Collections.emptyList())
         .stream()
@@ -453,16 +537,14 @@ public class OPConsultationConverter {
                 medicalHistory ->
                     makeConditionResource.getCondition(
                         medicalHistory.getComplaint(),
-                        patient,
+                        context,
                         medicalHistory.getRecordedDate(),
                         medicalHistory.getDateRange())))
         .toList();
   }
 
   private List<AllergyIntolerance> makeAllergiesList(
-      Patient patient,
-      List<Practitioner> practitionerList,
-      OPConsultationRequest opConsultationRequest)
+      ConversionContext context, OPConsultationRequest opConsultationRequest)
       throws ParseException {
 
     return opConsultationRequest.getAllergies().stream()
@@ -471,8 +553,7 @@ public class OPConsultationConverter {
             StreamUtils.wrapException(
                 allergy ->
                     makeAllergyToleranceResource.getAllergy(
-                        patient,
-                        practitionerList,
+                        context,
                         allergy.getName(),
                         opConsultationRequest.getVisitDate(),
                         allergy.getVerificationStatus())))
@@ -480,9 +561,7 @@ public class OPConsultationConverter {
   }
 
   private List<Observation> makePhysicalObservations(
-      OPConsultationRequest opConsultationRequest,
-      Patient patient,
-      List<Practitioner> practitionerList)
+      OPConsultationRequest opConsultationRequest, ConversionContext context)
       throws ParseException {
     return Optional.ofNullable(opConsultationRequest.getPhysicalExaminations())
         .orElse(Collections.emptyList())
@@ -490,13 +569,13 @@ public class OPConsultationConverter {
         .map(
             StreamUtils.wrapException(
                 physicalObservation ->
-                    makeObservationResource.getObservation(
-                        patient, practitionerList, physicalObservation)))
+                    makeObservationResource.getObservation(context, physicalObservation)))
         .toList();
   }
 
   private List<Condition> makeCheifComplaintsList(
-      OPConsultationRequest opConsultationRequest, Patient patient) throws ParseException {
+      OPConsultationRequest opConsultationRequest, ConversionContext context)
+      throws ParseException {
     return Optional.ofNullable(opConsultationRequest.getChiefComplaints())
         .orElse(Collections.emptyList())
         .stream()
@@ -505,9 +584,11 @@ public class OPConsultationConverter {
                 complaint ->
                     makeConditionResource.getCondition(
                         complaint.getComplaint(),
-                        patient,
+                        context,
                         complaint.getRecordedDate(),
                         complaint.getDateRange())))
         .toList();
   }
+
+  private record Medications(List<MedicationRequest> requests, List<Condition> conditions) {}
 }
@@ -1,17 +1,22 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.converter;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ErrorCode;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.DocumentResource;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
+import com.nha.abdm.fhir.mapper.rest.common.ids.IdGenerator;
 import com.nha.abdm.fhir.mapper.rest.dto.compositions.MakePrescriptionComposition;
 import com.nha.abdm.fhir.mapper.rest.dto.resources.*;
 import com.nha.abdm.fhir.mapper.rest.exceptions.StreamUtils;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionStage;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionTimer;
 import com.nha.abdm.fhir.mapper.rest.requests.PrescriptionRequest;
 import com.nha.abdm.fhir.mapper.rest.requests.helpers.PrescriptionResource;
 import java.text.ParseException;
@@ -35,6 +40,8 @@ public class PrescriptionConverter {
   private final MakeEncounterResource makeEncounterResource;
   private final MakePrescriptionComposition makePrescriptionComposition;
   private final MakeConditionResource makeConditionResource;
+  private final IdGenerator idGenerator;
+  private final ConversionMetrics conversionMetrics;
 
   public PrescriptionConverter(
       MakeOrganisationResource makeOrganisationResource,
@@ -44,7 +51,9 @@ public class PrescriptionConverter {
       MakeMedicationRequestResource makeMedicationRequestResource,
       MakeEncounterResource makeEncounterResource,
       MakePrescriptionComposition makePrescriptionComposition,
-      MakeConditionResource makeConditionResource) {
+      MakeConditionResource makeConditionResource,
+      IdGenerator idGenerator,
+      ConversionMetrics conversionMetrics) {
     this.makeOrganisationResource = makeOrganisationResource;
     this.makePatientResource = makePatientResource;
     this.makePractitionerResource = makePractitionerResource;
@@ -53,80 +62,83 @@ public class PrescriptionConverter {
     this.makeEncounterResource = makeEncounterResource;
     this.makePrescriptionComposition = makePrescriptionComposition;
     this.makeConditionResource = makeConditionResource;
+    this.idGenerator = idGenerator;
+    this.conversionMetrics = conversionMetrics;
   }
 
   public BundleResponse convertToPrescriptionBundle(PrescriptionRequest prescriptionRequest)
       throws ParseException {
-    try {
+    try (ConversionTimer timer = conversionMetrics.start("PrescriptionRecord")) {
+      ConversionContext context =
+          new ConversionContext(
+              prescriptionRequest.getAuthoredOn(),
+              idGenerator.forRecord(
+                  "PrescriptionRecord:" + prescriptionRequest.getCareContextReference()));
       Organization organization =
           Objects.nonNull(prescriptionRequest.getOrganisation())
-              ? makeOrganisationResource.getOrganization(prescriptionRequest.getOrganisation())
+              ? makeOrganisationResource.getOrganization(
+                  context, prescriptionRequest.getOrganisation())
               : null;
 
-      Patient patient = makePatientResource.getPatient(prescriptionRequest.getPatient());
+      Patient patient = makePatientResource.getPatient(context, prescriptionRequest.getPatient());
 
       List<Practitioner> practitionerList =
           Optional.ofNullable(prescriptionRequest.getPractitioners())
               .orElse(Collections.emptyList())
               .stream()
-              .map(StreamUtils.wrapException(makePractitionerResource::getPractitioner))
+              .map(
+                  StreamUtils.wrapException(
+                      practitioner ->
+                          makePractitionerResource.getPractitioner(context, practitioner)))
               .toList();
+      context.setPatient(patient);
+      context.setPractitioners(practitionerList);
+      timer.lap(ConversionStage.PARTICIPANTS);
       List<MedicationRequest> medicationRequestList = new ArrayList<>();
       List<Condition> medicationConditionList = new ArrayList<>();
       for (PrescriptionResource item : prescriptionRequest.getPrescriptions()) {
         Condition condition =
             item.getReason() != null
                 ? makeConditionResource.getCondition(
-                    item.getReason(), patient, prescriptionRequest.getAuthoredOn(), null)
+                    item.getReason(), context, prescriptionRequest.getAuthoredOn(), null)
                 : null;
         medicationRequestList.add(
             makeMedicationRequestResource.getMedicationResource(
-                prescriptionRequest.getAuthoredOn(),
-                item,
-                condition,
-                organization,
-                practitionerList,
-                patient));
+                prescriptionRequest.getAuthoredOn(), item, condition, organization, context));
         if (condition != null) {
           medicationConditionList.add(condition);
         }
       }
+      timer.lap(ConversionStage.RESOURCES);
       Encounter encounter =
           makeEncounterResource.getEncounter(
-              patient,
+              context,
               prescriptionRequest.getEncounter() != null
                   ? prescriptionRequest.getEncounter()
-                  : null,
-              prescriptionRequest.getAuthoredOn());
+                  : null);
+      timer.lap(ConversionStage.PARTICIPANTS);
       List<Binary> documentList = new ArrayList<>();
       if (prescriptionRequest.getDocuments() != null) {
         for (DocumentResource documentResource : prescriptionRequest.getDocuments()) {
           Binary binary = new Binary();
-          binary.setMeta(
-              new Meta()
-                  .setLastUpdatedElement(Utils.getCurrentTimeStamp())
-                  .addProfile(ResourceProfileIdentifier.PROFILE_BINARY));
-          binary.setContent(documentResource.getData());
+          binary.setMeta(FhirFragments.meta(context, ResourceProfileIdentifier.PROFILE_BINARY));
+          binary.setDataElement(documentResource.getData().toFhir());
           binary.setContentType(documentResource.getContentType());
-          binary.setId(UUID.randomUUID().toString());
+          binary.setId(context.newId());
           documentList.add(binary);
         }
       }
+      timer.lap(ConversionStage.DOCUMENTS);
       Composition composition =
           makePrescriptionComposition.makeCompositionResource(
-              patient,
-              practitionerList,
-              organization,
-              prescriptionRequest.getAuthoredOn(),
-              encounter,
-              medicationRequestList,
-              documentList);
+              context, organization, encounter, medicationRequestList, documentList);
+      timer.lap(ConversionStage.COMPOSITION);
 
       Bundle bundle = new Bundle();
-      bundle.setId(UUID.randomUUID().toString());
+      bundle.setId(context.newId());
       bundle.setType(Bundle.BundleType.DOCUMENT);
-      bundle.setTimestampElement(Utils.getCurrentTimeStamp());
-      bundle.setMeta(makeBundleMetaResource.getMeta());
+      bundle.setTimestampElement(context.getTimestamp());
+      bundle.setMeta(makeBundleMetaResource.getMeta(context));
       bundle.setIdentifier(
           new Identifier()
               .setSystem(BundleUrlIdentifier.WRAPPER_URL)
@@ -178,7 +190,8 @@ public class PrescriptionConverter {
                 .setResource(binary));
       }
       bundle.setEntry(entries);
-      return BundleResponse.builder().bundle(bundle).build();
+      timer.lap(ConversionStage.ASSEMBLY);
+      return BundleResponse.builder().bundle(timer.succeeded(bundle)).build();
     } catch (Exception e) {
       if (e instanceof InvalidDataAccessResourceUsageException) {
         log.error(e.getMessage());
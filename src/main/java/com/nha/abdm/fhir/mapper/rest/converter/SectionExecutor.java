@@ -0,0 +1,180 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.converter;
+
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.ids.IdGenerator;
+import com.nha.abdm.fhir.mapper.rest.config.VirtualThreads;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the independent sections of a bundle, such as the chief complaints, medications or
+ * procedures of an OP consultation, which only need the patient, practitioners and organisation.
+ * With {@code conversion.sections.mode}:
+ *
+ * <ul>
+ *   <li>{@code sequential}: each section is built on the converter's thread when submitted
+ *   <li>{@code parallel}: sections run on a shared pool of {@code conversion.sections.threads}
+ *       platform threads; when its queue is full the converter's thread builds the section itself.
+ *       With {@link VirtualThreads} enabled they run as in {@code virtual} mode instead.
+ *   <li>{@code virtual}: sections run on virtual threads, at most {@code
+ *       conversion.sections.threads} at a time (Java 21 and later)
+ * </ul>
+ *
+ * <p>Every section takes its ids from its own source, keyed by the record and the section name, so
+ * a deterministic id strategy gives the same ids in every mode. Converters read the results after
+ * {@link Sections#await} and assemble them in a fixed order.
+ */
+@Component
+public class SectionExecutor {
+  private static final Logger log = LoggerFactory.getLogger(SectionExecutor.class);
+
+  public enum Mode {
+    SEQUENTIAL,
+    PARALLEL,
+    VIRTUAL
+  }
+
+  /** Builds one section from the section's own view of the conversion context. */
+  @FunctionalInterface
+  public interface SectionBuilder<T> {
+    T build(ConversionContext context) throws Exception;
+  }
+
+  private final IdGenerator idGenerator;
+  private final Mode mode;
+  private final ExecutorService executor;
+
+  public SectionExecutor(
+      IdGenerator idGenerator,
+      VirtualThreads virtualThreads,
+      @Value("${conversion.sections.mode:sequential}") String mode,
+      @Value("${conversion.sections.threads:0}") int threads) {
+    this.idGenerator = idGenerator;
+    Mode configured = Mode.valueOf(mode.trim().toUpperCase());
+    this.mode =
+        configured == Mode.PARALLEL && virtualThreads.isEnabled() ? Mode.VIRTUAL : configured;
+    int limit = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    this.executor =
+        switch (this.mode) {
+          case SEQUENTIAL -> null;
+          case PARALLEL -> platformThreads(limit);
+          case VIRTUAL -> VirtualThreads.newBoundedExecutor(limit);
+        };
+    log.info("Building bundle sections in {} mode", this.mode.name().toLowerCase());
+  }
+
+  /**
+   * @param context the context of the conversion, with its patient and practitioners set
+   * @param recordKey the key the conversion's id source was created with
+   * @return a new set of sections of that conversion
+   */
+  public Sections open(ConversionContext context, String recordKey) {
+    return new Sections(context, recordKey);
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  /** The sections of one conversion; used by the converter's thread only. */
+  public final class Sections {
+    private final ConversionContext context;
+    private final String recordKey;
+    private final List<CompletableFuture<?>> pending = new ArrayList<>();
+
+    private Sections(ConversionContext context, String recordKey) {
+      this.context = context;
+      this.recordKey = recordKey;
+    }
+
+    /**
+     * Starts building a section. In sequential mode it is built before this returns, and its
+     * failure is thrown right away.
+     *
+     * @param name unique name of the section within the conversion
+     * @param builder builds the section
+     * @return the section, complete once {@link #await} returns; read it with {@code join()}
+     */
+    public <T> CompletableFuture<T> submit(String name, SectionBuilder<T> builder)
+        throws Exception {
+      ConversionContext sectionContext =
+          context.forSection(idGenerator.forRecord(recordKey + "#" + name));
+      if (executor == null) {
+        return CompletableFuture.completedFuture(builder.build(sectionContext));
+      }
+      Callable<T> task = ConversionMetrics.inCurrentConversion(() -> builder.build(sectionContext));
+      CompletableFuture<T> future = new CompletableFuture<>();
+      executor.execute(
+          () -> {
+            try {
+              future.complete(task.call());
+            } catch (Throwable e) {
+              future.completeExceptionally(e);
+            }
+          });
+      pending.add(future);
+      return future;
+    }
+
+    /**
+     * Waits for every section submitted so far. When sections failed, the failure of the first one
+     * submitted is thrown as it was raised by its builder.
+     */
+    public void await() throws Exception {
+      Throwable failure = null;
+      for (CompletableFuture<?> future : pending) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            failure = e.getCause();
+          }
+        } catch (InterruptedException e) {
+          pending.forEach(section -> section.cancel(true));
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+      pending.clear();
+      if (failure instanceof Exception exception) {
+        throw exception;
+      }
+      if (failure instanceof Error error) {
+        throw error;
+      }
+    }
+  }
+
+  private static ExecutorService platformThreads(int threads) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return new ThreadPoolExecutor(
+        threads,
+        threads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(threads * 16),
+        runnable -> {
+          Thread thread =
+              new Thread(runnable, "conversion-section-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.CallerRunsPolicy());
+  }
+}
@@ -1,13 +1,17 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.converter;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.*;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.BundleResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
+import com.nha.abdm.fhir.mapper.rest.common.ids.IdGenerator;
 import com.nha.abdm.fhir.mapper.rest.dto.compositions.MakeWellnessComposition;
 import com.nha.abdm.fhir.mapper.rest.dto.resources.*;
 import com.nha.abdm.fhir.mapper.rest.exceptions.StreamUtils;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionStage;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionTimer;
 import com.nha.abdm.fhir.mapper.rest.requests.WellnessRecordRequest;
 import java.util.*;
 import org.hl7.fhir.r4.model.*;
@@ -30,6 +34,8 @@ public class WellnessRecordConverter {
   private final MakeObservationResource makeObservationResource;
   private final MakeWellnessObservationResource makeWellnessObservationResource;
   private final MakeWellnessComposition makeWellnessComposition;
+  private final IdGenerator idGenerator;
+  private final ConversionMetrics conversionMetrics;
 
   public WellnessRecordConverter(
       MakeOrganisationResource makeOrganisationResource,
@@ -40,7 +46,9 @@ public class WellnessRecordConverter {
       MakeEncounterResource makeEncounterResource,
       MakeObservationResource makeObservationResource,
       MakeWellnessObservationResource makeWellnessObservationResource,
-      MakeWellnessComposition makeWellnessComposition) {
+      MakeWellnessComposition makeWellnessComposition,
+      IdGenerator idGenerator,
+      ConversionMetrics conversionMetrics) {
     this.makeOrganisationResource = makeOrganisationResource;
     this.makeBundleMetaResource = makeBundleMetaResource;
     this.makePatientResource = makePatientResource;
@@ -50,29 +58,42 @@ public class WellnessRecordConverter {
     this.makeObservationResource = makeObservationResource;
     this.makeWellnessObservationResource = makeWellnessObservationResource;
     this.makeWellnessComposition = makeWellnessComposition;
+    this.idGenerator = idGenerator;
+    this.conversionMetrics = conversionMetrics;
   }
 
   public BundleResponse getWellnessBundle(WellnessRecordRequest wellnessRecordRequest) {
-    try {
+    try (ConversionTimer timer = conversionMetrics.start("WellnessRecord")) {
+      ConversionContext context =
+          new ConversionContext(
+              wellnessRecordRequest.getAuthoredOn(),
+              idGenerator.forRecord(
+                  "WellnessRecord:" + wellnessRecordRequest.getCareContextReference()));
       Organization organization =
-          makeOrganisationResource.getOrganization(wellnessRecordRequest.getOrganisation());
+          makeOrganisationResource.getOrganization(
+              context, wellnessRecordRequest.getOrganisation());
 
-      Patient patient = makePatientResource.getPatient(wellnessRecordRequest.getPatient());
+      Patient patient = makePatientResource.getPatient(context, wellnessRecordRequest.getPatient());
 
       List<Practitioner> practitionerList =
           Optional.ofNullable(wellnessRecordRequest.getPractitioners())
               .orElse(Collections.emptyList())
               .stream()
-              .map(StreamUtils.wrapException(makePractitionerResource::getPractitioner))
+              .map(
+                  StreamUtils.wrapException(
+                      practitioner ->
+                          makePractitionerResource.getPractitioner(context, practitioner)))
               .toList();
+      context.setPatient(patient);
+      context.setPractitioners(practitionerList);
 
       Encounter encounter =
           makeEncounterResource.getEncounter(
-              patient,
+              context,
               wellnessRecordRequest.getEncounter() != null
                   ? wellnessRecordRequest.getEncounter()
-                  : null,
-              wellnessRecordRequest.getAuthoredOn());
+                  : null);
+      timer.lap(ConversionStage.PARTICIPANTS);
 
       List<Observation> vitalSignsList =
           Optional.ofNullable(wellnessRecordRequest.getVitalSigns())
@@ -82,10 +103,7 @@ public class WellnessRecordConverter {
                   StreamUtils.wrapException(
                       vitalSign ->
                           makeWellnessObservationResource.getObservation(
-                              patient,
-                              practitionerList,
-                              vitalSign,
-                              BundleFieldIdentifier.VITAL_SIGNS)))
+                              context, vitalSign, BundleFieldIdentifier.VITAL_SIGNS)))
               .toList();
 
       List<Observation> bodyMeasurementList =
@@ -97,10 +115,7 @@ public class WellnessRecordConverter {
                   StreamUtils.wrapException(
                       bodyMeasurement ->
                           makeWellnessObservationResource.getObservation(
-                              patient,
-                              practitionerList,
-                              bodyMeasurement,
-                              BundleFieldIdentifier.BODY_MEASUREMENT)))
+                              context, bodyMeasurement, BundleFieldIdentifier.BODY_MEASUREMENT)))
               .toList();
 
       List<Observation> physicalActivityList =
@@ -111,10 +126,7 @@ public class WellnessRecordConverter {
                   StreamUtils.wrapException(
                       physicalActivity ->
                           makeWellnessObservationResource.getObservation(
-                              patient,
-                              practitionerList,
-                              physicalActivity,
-                              BundleFieldIdentifier.PHYSICAL_ACTIVITY)))
+                              context, physicalActivity, BundleFieldIdentifier.PHYSICAL_ACTIVITY)))
               .toList();
 
       List<Observation> generalAssessmentList =
@@ -125,8 +137,7 @@ public class WellnessRecordConverter {
                   StreamUtils.wrapException(
                       generalAssessment ->
                           makeWellnessObservationResource.getObservation(
-                              patient,
-                              practitionerList,
+                              context,
                               generalAssessment,
                               BundleFieldIdentifier.GENERAL_ASSESSMENT)))
               .toList();
@@ -139,10 +150,7 @@ public class WellnessRecordConverter {
                   StreamUtils.wrapException(
                       womanHealth ->
                           makeWellnessObservationResource.getObservation(
-                              patient,
-                              practitionerList,
-                              womanHealth,
-                              BundleFieldIdentifier.WOMAN_HEALTH)))
+                              context, womanHealth, BundleFieldIdentifier.WOMAN_HEALTH)))
               .toList();
 
       List<Observation> lifeStyleList =
@@ -153,10 +161,7 @@ public class WellnessRecordConverter {
                   StreamUtils.wrapException(
                       lifeStyle ->
                           makeWellnessObservationResource.getObservation(
-                              patient,
-                              practitionerList,
-                              lifeStyle,
-                              BundleFieldIdentifier.LIFE_STYLE)))
+                              context, lifeStyle, BundleFieldIdentifier.LIFE_STYLE)))
               .toList();
 
       List<Observation> otherObservationList =
@@ -166,9 +171,9 @@ public class WellnessRecordConverter {
               .map(
                   StreamUtils.wrapException(
                       otherObservation ->
-                          makeObservationResource.getObservation(
-                              patient, practitionerList, otherObservation)))
+                          makeObservationResource.getObservation(context, otherObservation)))
               .toList();
+      timer.lap(ConversionStage.RESOURCES);
 
       List<DocumentReference> documentReferenceList =
           Optional.ofNullable(wellnessRecordRequest.getDocuments())
@@ -178,20 +183,19 @@ public class WellnessRecordConverter {
                   StreamUtils.wrapException(
                       documentResource -> {
                         return makeDocumentResource.getDocument(
-                            patient,
+                            context,
                             organization,
                             documentResource,
                             BundleCompositionIdentifier.HEALTH_DOCUMENT_CODE,
                             BundleCompositionIdentifier.HEALTH_DOCUMENT);
                       }))
               .toList();
+      timer.lap(ConversionStage.DOCUMENTS);
 
       Composition composition =
           makeWellnessComposition.makeWellnessComposition(
-              patient,
-              wellnessRecordRequest.getAuthoredOn(),
+              context,
               encounter,
-              practitionerList,
               organization,
               vitalSignsList,
               bodyMeasurementList,
@@ -201,12 +205,13 @@ public class WellnessRecordConverter {
               lifeStyleList,
               otherObservationList,
               documentReferenceList);
+      timer.lap(ConversionStage.COMPOSITION);
 
       Bundle bundle = new Bundle();
-      bundle.setId(UUID.randomUUID().toString());
+      bundle.setId(context.newId());
       bundle.setType(Bundle.BundleType.DOCUMENT);
-      bundle.setTimestampElement(Utils.getCurrentTimeStamp());
-      bundle.setMeta(makeBundleMetaResource.getMeta());
+      bundle.setTimestampElement(context.getTimestamp());
+      bundle.setMeta(makeBundleMetaResource.getMeta(context));
       bundle.setIdentifier(
           new Identifier()
               .setSystem(BundleUrlIdentifier.WRAPPER_URL)
@@ -285,7 +290,8 @@ public class WellnessRecordConverter {
                 .setResource(documentReference));
       }
       bundle.setEntry(entries);
-      return BundleResponse.builder().bundle(bundle).build();
+      timer.lap(ConversionStage.ASSEMBLY);
+      return BundleResponse.builder().bundle(timer.succeeded(bundle)).build();
     } catch (Exception e) {
       if (e instanceof InvalidDataAccessResourceUsageException) {
         log.error(e.getMessage());
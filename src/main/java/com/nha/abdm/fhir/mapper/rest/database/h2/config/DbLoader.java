@@ -1,144 +1,151 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.database.h2.config;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.nha.abdm.fhir.mapper.rest.database.h2.tables.*;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedIndexRegistry;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedTable;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedTerminology;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedTerminologyLoader;
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.Displayable;
 import jakarta.annotation.PostConstruct;
-import jakarta.persistence.EntityManager;
-import jakarta.transaction.Transactional;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Copies the SNOMED terminology into H2. Rows go in through multi-row {@code INSERT} statements of
+ * {@code snomed.loader.batch-size} rows each and the display indexes are created once a table is
+ * filled.
+ *
+ * <p>At startup the terminology is activated as soon as it is read, from the build-time snapshot
+ * when there is one, and the H2 copy is filled afterwards on a background thread, one transaction
+ * per table in parallel. A reload waits for that copy and then replaces all tables in a single
+ * transaction.
+ */
 @Component
 public class DbLoader {
-  private final ApplicationContext applicationContext;
-  private final ObjectMapper dbMapper;
   private static final Logger log = LoggerFactory.getLogger(DbLoader.class);
 
-  @Autowired private PlatformTransactionManager transactionManager;
+  private final JdbcTemplate jdbcTemplate;
+  private final SnomedIndexRegistry snomedIndexRegistry;
+  private final SnomedTerminologyLoader snomedTerminologyLoader;
 
-  public DbLoader(ApplicationContext applicationContext) {
-    this.applicationContext = applicationContext;
-    this.dbMapper = new ObjectMapper();
-  }
+  @Autowired private PlatformTransactionManager transactionManager;
 
-  @PostConstruct
-  public void loadData() throws IOException {
-    PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-    Resource[] resources = resolver.getResources("classpath:/snomed/*.json");
+  @Value("${snomed.terminology.location:classpath:/snomed/}")
+  private String terminologyLocation;
 
-    if (resources == null || resources.length == 0) {
-      throw new IllegalStateException(
-          "No JSON files found in the 'snomed' folder on the classpath.");
-    }
+  @Value("${snomed.loader.batch-size:500}")
+  private int batchSize;
 
-    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+  private CompletableFuture<Void> initialCopy = CompletableFuture.completedFuture(null);
 
-    transactionTemplate.execute(
-        status -> {
-          try {
-            for (Resource resource : resources) {
-              processResource(resource);
-            }
-          } catch (Exception e) {
-            status.setRollbackOnly();
-            throw new RuntimeException("Error loading data", e);
-          }
-          return null;
-        });
+  public DbLoader(
+      JdbcTemplate jdbcTemplate,
+      SnomedIndexRegistry snomedIndexRegistry,
+      SnomedTerminologyLoader snomedTerminologyLoader) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.snomedIndexRegistry = snomedIndexRegistry;
+    this.snomedTerminologyLoader = snomedTerminologyLoader;
   }
 
-  private void processResource(Resource resource) {
-    try (InputStream inputStream = resource.getInputStream()) {
-      String fileName = resource.getFilename();
-      if (fileName == null || !fileName.endsWith(".json")) {
-        log.warn("Skipping invalid resource: {}", fileName);
-        return;
-      }
-
-      String entityName = fileName.replace(".json", "");
-      String beanName = entityName.substring(0, 1).toLowerCase() + entityName.substring(1) + "Repo";
-
-      if (applicationContext.containsBean(beanName)) {
-
-        JpaRepository<Object, ?> repository =
-            (JpaRepository<Object, ?>) applicationContext.getBean(beanName);
-
-        List<Object> entities =
-            (List<Object>) dbMapper.readValue(inputStream, getTypeReference(entityName));
-        repository.saveAll(entities);
-
-        log.info("Loaded {} records into {}", entities.size(), entityName);
+  @PostConstruct
+  public void loadData() throws IOException {
+    long start = System.nanoTime();
+    SnomedTerminology terminology = snomedTerminologyLoader.loadForStartup(terminologyLocation);
+    snomedIndexRegistry.publish(terminology);
+    log.info("SNOMED terminology ready in {} ms", (System.nanoTime() - start) / 1_000_000);
+
+    initialCopy =
+        CompletableFuture.runAsync(
+            () -> copyData(terminology),
+            runnable -> {
+              Thread thread = new Thread(runnable, "snomed-h2-load");
+              thread.setDaemon(true);
+              thread.start();
+            });
+  }
 
-        addIndexesTransactional(entityName);
-      } else {
-        log.info("No repository bean found for {}", entityName);
-      }
-    } catch (Exception e) {
-      log.error("Error processing resource: {}", resource.getFilename(), e);
-      throw new RuntimeException(e);
+  private void copyData(SnomedTerminology terminology) {
+    long start = System.nanoTime();
+    try {
+      TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+      Arrays.stream(SnomedTable.values())
+          .parallel()
+          .forEach(
+              table ->
+                  transactionTemplate.executeWithoutResult(
+                      status -> insertTable(table, terminology, false)));
+      log.info(
+          "Copied SNOMED terminology into H2 in {} ms", (System.nanoTime() - start) / 1_000_000);
+    } catch (RuntimeException e) {
+      log.error("Copying SNOMED terminology into H2 failed", e);
     }
   }
 
-  private TypeReference<?> getTypeReference(String entityName) {
-    return switch (entityName) {
-      case "SnomedConditionProcedure" -> new TypeReference<List<SnomedConditionProcedure>>() {};
-      case "SnomedDiagnostic" -> new TypeReference<List<SnomedDiagnostic>>() {};
-      case "SnomedEncounter" -> new TypeReference<List<SnomedEncounter>>() {};
-      case "SnomedMedicineRoute" -> new TypeReference<List<SnomedMedicineRoute>>() {};
-      case "SnomedMedicine" -> new TypeReference<List<SnomedMedicine>>() {};
-      case "SnomedObservation" -> new TypeReference<List<SnomedObservation>>() {};
-      case "SnomedSpecimen" -> new TypeReference<List<SnomedSpecimen>>() {};
-      case "SnomedVaccine" -> new TypeReference<List<SnomedVaccine>>() {};
-      default -> throw new IllegalArgumentException("Unknown entity name: " + entityName);
-    };
+  /**
+   * Replaces the H2 copy of every table with the given terminology, in one transaction.
+   *
+   * @param terminology the version about to be activated
+   */
+  public void replaceData(SnomedTerminology terminology) {
+    initialCopy.join();
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              for (SnomedTable table : SnomedTable.values()) {
+                insertTable(table, terminology, true);
+              }
+            });
   }
 
-  @Transactional
-  public void addIndexesTransactional(String entityName) {
-
-    String tableName = "\"" + convertToSnakeCase(entityName) + "\"";
-    String indexName = "idx_" + convertToSnakeCase(entityName) + "_display_code";
-    String sql =
-        switch (entityName) {
-          case "SnomedEncounter" ->
-              "CREATE INDEX " + indexName + " ON " + tableName + " (\"code\", \"display\");";
-          case "SnomedDiagnostic" ->
-              "CREATE INDEX " + indexName + " ON " + tableName + " (\"code\", \"display\");";
-          case "SnomedConditionProcedure" ->
-              "CREATE INDEX " + indexName + " ON " + tableName + " (\"code\", \"display\");";
-          case "SnomedMedicineRoute" ->
-              "CREATE INDEX " + indexName + " ON " + tableName + " (\"code\", \"display\");";
-          case "SnomedMedicine" ->
-              "CREATE INDEX " + indexName + " ON " + tableName + " (\"code\", \"display\");";
-          case "SnomedObservation" ->
-              "CREATE INDEX " + indexName + " ON " + tableName + " (\"code\", \"display\");";
-          case "SnomedSpecimen" ->
-              "CREATE INDEX " + indexName + " ON " + tableName + " (\"code\", \"display\");";
-          case "SnomedVaccine" ->
-              "CREATE INDEX " + indexName + " ON " + tableName + " (\"code\", \"display\");";
-          default -> null;
-        };
-
-    if (sql != null) {
-      EntityManager em = applicationContext.getBean(EntityManager.class);
-      em.createNativeQuery(sql).executeUpdate();
+  private void insertTable(SnomedTable table, SnomedTerminology terminology, boolean replace) {
+    long start = System.nanoTime();
+    String tableName = "\"" + table.getTableName() + "\"";
+    List<? extends Displayable> rows = terminology.get(table.getType()).findAll();
+    if (replace) {
+      jdbcTemplate.update("DELETE FROM " + tableName);
     }
-  }
 
-  private String convertToSnakeCase(String className) {
-    return className.replaceAll("([a-z])([A-Z])", "$1_$2").toLowerCase();
+    for (int from = 0; from < rows.size(); from += batchSize) {
+      List<? extends Displayable> batch =
+          rows.subList(from, Math.min(from + batchSize, rows.size()));
+      Object[] args = new Object[batch.size() * 3];
+      int i = 0;
+      for (Displayable row : batch) {
+        args[i++] = row.getCode();
+        args[i++] = row.getDisplay();
+        args[i++] = row.getType();
+      }
+      jdbcTemplate.update(
+          "INSERT INTO "
+              + tableName
+              + " (\"code\", \"display\", \"type\") VALUES "
+              + String.join(", ", Collections.nCopies(batch.size(), "(?, ?, ?)")),
+          args);
+    }
+    long inserted = System.nanoTime();
+
+    jdbcTemplate.execute(
+        "CREATE INDEX IF NOT EXISTS idx_"
+            + table.getTableName()
+            + "_display_code ON "
+            + tableName
+            + " (\"code\", \"display\")");
+    log.info(
+        "Loaded {} records into {} (insert {} ms, index {} ms)",
+        rows.size(),
+        table.getEntityName(),
+        (inserted - start) / 1_000_000,
+        (System.nanoTime() - inserted) / 1_000_000);
   }
 }
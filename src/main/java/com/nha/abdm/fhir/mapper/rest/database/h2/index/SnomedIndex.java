@@ -0,0 +1,400 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.database.h2.index;
+
+import com.nha.abdm.fhir.mapper.Utils;
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.Displayable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable token-level inverted index over one SNOMED table.
+ *
+ * <p>Answers the same question as the former {@code ILIKE '%display%' LIMIT 20} repository queries
+ * without touching the database: the normalized display must contain the normalized input. Every
+ * input token except the first and last must occur as a whole token of the display, the last token
+ * must prefix one, and a single-token input must be contained in one. Those tokens are resolved
+ * against a sorted vocabulary to posting lists, the lists are intersected and the surviving rows
+ * are verified with a plain substring check.
+ *
+ * <p>Each row also carries its term-frequency vector over the vocabulary (sorted term ids and their
+ * counts), its Euclidean norm and its word count, so {@link #bestMatch(String)} scores candidates
+ * by cosine similarity without re-tokenizing any display.
+ */
+public final class SnomedIndex<T extends Displayable> {
+  public static final int MAX_CANDIDATES = 20;
+  private static final SnomedIndex<?> EMPTY = build(Collections.emptyList());
+
+  private final List<T> entries;
+  private final String[] normalizedDisplays;
+  private final String[] vocabulary;
+  private final int[][] postings;
+  private final int[][] rowTerms;
+  private final int[][] rowTermCounts;
+  private final double[] rowNorms;
+  private final int[] rowWordCounts;
+
+  private SnomedIndex(
+      List<T> entries,
+      String[] normalizedDisplays,
+      String[] vocabulary,
+      int[][] postings,
+      int[][] rowTerms,
+      int[][] rowTermCounts,
+      double[] rowNorms,
+      int[] rowWordCounts) {
+    this.entries = entries;
+    this.normalizedDisplays = normalizedDisplays;
+    this.vocabulary = vocabulary;
+    this.postings = postings;
+    this.rowTerms = rowTerms;
+    this.rowTermCounts = rowTermCounts;
+    this.rowNorms = rowNorms;
+    this.rowWordCounts = rowWordCounts;
+  }
+
+  public static <T extends Displayable> SnomedIndex<T> build(List<T> entries) {
+    List<T> rows = List.copyOf(entries);
+    String[] normalizedDisplays = new String[rows.size()];
+    Map<String, List<Integer>> tokenRows = new TreeMap<>();
+
+    for (int row = 0; row < rows.size(); row++) {
+      String normalized = normalize(rows.get(row).getDisplay());
+      normalizedDisplays[row] = normalized;
+      for (String token : tokenize(normalized)) {
+        List<Integer> tokenPostings = tokenRows.computeIfAbsent(token, k -> new ArrayList<>());
+        if (tokenPostings.isEmpty() || tokenPostings.get(tokenPostings.size() - 1) != row) {
+          tokenPostings.add(row);
+        }
+      }
+    }
+
+    String[] vocabulary = tokenRows.keySet().toArray(new String[0]);
+    int[][] postings = new int[vocabulary.length][];
+    int tokenId = 0;
+    for (List<Integer> tokenPostings : tokenRows.values()) {
+      postings[tokenId++] = tokenPostings.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    int[][] rowTerms = new int[rows.size()][];
+    int[][] rowTermCounts = new int[rows.size()][];
+    double[] rowNorms = new double[rows.size()];
+    int[] rowWordCounts = new int[rows.size()];
+    for (int row = 0; row < rows.size(); row++) {
+      String[] tokens = tokenize(normalizedDisplays[row]);
+      TermVector vector = TermVector.of(tokens, vocabulary);
+      rowTerms[row] = vector.terms;
+      rowTermCounts[row] = vector.counts;
+      rowNorms[row] = vector.norm;
+      rowWordCounts[row] = tokens.length;
+    }
+    return new SnomedIndex<>(
+        rows,
+        normalizedDisplays,
+        vocabulary,
+        postings,
+        rowTerms,
+        rowTermCounts,
+        rowNorms,
+        rowWordCounts);
+  }
+
+  /**
+   * Writes the rows and every precomputed structure of this index, with strings replaced by their
+   * id in the snapshot's string table.
+   */
+  void writeTo(DataOutputStream out, ToIntFunction<String> stringIds) throws IOException {
+    out.writeInt(entries.size());
+    for (int row = 0; row < entries.size(); row++) {
+      out.writeInt(stringIds.applyAsInt(entries.get(row).getCode()));
+      out.writeInt(stringIds.applyAsInt(entries.get(row).getDisplay()));
+      out.writeInt(stringIds.applyAsInt(normalizedDisplays[row]));
+      out.writeInt(rowWordCounts[row]);
+      out.writeDouble(rowNorms[row]);
+      writeInts(out, rowTerms[row]);
+      writeInts(out, rowTermCounts[row]);
+    }
+    out.writeInt(vocabulary.length);
+    for (int tokenId = 0; tokenId < vocabulary.length; tokenId++) {
+      out.writeInt(stringIds.applyAsInt(vocabulary[tokenId]));
+      writeInts(out, postings[tokenId]);
+    }
+  }
+
+  /** Reads an index written by {@link #writeTo}, creating its rows through the table's factory. */
+  static SnomedIndex<Displayable> readFrom(DataInputStream in, String[] strings, SnomedTable table)
+      throws IOException {
+    int rowCount = in.readInt();
+    List<Displayable> rows = new ArrayList<>(rowCount);
+    String[] normalizedDisplays = new String[rowCount];
+    int[][] rowTerms = new int[rowCount][];
+    int[][] rowTermCounts = new int[rowCount][];
+    double[] rowNorms = new double[rowCount];
+    int[] rowWordCounts = new int[rowCount];
+    for (int row = 0; row < rowCount; row++) {
+      String code = string(strings, in.readInt());
+      String display = string(strings, in.readInt());
+      rows.add(table.newRow(code, display));
+      normalizedDisplays[row] = string(strings, in.readInt());
+      rowWordCounts[row] = in.readInt();
+      rowNorms[row] = in.readDouble();
+      rowTerms[row] = readInts(in);
+      rowTermCounts[row] = readInts(in);
+    }
+    String[] vocabulary = new String[in.readInt()];
+    int[][] postings = new int[vocabulary.length][];
+    for (int tokenId = 0; tokenId < vocabulary.length; tokenId++) {
+      vocabulary[tokenId] = string(strings, in.readInt());
+      postings[tokenId] = readInts(in);
+    }
+    return new SnomedIndex<>(
+        Collections.unmodifiableList(rows),
+        normalizedDisplays,
+        vocabulary,
+        postings,
+        rowTerms,
+        rowTermCounts,
+        rowNorms,
+        rowWordCounts);
+  }
+
+  private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+    out.writeInt(values.length);
+    for (int value : values) {
+      out.writeInt(value);
+    }
+  }
+
+  private static int[] readInts(DataInputStream in) throws IOException {
+    int[] values = new int[in.readInt()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = in.readInt();
+    }
+    return values;
+  }
+
+  private static String string(String[] strings, int id) {
+    return id < 0 ? null : strings[id];
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T extends Displayable> SnomedIndex<T> empty() {
+    return (SnomedIndex<T>) EMPTY;
+  }
+
+  /**
+   * @param display free text sent by the client
+   * @return at most {@link #MAX_CANDIDATES} rows whose display contains the given text, in load
+   *     order
+   */
+  public List<T> findByDisplay(String display) {
+    if (display == null) {
+      return Collections.emptyList();
+    }
+    String input = normalize(display);
+    List<T> result = new ArrayList<>();
+    for (int row : candidateRows(input, tokenize(input))) {
+      result.add(entries.get(row));
+    }
+    return result;
+  }
+
+  /**
+   * Picks the candidate with the highest cosine similarity between its term vector and the input's,
+   * considering only displays with at most two words more than the input. Ties keep the earlier
+   * row.
+   *
+   * @param display free text sent by the client
+   * @return the best matching row or null when no candidate qualifies
+   */
+  public T bestMatch(String display) {
+    if (display == null) {
+      return null;
+    }
+    String input = normalize(display);
+    String[] tokens = tokenize(input);
+    if (tokens.length == 0) {
+      return null;
+    }
+    int[] candidates = candidateRows(input, tokens);
+    if (candidates.length == 0) {
+      return null;
+    }
+
+    TermVector inputVector = TermVector.of(tokens, vocabulary);
+    int maxWordCount = tokens.length + 2;
+
+    int bestRow = -1;
+    double bestScore = -1;
+    for (int row : candidates) {
+      if (rowWordCounts[row] > maxWordCount) {
+        continue;
+      }
+      double score = inputVector.cosine(rowTerms[row], rowTermCounts[row], rowNorms[row]);
+      if (score > bestScore) {
+        bestScore = score;
+        bestRow = row;
+      }
+    }
+    return bestRow < 0 ? null : entries.get(bestRow);
+  }
+
+  private int[] candidateRows(String input, String[] tokens) {
+    if (tokens.length == 0) {
+      int[] rows = new int[Math.min(MAX_CANDIDATES, entries.size())];
+      Arrays.setAll(rows, i -> i);
+      return rows;
+    }
+
+    int[] candidates = null;
+    for (int i = 1; i < tokens.length - 1; i++) {
+      int tokenId = Arrays.binarySearch(vocabulary, tokens[i]);
+      if (tokenId < 0) {
+        return new int[0];
+      }
+      candidates = intersect(candidates, postings[tokenId]);
+      if (candidates.length == 0) {
+        return candidates;
+      }
+    }
+    if (tokens.length > 1) {
+      candidates = intersect(candidates, prefixPostings(tokens[tokens.length - 1]));
+    } else {
+      candidates = containsPostings(tokens[0]);
+    }
+
+    int size = 0;
+    for (int i = 0; i < candidates.length && size < MAX_CANDIDATES; i++) {
+      if (normalizedDisplays[candidates[i]].contains(input)) {
+        candidates[size++] = candidates[i];
+      }
+    }
+    return Arrays.copyOf(candidates, size);
+  }
+
+  public List<T> findAll() {
+    return entries;
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  public static String normalize(String text) {
+    return text == null ? "" : Utils.clean(text).toLowerCase(Locale.ROOT);
+  }
+
+  private static String[] tokenize(String normalized) {
+    return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+  }
+
+  private int[] prefixPostings(String prefix) {
+    int from = Arrays.binarySearch(vocabulary, prefix);
+    if (from < 0) {
+      from = -from - 1;
+    }
+    BitSet rows = new BitSet(entries.size());
+    for (int i = from; i < vocabulary.length && vocabulary[i].startsWith(prefix); i++) {
+      for (int row : postings[i]) {
+        rows.set(row);
+      }
+    }
+    return rows.stream().toArray();
+  }
+
+  private int[] containsPostings(String fragment) {
+    BitSet rows = new BitSet(entries.size());
+    for (int i = 0; i < vocabulary.length; i++) {
+      if (vocabulary[i].contains(fragment)) {
+        for (int row : postings[i]) {
+          rows.set(row);
+        }
+      }
+    }
+    return rows.stream().toArray();
+  }
+
+  private static int[] intersect(int[] left, int[] right) {
+    if (left == null) {
+      return right;
+    }
+    int[] result = new int[Math.min(left.length, right.length)];
+    int i = 0, j = 0, size = 0;
+    while (i < left.length && j < right.length) {
+      if (left[i] < right[j]) {
+        i++;
+      } else if (left[i] > right[j]) {
+        j++;
+      } else {
+        result[size++] = left[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  /**
+   * Sparse term-frequency vector: distinct term ids in ascending order with their counts. Input
+   * tokens missing from the vocabulary never match a display term but still count towards the norm.
+   */
+  private static final class TermVector {
+    private final int[] terms;
+    private final int[] counts;
+    private final double norm;
+
+    private TermVector(int[] terms, int[] counts, double norm) {
+      this.terms = terms;
+      this.counts = counts;
+      this.norm = norm;
+    }
+
+    static TermVector of(String[] tokens, String[] vocabulary) {
+      String[] sorted = tokens.clone();
+      Arrays.sort(sorted);
+      int[] terms = new int[sorted.length];
+      int[] counts = new int[sorted.length];
+      int size = 0;
+      long sumOfSquares = 0;
+      for (int i = 0; i < sorted.length; ) {
+        int j = i + 1;
+        while (j < sorted.length && sorted[j].equals(sorted[i])) {
+          j++;
+        }
+        int count = j - i;
+        sumOfSquares += (long) count * count;
+        int termId = Arrays.binarySearch(vocabulary, sorted[i]);
+        if (termId >= 0) {
+          terms[size] = termId;
+          counts[size] = count;
+          size++;
+        }
+        i = j;
+      }
+      return new TermVector(
+          Arrays.copyOf(terms, size), Arrays.copyOf(counts, size), Math.sqrt(sumOfSquares));
+    }
+
+    double cosine(int[] otherTerms, int[] otherCounts, double otherNorm) {
+      if (norm == 0 || otherNorm == 0) {
+        return 0.0;
+      }
+      long dot = 0;
+      int i = 0, j = 0;
+      while (i < terms.length && j < otherTerms.length) {
+        if (terms[i] < otherTerms[j]) {
+          i++;
+        } else if (terms[i] > otherTerms[j]) {
+          j++;
+        } else {
+          dot += (long) counts[i] * otherCounts[j];
+          i++;
+          j++;
+        }
+      }
+      return dot / (norm * otherNorm);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.database.h2.index;
+
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.Displayable;
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedCodeCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/** Holds the active {@link SnomedTerminology}; a new version replaces it in a single write. */
+@Component
+public class SnomedIndexRegistry {
+  private static final Logger log = LoggerFactory.getLogger(SnomedIndexRegistry.class);
+  private final SnomedCodeCache snomedCodeCache;
+  private volatile SnomedTerminology current = SnomedTerminology.empty();
+
+  public SnomedIndexRegistry(SnomedCodeCache snomedCodeCache) {
+    this.snomedCodeCache = snomedCodeCache;
+  }
+
+  public void publish(SnomedTerminology terminology) {
+    SnomedTerminology previous = current;
+    current = terminology;
+    snomedCodeCache.invalidateAll();
+    log.info(
+        "Activated SNOMED terminology version {} (previous {})",
+        terminology.getVersion(),
+        previous.getVersion());
+  }
+
+  public SnomedTerminology current() {
+    return current;
+  }
+
+  public <T extends Displayable> SnomedIndex<T> get(Class<T> type) {
+    return current.get(type);
+  }
+}
@@ -0,0 +1,95 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.database.h2.index;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Binary form of a fully indexed {@link SnomedTerminology}, generated at build time by the {@code
+ * snomedSnapshot} Gradle task and shipped next to the JSON files as {@code snomed.snapshot}.
+ *
+ * <p>Layout: magic, format, terminology version, then a string table holding every code, display,
+ * normalized display and vocabulary token once, then per table its entity name and the index
+ * structures written by {@link SnomedIndex}, with strings stored as ids into the string table.
+ * Reading it is a single sequential pass with no JSON parsing and no tokenizing.
+ */
+public final class SnomedSnapshot {
+  public static final String FILE_NAME = "snomed.snapshot";
+  private static final int MAGIC = 0x534e4d44;
+  private static final int FORMAT = 1;
+
+  private SnomedSnapshot() {}
+
+  public static void write(SnomedTerminology terminology, OutputStream target) throws IOException {
+    Map<String, Integer> stringIds = new LinkedHashMap<>();
+    ByteArrayOutputStream tables = new ByteArrayOutputStream();
+    DataOutputStream body = new DataOutputStream(tables);
+    body.writeInt(SnomedTable.values().length);
+    for (SnomedTable table : SnomedTable.values()) {
+      body.writeInt(intern(stringIds, table.getEntityName()));
+      terminology.get(table.getType()).writeTo(body, text -> intern(stringIds, text));
+    }
+    body.flush();
+
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT);
+    out.writeUTF(terminology.getVersion());
+    out.writeInt(stringIds.size());
+    for (String text : stringIds.keySet()) {
+      out.writeUTF(text);
+    }
+    tables.writeTo(out);
+    out.flush();
+  }
+
+  public static SnomedTerminology read(InputStream source) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(source, 1 << 16));
+    if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+      throw new IOException("Not a SNOMED snapshot of format " + FORMAT);
+    }
+    String version = in.readUTF();
+    String[] strings = new String[in.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = in.readUTF();
+    }
+    Map<Class<?>, SnomedIndex<?>> indexes = new HashMap<>();
+    int tableCount = in.readInt();
+    for (int i = 0; i < tableCount; i++) {
+      String entityName = strings[in.readInt()];
+      SnomedTable table = SnomedTable.fromEntityName(entityName);
+      if (table == null) {
+        throw new IOException("Unknown SNOMED table " + entityName + " in snapshot");
+      }
+      indexes.put(table.getType(), SnomedIndex.readFrom(in, strings, table));
+    }
+    return new SnomedTerminology(version, Instant.now(), indexes);
+  }
+
+  private static int intern(Map<String, Integer> stringIds, String text) {
+    return text == null ? -1 : stringIds.computeIfAbsent(text, k -> stringIds.size());
+  }
+
+  /**
+   * Build entry point: {@code SnomedSnapshot <json location> <output file>}.
+   *
+   * @param args the JSON location, e.g. {@code file:src/main/resources/snomed/}, and the snapshot
+   *     file to write
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      throw new IllegalArgumentException("Usage: SnomedSnapshot <json location> <output file>");
+    }
+    SnomedTerminology terminology = new SnomedTerminologyLoader().load(args[0]);
+    Path output = Path.of(args[1]);
+    Files.createDirectories(output.toAbsolutePath().getParent());
+    try (OutputStream out = Files.newOutputStream(output)) {
+      write(terminology, out);
+    }
+  }
+}
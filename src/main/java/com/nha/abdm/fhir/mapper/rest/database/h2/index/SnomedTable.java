@@ -0,0 +1,69 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.database.h2.index;
+
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.Displayable;
+import com.nha.abdm.fhir.mapper.rest.database.h2.tables.*;
+import java.util.function.BiFunction;
+
+/** The SNOMED tables: source file name, H2 table name, entity type and how to build a row. */
+public enum SnomedTable {
+  CONDITION_PROCEDURE(
+      "SnomedConditionProcedure",
+      "snomed_condition_procedure",
+      SnomedConditionProcedure.class,
+      SnomedConditionProcedure::new),
+  DIAGNOSTIC(
+      "SnomedDiagnostic", "snomed_diagnostic", SnomedDiagnostic.class, SnomedDiagnostic::new),
+  ENCOUNTER("SnomedEncounter", "snomed_encounter", SnomedEncounter.class, SnomedEncounter::new),
+  MEDICINE_ROUTE(
+      "SnomedMedicineRoute",
+      "snomed_medicine_route",
+      SnomedMedicineRoute.class,
+      SnomedMedicineRoute::new),
+  MEDICINE("SnomedMedicine", "snomed_medicine", SnomedMedicine.class, SnomedMedicine::new),
+  OBSERVATION(
+      "SnomedObservation", "snomed_observation", SnomedObservation.class, SnomedObservation::new),
+  SPECIMEN("SnomedSpecimen", "snomed_specimen", SnomedSpecimen.class, SnomedSpecimen::new),
+  VACCINE("SnomedVaccine", "snomed_vaccine", SnomedVaccine.class, SnomedVaccine::new);
+
+  private final String entityName;
+  private final String tableName;
+  private final Class<? extends Displayable> type;
+  private final BiFunction<String, String, ? extends Displayable> factory;
+
+  SnomedTable(
+      String entityName,
+      String tableName,
+      Class<? extends Displayable> type,
+      BiFunction<String, String, ? extends Displayable> factory) {
+    this.entityName = entityName;
+    this.tableName = tableName;
+    this.type = type;
+    this.factory = factory;
+  }
+
+  public static SnomedTable fromEntityName(String entityName) {
+    for (SnomedTable table : values()) {
+      if (table.entityName.equals(entityName)) {
+        return table;
+      }
+    }
+    return null;
+  }
+
+  public Displayable newRow(String code, String display) {
+    return factory.apply(code, display);
+  }
+
+  public String getEntityName() {
+    return entityName;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  public Class<? extends Displayable> getType() {
+    return type;
+  }
+}
@@ -0,0 +1,42 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.database.h2.index;
+
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.Displayable;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One immutable, fully indexed version of every SNOMED table. Lookups capture a single instance so
+ * they always see a complete version, even while a newer one is being published.
+ */
+public final class SnomedTerminology {
+  private final String version;
+  private final Instant loadedAt;
+  private final Map<Class<?>, SnomedIndex<?>> indexes;
+
+  public SnomedTerminology(
+      String version, Instant loadedAt, Map<Class<?>, SnomedIndex<?>> indexes) {
+    this.version = version;
+    this.loadedAt = loadedAt;
+    this.indexes = Map.copyOf(indexes);
+  }
+
+  public static SnomedTerminology empty() {
+    return new SnomedTerminology(null, null, Collections.emptyMap());
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T extends Displayable> SnomedIndex<T> get(Class<T> type) {
+    SnomedIndex<T> index = (SnomedIndex<T>) indexes.get(type);
+    return index != null ? index : SnomedIndex.empty();
+  }
+
+  public String getVersion() {
+    return version;
+  }
+
+  public Instant getLoadedAt() {
+    return loadedAt;
+  }
+}
@@ -0,0 +1,177 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.database.h2.index;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.nha.abdm.fhir.mapper.rest.database.h2.services.Displayable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the SNOMED JSON files of a location into a fully indexed {@link SnomedTerminology}. The
+ * version is derived from the file contents, so reloading unchanged files yields the same version.
+ *
+ * <p>Files are streamed token by token straight into entities and the tables are parsed and indexed
+ * in parallel. A code listed twice keeps its first position and its last display, as the previous
+ * {@code saveAll} merge did.
+ */
+@Component
+public class SnomedTerminologyLoader {
+  private static final Logger log = LoggerFactory.getLogger(SnomedTerminologyLoader.class);
+
+  private final JsonFactory jsonFactory = new JsonFactory();
+  private final PathMatchingResourcePatternResolver resolver =
+      new PathMatchingResourcePatternResolver();
+
+  /**
+   * @param location directory holding the {@code Snomed*.json} files, e.g. {@code
+   *     classpath:/snomed/} or {@code file:/opt/snomed/}
+   * @return the indexed terminology
+   * @throws IOException when a file cannot be read or parsed
+   */
+  public SnomedTerminology load(String location) throws IOException {
+    long start = System.nanoTime();
+    Resource[] resources = resolver.getResources(withTrailingSlash(location) + "*.json");
+    if (resources.length == 0) {
+      throw new IllegalStateException("No JSON files found in the SNOMED location " + location);
+    }
+    Arrays.sort(resources, Comparator.comparing(Resource::getFilename));
+
+    List<LoadedTable> loaded;
+    try {
+      loaded = Arrays.stream(resources).parallel().map(this::loadTable).toList();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    MessageDigest digest = sha256();
+    Map<Class<?>, SnomedIndex<?>> indexes = new HashMap<>();
+    for (LoadedTable table : loaded) {
+      if (table == null) {
+        continue;
+      }
+      digest.update(table.table.getEntityName().getBytes());
+      digest.update(table.digest);
+      indexes.put(table.table.getType(), table.index);
+    }
+    String version = HexFormat.of().formatHex(digest.digest(), 0, 6);
+    log.info(
+        "Indexed SNOMED terminology version {} in {} ms",
+        version,
+        (System.nanoTime() - start) / 1_000_000);
+    return new SnomedTerminology(version, Instant.now(), indexes);
+  }
+
+  /**
+   * Startup variant of {@link #load(String)}: a {@code classpath:} location that ships a build-time
+   * {@link SnomedSnapshot} is read from the snapshot, anything else from its JSON files. Snapshots
+   * in {@code file:} locations are ignored because nothing keeps them in step with the JSON.
+   *
+   * @param location directory holding the {@code Snomed*.json} files
+   * @return the indexed terminology
+   * @throws IOException when the snapshot or a file cannot be read or parsed
+   */
+  public SnomedTerminology loadForStartup(String location) throws IOException {
+    if (location.startsWith("classpath")) {
+      Resource snapshot =
+          resolver.getResource(withTrailingSlash(location) + SnomedSnapshot.FILE_NAME);
+      if (snapshot.exists()) {
+        long start = System.nanoTime();
+        SnomedTerminology terminology;
+        try (InputStream in = snapshot.getInputStream()) {
+          terminology = SnomedSnapshot.read(in);
+        }
+        log.info(
+            "Read SNOMED terminology version {} from {} in {} ms",
+            terminology.getVersion(),
+            snapshot.getDescription(),
+            (System.nanoTime() - start) / 1_000_000);
+        return terminology;
+      }
+      log.info("No SNOMED snapshot in {}, indexing the JSON files", location);
+    }
+    return load(location);
+  }
+
+  private LoadedTable loadTable(Resource resource) {
+    String entityName = Objects.requireNonNull(resource.getFilename()).replace(".json", "");
+    SnomedTable table = SnomedTable.fromEntityName(entityName);
+    if (table == null) {
+      log.info("No SNOMED table found for {}", entityName);
+      return null;
+    }
+    try {
+      long start = System.nanoTime();
+      MessageDigest digest = sha256();
+      Collection<Displayable> rows;
+      try (InputStream in = new DigestInputStream(resource.getInputStream(), digest)) {
+        rows = readRows(table, in);
+      }
+      long parsed = System.nanoTime();
+      SnomedIndex<Displayable> index = SnomedIndex.build(new ArrayList<>(rows));
+      long indexed = System.nanoTime();
+      log.info(
+          "Indexed {} records of {} (parse {} ms, index {} ms)",
+          index.size(),
+          entityName,
+          (parsed - start) / 1_000_000,
+          (indexed - parsed) / 1_000_000);
+      return new LoadedTable(table, digest.digest(), index);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read " + resource.getDescription(), e);
+    }
+  }
+
+  /** Streams an array of {@code {"code": ..., "display": ...}} objects, ignoring other fields. */
+  private Collection<Displayable> readRows(SnomedTable table, InputStream in) throws IOException {
+    Map<String, Displayable> rows = new LinkedHashMap<>();
+    try (JsonParser parser = jsonFactory.createParser(in)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IOException("Expected a JSON array of " + table.getEntityName() + " records");
+      }
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        String code = null;
+        String display = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String field = parser.currentName();
+          parser.nextToken();
+          if ("code".equals(field)) {
+            code = parser.getValueAsString();
+          } else if ("display".equals(field)) {
+            display = parser.getValueAsString();
+          } else {
+            parser.skipChildren();
+          }
+        }
+        rows.put(code, table.newRow(code, display));
+      }
+    }
+    return rows.values();
+  }
+
+  private static String withTrailingSlash(String location) {
+    return location.endsWith("/") ? location : location + "/";
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private record LoadedTable(SnomedTable table, byte[] digest, SnomedIndex<Displayable> index) {}
+}
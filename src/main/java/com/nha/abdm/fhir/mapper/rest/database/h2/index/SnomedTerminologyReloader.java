@@ -0,0 +1,168 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.database.h2.index;
+
+import com.nha.abdm.fhir.mapper.rest.database.h2.config.DbLoader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.stereotype.Component;
+
+/**
+ * Loads a new SNOMED terminology version off the request path and activates it once it is fully
+ * indexed and persisted. Reloads run one at a time on a dedicated thread; a request that arrives
+ * while one is running is rejected. When the location is a {@code file:} directory and watching is
+ * enabled, changes to its JSON files trigger a reload after a quiet period, and changes seen during
+ * a running reload trigger one more when it finishes.
+ */
+@Component
+public class SnomedTerminologyReloader {
+  private static final Logger log = LoggerFactory.getLogger(SnomedTerminologyReloader.class);
+
+  private final SnomedTerminologyLoader snomedTerminologyLoader;
+  private final SnomedIndexRegistry snomedIndexRegistry;
+  private final DbLoader dbLoader;
+  private final String location;
+  private final boolean watch;
+  private final Duration watchQuietPeriod;
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final AtomicBoolean pending = new AtomicBoolean();
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "snomed-reload");
+            thread.setDaemon(true);
+            return thread;
+          });
+  private Thread watcher;
+
+  public SnomedTerminologyReloader(
+      SnomedTerminologyLoader snomedTerminologyLoader,
+      SnomedIndexRegistry snomedIndexRegistry,
+      DbLoader dbLoader,
+      @Value("${snomed.terminology.location:classpath:/snomed/}") String location,
+      @Value("${snomed.terminology.watch:false}") boolean watch,
+      @Value("${snomed.terminology.watch-quiet-period:2s}") Duration watchQuietPeriod) {
+    this.snomedTerminologyLoader = snomedTerminologyLoader;
+    this.snomedIndexRegistry = snomedIndexRegistry;
+    this.dbLoader = dbLoader;
+    this.location = location;
+    this.watch = watch;
+    this.watchQuietPeriod = watchQuietPeriod;
+  }
+
+  /**
+   * Starts a background reload from the configured location.
+   *
+   * @return false when a reload is already in progress
+   */
+  public boolean requestReload() {
+    if (!running.compareAndSet(false, true)) {
+      return false;
+    }
+    executor.execute(
+        () -> {
+          try {
+            pending.set(false);
+            reload();
+          } finally {
+            running.set(false);
+            if (pending.get()) {
+              requestReload();
+            }
+          }
+        });
+    return true;
+  }
+
+  public boolean isReloading() {
+    return running.get();
+  }
+
+  private void reload() {
+    try {
+      SnomedTerminology terminology = snomedTerminologyLoader.load(location);
+      if (Objects.equals(terminology.getVersion(), snomedIndexRegistry.current().getVersion())) {
+        log.info("SNOMED terminology version {} is already active", terminology.getVersion());
+        return;
+      }
+      dbLoader.replaceData(terminology);
+      snomedIndexRegistry.publish(terminology);
+    } catch (Exception e) {
+      log.error(
+          "SNOMED terminology reload from {} failed, keeping the active version", location, e);
+    }
+  }
+
+  @PostConstruct
+  public void startWatcher() throws IOException {
+    if (!watch) {
+      return;
+    }
+    if (!location.startsWith("file:")) {
+      log.warn("snomed.terminology.watch needs a file: location, {} is not watched", location);
+      return;
+    }
+    Path directory = new DefaultResourceLoader().getResource(location).getFile().toPath();
+    WatchService watchService = directory.getFileSystem().newWatchService();
+    directory.register(
+        watchService,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY,
+        StandardWatchEventKinds.ENTRY_DELETE);
+    watcher = new Thread(() -> watch(watchService), "snomed-watch");
+    watcher.setDaemon(true);
+    watcher.start();
+    log.info("Watching {} for SNOMED terminology changes", directory);
+  }
+
+  private void watch(WatchService watchService) {
+    try (watchService) {
+      while (!Thread.currentThread().isInterrupted()) {
+        WatchKey key = watchService.take();
+        boolean changed = drainJsonEvents(key);
+        // Wait until the directory has been quiet for a while so a multi-file copy loads once.
+        WatchKey next;
+        while ((next = watchService.poll(watchQuietPeriod.toMillis(), TimeUnit.MILLISECONDS))
+            != null) {
+          changed |= drainJsonEvents(next);
+        }
+        if (changed) {
+          pending.set(true);
+          requestReload();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | ClosedWatchServiceException e) {
+      log.warn("Stopped watching the SNOMED terminology location", e);
+    }
+  }
+
+  private static boolean drainJsonEvents(WatchKey key) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      changed |= event.context() != null && event.context().toString().endsWith(".json");
+    }
+    key.reset();
+    return changed;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (watcher != null) {
+      watcher.interrupt();
+    }
+    executor.shutdownNow();
+  }
+}
@@ -2,5 +2,9 @@
 package com.nha.abdm.fhir.mapper.rest.database.h2.services;
 
 public interface Displayable {
+  String getCode();
+
   String getDisplay();
+
+  String getType();
 }
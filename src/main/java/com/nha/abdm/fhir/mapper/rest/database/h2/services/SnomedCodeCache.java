@@ -0,0 +1,78 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.database.h2.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.SnomedCacheStats;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedIndex;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of resolved SNOMED matches keyed by the table's index and the normalized display.
+ * Misses are cached as well so unknown terms don't re-run the match. Since the key holds the index
+ * instance, entries computed against a replaced index can never be served again.
+ *
+ * <p>A miss runs the match outside the cache, not in a computing {@code get}, which would run it
+ * under a lock of the cache's map: on virtual threads, a lookup waiting for that lock pins its
+ * carrier thread. Concurrent misses on one term may therefore both run the match; the first result
+ * stored is the one kept.
+ */
+@Component
+public class SnomedCodeCache {
+  private final boolean enabled;
+  private final Cache<Key, Optional<Displayable>> cache;
+
+  public SnomedCodeCache(
+      @Value("${snomed.cache.enabled:true}") boolean enabled,
+      @Value("${snomed.cache.maximum-size:10000}") long maximumSize,
+      @Value("${snomed.cache.expire-after-access:1h}") Duration expireAfterAccess) {
+    this.enabled = enabled;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterAccess(expireAfterAccess)
+            .recordStats()
+            .build();
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T extends Displayable> T get(
+      SnomedIndex<T> index, String display, Function<String, T> matcher) {
+    if (!enabled) {
+      return matcher.apply(display);
+    }
+    Key key = new Key(index, SnomedIndex.normalize(display));
+    Optional<Displayable> match = cache.getIfPresent(key);
+    if (match == null) {
+      match = Optional.ofNullable(matcher.apply(display));
+      Optional<Displayable> stored = cache.asMap().putIfAbsent(key, match);
+      if (stored != null) {
+        match = stored;
+      }
+    }
+    return (T) match.orElse(null);
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  public SnomedCacheStats getStats() {
+    CacheStats stats = cache.stats();
+    return SnomedCacheStats.builder()
+        .enabled(enabled)
+        .size(cache.estimatedSize())
+        .hitCount(stats.hitCount())
+        .missCount(stats.missCount())
+        .evictionCount(stats.evictionCount())
+        .hitRate(stats.hitRate())
+        .build();
+  }
+
+  private record Key(SnomedIndex<?> index, String display) {}
+}
@@ -3,52 +3,34 @@ package com.nha.abdm.fhir.mapper.rest.database.h2.services;
 
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleFieldIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.SnomedCodeIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.SnomedCacheStats;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.SnomedResponse;
-import com.nha.abdm.fhir.mapper.rest.database.h2.repositories.*;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedIndex;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedIndexRegistry;
+import com.nha.abdm.fhir.mapper.rest.database.h2.index.SnomedTerminology;
 import com.nha.abdm.fhir.mapper.rest.database.h2.tables.*;
+import com.nha.abdm.fhir.mapper.rest.metrics.ConversionMetrics;
 import java.util.*;
-import java.util.stream.Collectors;
-import org.apache.commons.text.similarity.CosineSimilarity;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
 public class SnomedService {
-  @Autowired private final SnomedMedicineRepo snomedMedicineRepo;
-  @Autowired private final SnomedConditionProcedureRepo snomedConditionProcedureRepo;
-  @Autowired private final SnomedEncounterRepo snomedEncounterRepo;
-  @Autowired private final SnomedSpecimenRepo snomedSpecimenRepo;
-  @Autowired private final SnomedObservationRepo snomedObservationRepo;
-  @Autowired private final SnomedVaccineRepo snomedVaccineRepo;
-  @Autowired private final SnomedDiagnosticRepo snomedDiagnosticRepo;
-  @Autowired private final SnomedMedicineRouteRepo snomedMedicineRouteRepo;
+  @Autowired private final SnomedIndexRegistry snomedIndexRegistry;
+  @Autowired private final SnomedCodeCache snomedCodeCache;
+  private final ConversionMetrics conversionMetrics;
 
   public SnomedService(
-      SnomedMedicineRepo snomedMedicineRepo,
-      SnomedConditionProcedureRepo snomedConditionProcedureRepo,
-      SnomedEncounterRepo snomedEncounterRepo,
-      SnomedSpecimenRepo snomedSpecimenRepo,
-      SnomedObservationRepo snomedObservationRepo,
-      SnomedVaccineRepo snomedVaccineRepo,
-      SnomedDiagnosticRepo snomedDiagnosticRepo,
-      SnomedMedicineRouteRepo snomedMedicineRouteRepo) {
-    this.snomedMedicineRepo = snomedMedicineRepo;
-    this.snomedConditionProcedureRepo = snomedConditionProcedureRepo;
-    this.snomedEncounterRepo = snomedEncounterRepo;
-    this.snomedSpecimenRepo = snomedSpecimenRepo;
-    this.snomedObservationRepo = snomedObservationRepo;
-    this.snomedVaccineRepo = snomedVaccineRepo;
-    this.snomedDiagnosticRepo = snomedDiagnosticRepo;
-    this.snomedMedicineRouteRepo = snomedMedicineRouteRepo;
+      SnomedIndexRegistry snomedIndexRegistry,
+      SnomedCodeCache snomedCodeCache,
+      ConversionMetrics conversionMetrics) {
+    this.snomedIndexRegistry = snomedIndexRegistry;
+    this.snomedCodeCache = snomedCodeCache;
+    this.conversionMetrics = conversionMetrics;
   }
 
   public SnomedConditionProcedure getConditionProcedureCode(String display) {
-    SnomedConditionProcedure snomedCode =
-        (SnomedConditionProcedure)
-            fuzzyMatch(
-                snomedConditionProcedureRepo.findByDisplay(display),
-                display,
-                SnomedConditionProcedure.class);
+    SnomedConditionProcedure snomedCode = fuzzyMatch(SnomedConditionProcedure.class, display);
     return snomedCode == null
         ? SnomedConditionProcedure.builder()
             .code(SnomedCodeIdentifier.SNOMED_UNKNOWN)
@@ -58,14 +40,11 @@ public class SnomedService {
   }
 
   public List<SnomedConditionProcedure> getAllConditionProcedureCode() {
-    return snomedConditionProcedureRepo.findAll();
+    return snomedIndexRegistry.get(SnomedConditionProcedure.class).findAll();
   }
 
   public SnomedDiagnostic getSnomedDiagnosticCode(String display) {
-    SnomedDiagnostic snomedCode =
-        (SnomedDiagnostic)
-            fuzzyMatch(
-                snomedDiagnosticRepo.findByDisplay(display), display, SnomedDiagnostic.class);
+    SnomedDiagnostic snomedCode = fuzzyMatch(SnomedDiagnostic.class, display);
     return snomedCode != null
         ? snomedCode
         : SnomedDiagnostic.builder()
@@ -75,7 +54,7 @@ public class SnomedService {
   }
 
   public List<SnomedDiagnostic> getAllSnomedDiagnosticCode() {
-    return snomedDiagnosticRepo.findAll();
+    return snomedIndexRegistry.get(SnomedDiagnostic.class).findAll();
   }
 
   public SnomedEncounter getSnomedEncounterCode(String display) {
@@ -85,9 +64,7 @@ public class SnomedService {
           .display(BundleFieldIdentifier.AMBULATORY)
           .build();
     }
-    SnomedEncounter snomedCode =
-        (SnomedEncounter)
-            fuzzyMatch(snomedEncounterRepo.findByDisplay(display), display, SnomedEncounter.class);
+    SnomedEncounter snomedCode = fuzzyMatch(SnomedEncounter.class, display);
     return snomedCode != null
         ? snomedCode
         : SnomedEncounter.builder()
@@ -97,13 +74,11 @@ public class SnomedService {
   }
 
   public List<SnomedEncounter> getAllSnomedEncounterCode() {
-    return snomedEncounterRepo.findAll();
+    return snomedIndexRegistry.get(SnomedEncounter.class).findAll();
   }
 
   public SnomedMedicine getSnomedMedicineCode(String display) {
-    SnomedMedicine snomedCode =
-        (SnomedMedicine)
-            fuzzyMatch(snomedMedicineRepo.findByDisplay(display), display, SnomedMedicine.class);
+    SnomedMedicine snomedCode = fuzzyMatch(SnomedMedicine.class, display);
     return snomedCode != null
         ? snomedCode
         : SnomedMedicine.builder()
@@ -113,14 +88,11 @@ public class SnomedService {
   }
 
   public List<SnomedMedicine> getAllSnomedMedicineCode() {
-    return snomedMedicineRepo.findAll();
+    return snomedIndexRegistry.get(SnomedMedicine.class).findAll();
   }
 
   public SnomedObservation getSnomedObservationCode(String display) {
-    SnomedObservation snomedObservation =
-        (SnomedObservation)
-            fuzzyMatch(
-                snomedObservationRepo.findByDisplay(display), display, SnomedObservation.class);
+    SnomedObservation snomedObservation = fuzzyMatch(SnomedObservation.class, display);
     return snomedObservation != null
         ? snomedObservation
         : SnomedObservation.builder()
@@ -130,13 +102,11 @@ public class SnomedService {
   }
 
   public List<SnomedObservation> getAllSnomedObservationCode() {
-    return snomedObservationRepo.findAll();
+    return snomedIndexRegistry.get(SnomedObservation.class).findAll();
   }
 
   public SnomedSpecimen getSnomedSpecimenCode(String display) {
-    SnomedSpecimen snomedCode =
-        (SnomedSpecimen)
-            fuzzyMatch(snomedSpecimenRepo.findByDisplay(display), display, SnomedSpecimen.class);
+    SnomedSpecimen snomedCode = fuzzyMatch(SnomedSpecimen.class, display);
     return snomedCode != null
         ? snomedCode
         : SnomedSpecimen.builder()
@@ -146,13 +116,11 @@ public class SnomedService {
   }
 
   public List<SnomedSpecimen> getAllSnomedSpecimenCode() {
-    return snomedSpecimenRepo.findAll();
+    return snomedIndexRegistry.get(SnomedSpecimen.class).findAll();
   }
 
   public SnomedVaccine getSnomedVaccineCode(String display) {
-    SnomedVaccine snomedCode =
-        (SnomedVaccine)
-            fuzzyMatch(snomedVaccineRepo.findByDisplay(display), display, SnomedVaccine.class);
+    SnomedVaccine snomedCode = fuzzyMatch(SnomedVaccine.class, display);
     return snomedCode != null
         ? snomedCode
         : SnomedVaccine.builder()
@@ -162,14 +130,11 @@ public class SnomedService {
   }
 
   public List<SnomedVaccine> getAllSnomedVaccineCode() {
-    return snomedVaccineRepo.findAll();
+    return snomedIndexRegistry.get(SnomedVaccine.class).findAll();
   }
 
   public SnomedMedicineRoute getSnomedMedicineRouteCode(String display) {
-    SnomedMedicineRoute snomedCode =
-        (SnomedMedicineRoute)
-            fuzzyMatch(
-                snomedMedicineRouteRepo.findByDisplay(display), display, SnomedMedicineRoute.class);
+    SnomedMedicineRoute snomedCode = fuzzyMatch(SnomedMedicineRoute.class, display);
     return snomedCode != null
         ? snomedCode
         : SnomedMedicineRoute.builder()
@@ -179,92 +144,62 @@ public class SnomedService {
   }
 
   public List<SnomedMedicineRoute> getAllSnomedMedicineRouteCode() {
-    return snomedMedicineRouteRepo.findAll();
+    return snomedIndexRegistry.get(SnomedMedicineRoute.class).findAll();
   }
 
   public SnomedResponse getSnomedCodes(String resource) {
+    SnomedTerminology terminology = snomedIndexRegistry.current();
+    SnomedResponse.SnomedResponseBuilder response =
+        SnomedResponse.builder().terminologyVersion(terminology.getVersion());
     if (resource.equalsIgnoreCase(SnomedCodeIdentifier.SNOMED_CONDITION)
         || resource.equalsIgnoreCase(SnomedCodeIdentifier.SNOMED_PROCEDURE)) {
-      return SnomedResponse.builder()
-          .snomedConditionProcedureCodes(getAllConditionProcedureCode())
+      return response
+          .snomedConditionProcedureCodes(terminology.get(SnomedConditionProcedure.class).findAll())
           .build();
     }
     if (resource.equalsIgnoreCase(SnomedCodeIdentifier.SNOMED_DIAGNOSTICS)) {
-      return SnomedResponse.builder().snomedDiagnosticCodes(getAllSnomedDiagnosticCode()).build();
+      return response
+          .snomedDiagnosticCodes(terminology.get(SnomedDiagnostic.class).findAll())
+          .build();
     }
     if (resource.equalsIgnoreCase(SnomedCodeIdentifier.SNOMED_ENCOUNTER)) {
-      return SnomedResponse.builder().snomedEncounterCodes(getAllSnomedEncounterCode()).build();
+      return response
+          .snomedEncounterCodes(terminology.get(SnomedEncounter.class).findAll())
+          .build();
     }
     if (resource.equalsIgnoreCase(SnomedCodeIdentifier.SNOMED_MEDICATION_ROUTE)) {
-      return SnomedResponse.builder()
-          .snomedMedicineRouteCodes(getAllSnomedMedicineRouteCode())
+      return response
+          .snomedMedicineRouteCodes(terminology.get(SnomedMedicineRoute.class).findAll())
           .build();
     }
     if (resource.equalsIgnoreCase(SnomedCodeIdentifier.SNOMED_MEDICATIONS)) {
-      return SnomedResponse.builder().snomedMedicineCodes(getAllSnomedMedicineCode()).build();
+      return response.snomedMedicineCodes(terminology.get(SnomedMedicine.class).findAll()).build();
     }
     if (resource.equalsIgnoreCase(SnomedCodeIdentifier.SNOMED_OBSERVATIONS)) {
-      return SnomedResponse.builder().snomedObservationCodes(getAllSnomedObservationCode()).build();
+      return response
+          .snomedObservationCodes(terminology.get(SnomedObservation.class).findAll())
+          .build();
     }
     if (resource.equalsIgnoreCase(SnomedCodeIdentifier.SNOMED_SPECIMEN)) {
-      return SnomedResponse.builder().snomedSpecimenCodes(getAllSnomedSpecimenCode()).build();
+      return response.snomedSpecimenCodes(terminology.get(SnomedSpecimen.class).findAll()).build();
     }
     if (resource.equalsIgnoreCase(SnomedCodeIdentifier.SNOMED_VACCINES)) {
-      return SnomedResponse.builder().snomedVaccineCodes(getAllSnomedVaccineCode()).build();
+      return response.snomedVaccineCodes(terminology.get(SnomedVaccine.class).findAll()).build();
     }
     return null;
   }
 
-  private static boolean hasValidWordDifference(String input, String display) {
-    if (input == null || display == null) return false;
-    int inputWordCount = countWords(input);
-    int displayWordCount = countWords(display);
-
-    return inputWordCount >= 1 && displayWordCount <= inputWordCount + 2;
-  }
-
-  // Count words in a string
-  private static int countWords(String text) {
-    if (text == null || text.trim().isEmpty()) return 0;
-    return text.trim().split("\\s+").length;
+  public String getTerminologyVersion() {
+    return snomedIndexRegistry.current().getVersion();
   }
 
-  private static Map<CharSequence, Integer> createFrequencyMap(String text) {
-    String[] tokens = text.toLowerCase().split("\\s+");
-    Map<CharSequence, Integer> frequencyMap = new HashMap<>();
-
-    for (String token : tokens) {
-      frequencyMap.put(token, frequencyMap.getOrDefault(token, 0) + 1);
-    }
-    return frequencyMap;
+  public SnomedCacheStats getCacheStats() {
+    return snomedCodeCache.getStats();
   }
 
-  public static <T extends Displayable> Object fuzzyMatch(
-      List<T> list, String input, Class<T> type) {
-    CosineSimilarity cosineSimilarity = new CosineSimilarity();
-
-    Map<Object, Double> scoreMap =
-        list.stream()
-            .filter(type::isInstance)
-            .map(type::cast)
-            .filter(
-                obj ->
-                    hasValidWordDifference(
-                        input,
-                        obj.getDisplay())) // filtering the difference in words not more the input
-            // +=2
-            .collect(
-                Collectors.toMap(
-                    obj -> obj,
-                    obj -> {
-                      Map<CharSequence, Integer> inputMap = createFrequencyMap(input);
-                      Map<CharSequence, Integer> displayMap = createFrequencyMap(obj.getDisplay());
-                      return cosineSimilarity.cosineSimilarity(inputMap, displayMap);
-                    }));
-
-    return scoreMap.entrySet().stream()
-        .max(Map.Entry.comparingByValue())
-        .map(Map.Entry::getKey)
-        .orElse(null);
+  private <T extends Displayable> T fuzzyMatch(Class<T> type, String display) {
+    SnomedIndex<T> index = snomedIndexRegistry.get(type);
+    return conversionMetrics.timeSnomedLookup(
+        type.getSimpleName(), () -> snomedCodeCache.get(index, display, index::bestMatch));
   }
 }
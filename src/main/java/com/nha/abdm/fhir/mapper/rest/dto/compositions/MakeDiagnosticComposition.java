@@ -1,15 +1,15 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.dto.compositions;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Service;
 
@@ -17,9 +17,7 @@ import org.springframework.stereotype.Service;
 public class MakeDiagnosticComposition {
 
   public Composition makeCompositionResource(
-      Patient patient,
-      String authoredOn,
-      List<Practitioner> practitionerList,
+      ConversionContext context,
       Organization organization,
       Encounter encounter,
       List<DiagnosticReport> diagnosticReportList,
@@ -29,10 +27,8 @@ public class MakeDiagnosticComposition {
     Composition composition = new Composition();
 
     // META
-    Meta meta = new Meta();
-    meta.setVersionId("1");
-    meta.setLastUpdatedElement(Utils.getCurrentTimeStamp());
-    meta.addProfile(ResourceProfileIdentifier.PROFILE_DIAGNOSTIC_REPORT);
+    Meta meta =
+        FhirFragments.versionedMeta(context, ResourceProfileIdentifier.PROFILE_DIAGNOSTIC_REPORT);
     composition.setMeta(meta);
 
     // TYPE — TEXT ONLY (NO CODING)
@@ -71,14 +67,7 @@ public class MakeDiagnosticComposition {
     }
 
     // AUTHORS
-    List<Reference> authorList = new ArrayList<>();
-    for (Practitioner practitioner : practitionerList) {
-      HumanName name = practitioner.getName().get(0);
-      authorList.add(
-          new Reference()
-              .setReference(BundleResourceIdentifier.PRACTITIONER + "/" + practitioner.getId())
-              .setDisplay(name.getText()));
-    }
+    List<Reference> authorList = new ArrayList<>(context.getPractitionerReferences());
     composition.setAuthor(authorList);
 
     // CUSTODIAN
@@ -97,14 +86,10 @@ public class MakeDiagnosticComposition {
     }
 
     // SUBJECT (PATIENT)
-    HumanName patientName = patient.getName().get(0);
-    composition.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(patientName.getText()));
+    composition.setSubject(context.getPatientReference());
 
     // DATE
-    composition.setDateElement(Utils.getFormattedDateTime(authoredOn));
+    composition.setDateElement(context.getVisitDate());
 
     // STATUS
     composition.setStatus(Composition.CompositionStatus.FINAL);
@@ -112,10 +97,10 @@ public class MakeDiagnosticComposition {
     // IDENTIFIER
     Identifier identifier = new Identifier();
     identifier.setSystem(BundleUrlIdentifier.WRAPPER_URL);
-    identifier.setValue(UUID.randomUUID().toString());
+    identifier.setValue(context.newId());
     composition.setIdentifier(identifier);
 
-    composition.setId(UUID.randomUUID().toString());
+    composition.setId(context.newId());
 
     return composition;
   }
@@ -1,14 +1,13 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.dto.compositions;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Service;
 
@@ -16,10 +15,8 @@ import org.springframework.stereotype.Service;
 public class MakeDischargeComposition {
 
   public Composition makeDischargeCompositionResource(
-      Patient patient,
-      String authoredOn,
+      ConversionContext context,
       Encounter encounter,
-      List<Practitioner> practitionerList,
       Organization organization,
       List<Condition> chiefComplaintList,
       List<Observation> physicalObservationList,
@@ -36,7 +33,7 @@ public class MakeDischargeComposition {
       throws ParseException {
 
     Composition composition = new Composition();
-    composition.setId(UUID.randomUUID().toString());
+    composition.setId(context.newId());
     composition.setStatus(Composition.CompositionStatus.FINAL);
 
     // --- Composition Type: Discharge Summary (MANDATORY) ---
@@ -52,11 +49,7 @@ public class MakeDischargeComposition {
     composition.setTitle(BundleCompositionIdentifier.DISCHARGE_SUMMARY);
 
     // --- Subject ---
-    HumanName pName = patient.getNameFirstRep();
-    composition.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(pName != null ? pName.getText() : null));
+    composition.setSubject(context.getPatientReference());
 
     // --- Encounter ---
     composition.setEncounter(
@@ -69,17 +62,10 @@ public class MakeDischargeComposition {
             .setDisplay(organization.getName()));
 
     // --- Author List ---
-    List<Reference> authorList = new ArrayList<>();
-    for (Practitioner practitioner : practitionerList) {
-      HumanName prName = practitioner.getNameFirstRep();
-      authorList.add(
-          new Reference()
-              .setReference(BundleResourceIdentifier.PRACTITIONER + "/" + practitioner.getId())
-              .setDisplay(prName != null ? prName.getText() : null));
-    }
+    List<Reference> authorList = new ArrayList<>(context.getPractitionerReferences());
     composition.setAuthor(authorList);
 
-    composition.setDateElement(Utils.getFormattedDateTime(authoredOn));
+    composition.setDateElement(context.getVisitDate());
 
     // --- Sections ---
     List<Composition.SectionComponent> sections =
@@ -101,9 +87,7 @@ public class MakeDischargeComposition {
 
     // Identifier
     composition.setIdentifier(
-        new Identifier()
-            .setSystem(BundleUrlIdentifier.WRAPPER_URL)
-            .setValue(UUID.randomUUID().toString()));
+        new Identifier().setSystem(BundleUrlIdentifier.WRAPPER_URL).setValue(context.newId()));
 
     return composition;
   }
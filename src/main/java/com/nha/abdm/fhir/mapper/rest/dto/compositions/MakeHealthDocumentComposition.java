@@ -1,15 +1,15 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.dto.compositions;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Service;
 
@@ -17,9 +17,7 @@ import org.springframework.stereotype.Service;
 public class MakeHealthDocumentComposition {
 
   public Composition makeCompositionResource(
-      Patient patient,
-      String authoredOn,
-      List<Practitioner> practitionerList,
+      ConversionContext context,
       Organization organization,
       Encounter encounter,
       List<DocumentReference> documentReferenceList)
@@ -27,10 +25,9 @@ public class MakeHealthDocumentComposition {
 
     Composition composition = new Composition();
 
-    Meta meta = new Meta();
-    meta.setVersionId("1");
-    meta.setLastUpdatedElement(Utils.getCurrentTimeStamp());
-    meta.addProfile(ResourceProfileIdentifier.PROFILE_HEALTH_DOCUMENT_RECORD);
+    Meta meta =
+        FhirFragments.versionedMeta(
+            context, ResourceProfileIdentifier.PROFILE_HEALTH_DOCUMENT_RECORD);
     composition.setMeta(meta);
 
     composition.setType(new CodeableConcept().setText(BundleCompositionIdentifier.RECORD_ARTIFACT));
@@ -54,14 +51,7 @@ public class MakeHealthDocumentComposition {
               .setReference(BundleResourceIdentifier.ENCOUNTER + "/" + encounter.getId()));
     }
 
-    List<Reference> authorList = new ArrayList<>();
-    for (Practitioner practitioner : practitionerList) {
-      HumanName pName = practitioner.getName().get(0);
-      authorList.add(
-          new Reference()
-              .setReference(BundleResourceIdentifier.PRACTITIONER + "/" + practitioner.getId())
-              .setDisplay(pName.getText()));
-    }
+    List<Reference> authorList = new ArrayList<>(context.getPractitionerReferences());
     composition.setAuthor(authorList);
 
     if (organization != null) {
@@ -71,21 +61,17 @@ public class MakeHealthDocumentComposition {
               .setDisplay(organization.getName()));
     }
 
-    HumanName patientName = patient.getName().get(0);
-    composition.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(patientName.getText()));
+    composition.setSubject(context.getPatientReference());
 
-    composition.setDateElement(Utils.getFormattedDateTime(authoredOn));
+    composition.setDateElement(context.getVisitDate());
     composition.setStatus(Composition.CompositionStatus.FINAL);
 
     Identifier identifier = new Identifier();
     identifier.setSystem(BundleUrlIdentifier.WRAPPER_URL);
-    identifier.setValue(UUID.randomUUID().toString());
+    identifier.setValue(context.newId());
     composition.setIdentifier(identifier);
 
-    composition.setId(UUID.randomUUID().toString());
+    composition.setId(context.newId());
 
     return composition;
   }
@@ -1,14 +1,15 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.dto.compositions;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Service;
 
@@ -16,20 +17,16 @@ import org.springframework.stereotype.Service;
 public class MakeImmunizationComposition {
 
   public Composition makeCompositionResource(
-      Patient patient,
-      List<Practitioner> practitionerList,
+      ConversionContext context,
       Organization organization,
-      String authoredOn,
       List<Immunization> immunizationList,
       List<DocumentReference> documentList,
       Encounter encounter)
       throws ParseException {
 
     Composition composition = new Composition();
-    Meta meta = new Meta();
-    meta.setVersionId("1");
-    meta.setLastUpdatedElement(Utils.getCurrentTimeStamp());
-    meta.addProfile("https://nrces.in/ndhm/fhir/r4/StructureDefinition/ImmunizationRecord");
+    Meta meta =
+        FhirFragments.versionedMeta(context, ResourceProfileIdentifier.PROFILE_IMMUNIZATION_RECORD);
     composition.setMeta(meta);
 
     // FIX 1: Add both coding and text for Composition type (required by profile)
@@ -49,23 +46,12 @@ public class MakeImmunizationComposition {
               .setReference(BundleResourceIdentifier.ORGANISATION + "/" + organization.getId()));
     }
 
-    List<Reference> authorList = new ArrayList<>();
-    for (Practitioner practitioner : practitionerList) {
-      HumanName name = practitioner.getName().get(0);
-      authorList.add(
-          new Reference()
-              .setReference(BundleResourceIdentifier.PRACTITIONER + "/" + practitioner.getId())
-              .setDisplay(name.getText()));
-    }
+    List<Reference> authorList = new ArrayList<>(context.getPractitionerReferences());
     composition.setAuthor(authorList);
 
-    HumanName patientName = patient.getName().get(0);
-    composition.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(patientName.getText()));
+    composition.setSubject(context.getPatientReference());
 
-    composition.setDateElement(Utils.getFormattedDateTime(authoredOn));
+    composition.setDateElement(context.getVisitDate());
 
     Composition.SectionComponent immunizationSection = new Composition.SectionComponent();
     immunizationSection.setTitle(BundleCompositionIdentifier.IMMUNIZATION_RECORD);
@@ -101,10 +87,10 @@ public class MakeImmunizationComposition {
 
     Identifier identifier = new Identifier();
     identifier.setSystem(BundleUrlIdentifier.WRAPPER_URL);
-    identifier.setValue(UUID.randomUUID().toString());
+    identifier.setValue(context.newId());
     composition.setIdentifier(identifier);
 
-    composition.setId(UUID.randomUUID().toString());
+    composition.setId(context.newId());
 
     if (encounter != null) {
       composition.setEncounter(
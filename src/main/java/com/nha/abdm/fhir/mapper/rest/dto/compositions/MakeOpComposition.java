@@ -1,24 +1,21 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.dto.compositions;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Service;
 
 @Service
 public class MakeOpComposition {
   public Composition makeOPCompositionResource(
-      Patient patient,
-      String visitDate,
+      ConversionContext context,
       Encounter encounter,
-      List<Practitioner> practitionerList,
       Organization organization,
       List<Condition> chiefComplaintList,
       List<Observation> physicalObservationList,
@@ -33,8 +30,6 @@ public class MakeOpComposition {
       List<Observation> otherObservationList,
       List<DocumentReference> documentReferenceList)
       throws ParseException {
-    HumanName patientName = patient.getName().get(0);
-    HumanName practitionerName = null;
     Composition composition = new Composition();
     CodeableConcept typeCode = new CodeableConcept();
     Coding typeCoding = new Coding();
@@ -44,14 +39,7 @@ public class MakeOpComposition {
     typeCode.addCoding(typeCoding);
     composition.setType(typeCode);
     composition.setTitle(BundleCompositionIdentifier.CLINICAL_CONSULTATION_REPORT);
-    List<Reference> authorList = new ArrayList<>();
-    for (Practitioner practitioner : practitionerList) {
-      practitionerName = practitioner.getName().get(0);
-      authorList.add(
-          new Reference()
-              .setReference(BundleResourceIdentifier.PRACTITIONER + "/" + practitioner.getId())
-              .setDisplay(practitionerName != null ? practitionerName.getText() : null));
-    }
+    List<Reference> authorList = new ArrayList<>(context.getPractitionerReferences());
     composition.setEncounter(
         new Reference().setReference(BundleResourceIdentifier.ENCOUNTER + "/" + encounter.getId()));
     composition.setCustodian(
@@ -59,16 +47,11 @@ public class MakeOpComposition {
             .setReference(BundleResourceIdentifier.ORGANISATION + "/" + organization.getId())
             .setDisplay(organization.getName()));
     composition.setAuthor(authorList);
-    composition.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(patientName.getText()));
-    composition.setDateElement(Utils.getFormattedDateTime(visitDate));
+    composition.setSubject(context.getPatientReference());
+    composition.setDateElement(context.getVisitDate());
     composition.setStatus(Composition.CompositionStatus.FINAL);
     List<Composition.SectionComponent> sectionComponentList =
         makeCompositionSection(
-            patient,
-            practitionerList,
             organization,
             chiefComplaintList,
             physicalObservationList,
@@ -86,15 +69,13 @@ public class MakeOpComposition {
       composition.addSection(sectionComponent);
     Identifier identifier = new Identifier();
     identifier.setSystem(BundleUrlIdentifier.WRAPPER_URL);
-    identifier.setValue(UUID.randomUUID().toString());
+    identifier.setValue(context.newId());
     composition.setIdentifier(identifier);
-    composition.setId(UUID.randomUUID().toString());
+    composition.setId(context.newId());
     return composition;
   }
 
   private List<Composition.SectionComponent> makeCompositionSection(
-      Patient patient,
-      List<Practitioner> practitionerList,
       Organization organization,
       List<Condition> chiefComplaintList,
       List<Observation> physicalObservationList,
@@ -1,25 +1,23 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.dto.compositions;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Service;
 
 @Service
 public class MakePrescriptionComposition {
   public Composition makeCompositionResource(
-      Patient patient,
-      List<Practitioner> practitionerList,
+      ConversionContext context,
       Organization organization,
-      String authoredOn,
       Encounter encounter,
       List<MedicationRequest> medicationRequestList,
       List<Binary> documentList)
@@ -27,10 +25,8 @@ public class MakePrescriptionComposition {
 
     Composition composition = new Composition();
 
-    Meta meta = new Meta();
-    meta.setVersionId("1");
-    meta.setLastUpdatedElement(Utils.getCurrentTimeStamp());
-    meta.addProfile(ResourceProfileIdentifier.PROFILE_PRESCRIPTION_RECORD);
+    Meta meta =
+        FhirFragments.versionedMeta(context, ResourceProfileIdentifier.PROFILE_PRESCRIPTION_RECORD);
     composition.setMeta(meta);
 
     // FIX: Add both coding and text for Composition type
@@ -56,23 +52,12 @@ public class MakePrescriptionComposition {
               .setReference(BundleResourceIdentifier.ENCOUNTER + "/" + encounter.getId()));
     }
 
-    List<Reference> authorList = new ArrayList<>();
-    for (Practitioner practitioner : practitionerList) {
-      HumanName name = practitioner.getName().get(0);
-      authorList.add(
-          new Reference()
-              .setReference(BundleResourceIdentifier.PRACTITIONER + "/" + practitioner.getId())
-              .setDisplay(name.getText()));
-    }
+    List<Reference> authorList = new ArrayList<>(context.getPractitionerReferences());
     composition.setAuthor(authorList);
 
-    HumanName patientName = patient.getName().get(0);
-    composition.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(patientName.getText()));
+    composition.setSubject(context.getPatientReference());
 
-    composition.setDateElement(Utils.getFormattedDateTime(authoredOn));
+    composition.setDateElement(context.getVisitDate());
 
     Composition.SectionComponent medicationSection = new Composition.SectionComponent();
     medicationSection.setTitle(BundleResourceIdentifier.MEDICATIONS);
@@ -105,10 +90,10 @@ public class MakePrescriptionComposition {
 
     Identifier identifier = new Identifier();
     identifier.setSystem(BundleUrlIdentifier.WRAPPER_URL);
-    identifier.setValue(UUID.randomUUID().toString());
+    identifier.setValue(context.newId());
     composition.setIdentifier(identifier);
 
-    composition.setId(UUID.randomUUID().toString());
+    composition.setId(context.newId());
 
     return composition;
   }
@@ -1,25 +1,22 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.dto.compositions;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleCompositionIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Service;
 
 @Service
 public class MakeWellnessComposition {
   public Composition makeWellnessComposition(
-      Patient patient,
-      String authoredOn,
+      ConversionContext context,
       Encounter encounter,
-      List<Practitioner> practitionerList,
       Organization organization,
       List<Observation> vitalSignsList,
       List<Observation> bodyMeasurementList,
@@ -30,20 +27,11 @@ public class MakeWellnessComposition {
       List<Observation> otherObservationList,
       List<DocumentReference> documentReferenceList)
       throws ParseException {
-    HumanName patientName = patient.getName().get(0);
-    HumanName practitionerName = null;
     Composition composition = new Composition();
     composition.setStatus(Composition.CompositionStatus.FINAL);
     composition.setType(new CodeableConcept().setText(BundleCompositionIdentifier.WELLNESS_RECORD));
     composition.setTitle(BundleCompositionIdentifier.WELLNESS_RECORD);
-    List<Reference> authorList = new ArrayList<>();
-    for (Practitioner practitioner : practitionerList) {
-      practitionerName = practitioner.getName().get(0);
-      authorList.add(
-          new Reference()
-              .setReference(BundleResourceIdentifier.PRACTITIONER + "/" + practitioner.getId())
-              .setDisplay(practitionerName != null ? practitionerName.getText() : null));
-    }
+    List<Reference> authorList = new ArrayList<>(context.getPractitionerReferences());
     composition.setEncounter(
         new Reference().setReference(BundleResourceIdentifier.ENCOUNTER + "/" + encounter.getId()));
     composition.setCustodian(
@@ -51,16 +39,11 @@ public class MakeWellnessComposition {
             .setReference(BundleResourceIdentifier.ORGANISATION + "/" + organization.getId())
             .setDisplay(organization.getName()));
     composition.setAuthor(authorList);
-    composition.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(patientName.getText()));
-    composition.setDateElement(Utils.getFormattedDateTime(authoredOn));
+    composition.setSubject(context.getPatientReference());
+    composition.setDateElement(context.getVisitDate());
     List<Composition.SectionComponent> sectionComponentList =
         makeCompositionSection(
-            patient,
             encounter,
-            practitionerList,
             organization,
             vitalSignsList,
             bodyMeasurementList,
@@ -75,16 +58,15 @@ public class MakeWellnessComposition {
         composition.addSection(sectionComponent);
     Identifier identifier = new Identifier();
     identifier.setSystem(BundleUrlIdentifier.WRAPPER_URL);
-    identifier.setValue(UUID.randomUUID().toString());
+    identifier.setValue(context.newId());
     composition.setIdentifier(identifier);
-    composition.setId(UUID.randomUUID().toString());
+    composition.setId(context.newId());
     return composition;
   }
 
   private List<Composition.SectionComponent> makeCompositionSection(
-      Patient patient,
       Encounter encounter,
-      List<Practitioner> practitionerList,
+
       Organization organization,
       List<Observation> vitalSignsList,
       List<Observation> bodyMeasurementList,
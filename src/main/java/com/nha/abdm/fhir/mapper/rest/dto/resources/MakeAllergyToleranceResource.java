@@ -3,10 +3,10 @@ package com.nha.abdm.fhir.mapper.rest.dto.resources;
 
 import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.*;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedService;
 import java.text.ParseException;
-import java.util.List;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -16,24 +16,16 @@ public class MakeAllergyToleranceResource {
   @Autowired SnomedService snomedService;
 
   public AllergyIntolerance getAllergy(
-      Patient patient,
-      List<Practitioner> practitionerList,
-      String allergy,
-      String authoredOn,
-      String verificationStatusValue)
+      ConversionContext context, String allergy, String authoredOn, String verificationStatusValue)
       throws ParseException {
 
     String cleanedAllergy = Utils.clean(allergy);
     String cleanedVerification = Utils.clean(verificationStatusValue);
 
-    HumanName patientName = patient.getName().get(0);
-
     AllergyIntolerance allergyIntolerance = new AllergyIntolerance();
-    allergyIntolerance.setId(UUID.randomUUID().toString());
+    allergyIntolerance.setId(context.newId());
     allergyIntolerance.setMeta(
-        new Meta()
-            .setLastUpdatedElement(Utils.getCurrentTimeStamp())
-            .addProfile(ResourceProfileIdentifier.PROFILE_ALLERGY_INTOLERANCE));
+        FhirFragments.meta(context, ResourceProfileIdentifier.PROFILE_ALLERGY_INTOLERANCE));
 
     CodeableConcept code = new CodeableConcept();
     code.setText(cleanedAllergy);
@@ -64,17 +56,10 @@ public class MakeAllergyToleranceResource {
       allergyIntolerance.setRecordedDateElement(Utils.getFormattedDateTime(authoredOn));
 
     allergyIntolerance.setType(AllergyIntolerance.AllergyIntoleranceType.ALLERGY);
-    allergyIntolerance.setPatient(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(Utils.clean(patientName.getText())));
-
-    if (!practitionerList.isEmpty()) {
-      Practitioner practitioner = practitionerList.get(0);
-      allergyIntolerance.setRecorder(
-          new Reference()
-              .setReference(BundleResourceIdentifier.PRACTITIONER + "/" + practitioner.getId())
-              .setDisplay(Utils.clean(practitioner.getName().get(0).getText())));
+    allergyIntolerance.setPatient(context.getPatientReference());
+
+    if (!context.getPractitionerReferences().isEmpty()) {
+      allergyIntolerance.setRecorder(context.getPractitionerReferences().get(0));
     }
 
     return allergyIntolerance;
@@ -2,12 +2,11 @@
 package com.nha.abdm.fhir.mapper.rest.dto.resources;
 
 import com.nha.abdm.fhir.mapper.Utils;
-import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedService;
 import com.nha.abdm.fhir.mapper.rest.requests.helpers.CarePlanResource;
 import java.text.ParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -18,11 +17,11 @@ public class MakeCarePlanResource {
   @Autowired SnomedService snomedService;
 
   public CarePlan getCarePlan(
-      CarePlanResource carePlanResource, Patient patient, Practitioner practitioner)
+      CarePlanResource carePlanResource, ConversionContext context, Practitioner practitioner)
       throws ParseException {
 
     CarePlan carePlan = new CarePlan();
-    carePlan.setId(UUID.randomUUID().toString());
+    carePlan.setId(context.newId());
     carePlan.setStatus(CarePlan.CarePlanStatus.ACTIVE);
     carePlan.setIntent(CarePlan.CarePlanIntent.fromCode(Utils.clean(carePlanResource.getIntent())));
 
@@ -36,13 +35,7 @@ public class MakeCarePlanResource {
 
     carePlan.setTitle(cleanedType);
 
-    carePlan.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(
-                patient.getName().stream()
-                    .map(n -> Utils.clean(n.getText()))
-                    .collect(Collectors.joining(" "))));
+    carePlan.setSubject(context.getPatientReference());
 
     CodeableConcept cc = new CodeableConcept();
     cc.setText(cleanedType);
@@ -66,7 +59,7 @@ public class MakeCarePlanResource {
     if (carePlanResource.getPeriod() != null && carePlanResource.getPeriod().getFrom() != null) {
 
       appointment = new Appointment();
-      appointment.setId(UUID.randomUUID().toString());
+      appointment.setId(context.newId());
       appointment.setStatus(Appointment.AppointmentStatus.BOOKED);
       appointment.setStartElement(new InstantType(carePlanResource.getPeriod().getFrom()));
 
@@ -80,10 +73,7 @@ public class MakeCarePlanResource {
 
       participants.add(
           new Appointment.AppointmentParticipantComponent()
-              .setActor(
-                  new Reference()
-                      .setReference("Patient/" + patient.getId())
-                      .setDisplay(Utils.clean(patient.getNameFirstRep().getText())))
+              .setActor(context.getPatientReference())
               .setStatus(Appointment.ParticipationStatus.ACCEPTED));
 
       if (practitioner != null) {
@@ -2,11 +2,11 @@
 package com.nha.abdm.fhir.mapper.rest.dto.resources;
 
 import com.nha.abdm.fhir.mapper.Utils;
-import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.DateRange;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import java.text.ParseException;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Component;
 
@@ -14,26 +14,20 @@ import org.springframework.stereotype.Component;
 public class MakeConditionResource {
 
   public Condition getCondition(
-      String conditionDetails, Patient patient, String recordedDate, DateRange dateRange)
+      String conditionDetails, ConversionContext context, String recordedDate, DateRange dateRange)
       throws ParseException {
 
     String cleanedDetails = Utils.clean(conditionDetails);
     String cleanedRecorded = Utils.clean(recordedDate);
 
     Condition condition = new Condition();
-    condition.setId(UUID.randomUUID().toString());
+    condition.setId(context.newId());
 
     condition.setCode(new CodeableConcept().setText(cleanedDetails));
 
-    condition.setMeta(
-        new Meta()
-            .setLastUpdatedElement(Utils.getCurrentTimeStamp())
-            .addProfile(ResourceProfileIdentifier.PROFILE_CONDITION));
+    condition.setMeta(FhirFragments.meta(context, ResourceProfileIdentifier.PROFILE_CONDITION));
 
-    condition.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(Utils.clean(patient.getName().get(0).getText())));
+    condition.setSubject(context.getPatientReference());
 
     if (cleanedRecorded != null) {
       condition.setRecordedDateElement(Utils.getFormattedDateTime(cleanedRecorded));
@@ -3,11 +3,12 @@ package com.nha.abdm.fhir.mapper.rest.dto.resources;
 
 import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedService;
 import com.nha.abdm.fhir.mapper.rest.requests.helpers.DiagnosticResource;
 import java.text.ParseException;
 import java.util.List;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -18,8 +19,7 @@ public class MakeDiagnosticLabResource {
   @Autowired SnomedService snomedService;
 
   public DiagnosticReport getDiagnosticReport(
-      Patient patient,
-      List<Practitioner> practitionerList,
+      ConversionContext context,
       List<Observation> observationList,
       Encounter encounter,
       DiagnosticResource diagnosticResource)
@@ -30,25 +30,20 @@ public class MakeDiagnosticLabResource {
     String conclusion = Utils.clean(diagnosticResource.getConclusion());
 
     DiagnosticReport diagnosticReport = new DiagnosticReport();
-    diagnosticReport.setId(UUID.randomUUID().toString());
+    diagnosticReport.setId(context.newId());
     diagnosticReport.setMeta(
-        new Meta()
-            .setLastUpdatedElement(Utils.getCurrentTimeStamp())
-            .addProfile(ResourceProfileIdentifier.PROFILE_DIAGNOSTIC_REPORT_LAB));
+        FhirFragments.meta(context, ResourceProfileIdentifier.PROFILE_DIAGNOSTIC_REPORT_LAB));
 
     diagnosticReport.setStatus(DiagnosticReport.DiagnosticReportStatus.FINAL);
     diagnosticReport.setCode(new CodeableConcept().setText(serviceName));
 
-    diagnosticReport.setSubject(
-        new Reference()
-            .setReference("Patient/" + patient.getId())
-            .setDisplay(Utils.clean(patient.getNameFirstRep().getText())));
+    diagnosticReport.setSubject(context.getPatientReference());
 
     if (encounter != null) {
       diagnosticReport.setEncounter(new Reference().setReference("Encounter/" + encounter.getId()));
     }
 
-    for (Practitioner practitioner : practitionerList) {
+    for (Practitioner practitioner : context.getPractitioners()) {
       String ref = "Practitioner/" + practitioner.getId();
       diagnosticReport.addPerformer(new Reference(ref));
       diagnosticReport.addResultsInterpreter(new Reference(ref));
@@ -71,7 +66,7 @@ public class MakeDiagnosticLabResource {
       Attachment attachment = new Attachment();
       attachment.setContentType(
           Utils.clean(diagnosticResource.getPresentedForm().getContentType()));
-      attachment.setData(diagnosticResource.getPresentedForm().getData());
+      attachment.setDataElement(diagnosticResource.getPresentedForm().getData().toFhir());
       diagnosticReport.addPresentedForm(attachment);
     }
 
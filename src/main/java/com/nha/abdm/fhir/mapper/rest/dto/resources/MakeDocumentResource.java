@@ -2,12 +2,12 @@
 package com.nha.abdm.fhir.mapper.rest.dto.resources;
 
 import com.nha.abdm.fhir.mapper.Utils;
-import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.DocumentResource;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import java.text.ParseException;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Component;
 
@@ -15,7 +15,7 @@ import org.springframework.stereotype.Component;
 public class MakeDocumentResource {
 
   public DocumentReference getDocument(
-      Patient patient,
+      ConversionContext context,
       Organization organization,
       DocumentResource documentResource,
       String docCode,
@@ -32,36 +32,31 @@ public class MakeDocumentResource {
     if (organization != null && organization.getId() != null) {
       identifier.setValue(Utils.clean(organization.getId()));
     } else {
-      identifier.setValue(UUID.randomUUID().toString());
+      identifier.setValue(context.newId());
     }
 
     identifier.setType(new CodeableConcept().setText(cleanedType));
 
     Attachment attachment = new Attachment();
     attachment.setContentType(cleanedContentType);
-    attachment.setData(documentResource.getData());
+    attachment.setDataElement(documentResource.getData().toFhir());
     attachment.setTitle(cleanedType);
-    attachment.setCreationElement(new DateTimeType(Utils.getCurrentTimeStamp().getValueAsString()));
+    attachment.setCreationElement(new DateTimeType(context.getTimestamp().getValueAsString()));
 
     DocumentReference.DocumentReferenceContentComponent content =
         new DocumentReference.DocumentReferenceContentComponent().setAttachment(attachment);
 
     DocumentReference documentReference = new DocumentReference();
-    documentReference.setId(UUID.randomUUID().toString());
+    documentReference.setId(context.newId());
     documentReference.setMeta(
-        new Meta()
-            .setLastUpdatedElement(Utils.getCurrentTimeStamp())
-            .addProfile(ResourceProfileIdentifier.PROFILE_DOCUMENT_REFERENCE));
+        FhirFragments.meta(context, ResourceProfileIdentifier.PROFILE_DOCUMENT_REFERENCE));
 
     documentReference.addIdentifier(identifier);
     documentReference.addContent(content);
     documentReference.setStatus(Enumerations.DocumentReferenceStatus.CURRENT);
     documentReference.setDocStatus(DocumentReference.ReferredDocumentStatus.FINAL);
 
-    documentReference.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(Utils.clean(patient.getNameFirstRep().getText())));
+    documentReference.setSubject(context.getPatientReference());
 
     documentReference.setType(new CodeableConcept().setText(cleanedDocName));
 
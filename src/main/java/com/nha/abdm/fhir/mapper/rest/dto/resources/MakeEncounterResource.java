@@ -3,31 +3,27 @@ package com.nha.abdm.fhir.mapper.rest.dto.resources;
 
 import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleFieldIdentifier;
-import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import java.text.ParseException;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Component;
 
 @Component
 public class MakeEncounterResource {
 
-  public Encounter getEncounter(Patient patient, String encounterName, String visitDate)
+  public Encounter getEncounter(ConversionContext context, String encounterName)
       throws ParseException {
 
     String cleanedEncounterName = Utils.clean(encounterName);
-    String cleanedVisitDate = Utils.clean(visitDate);
     String cleanedDefaultClass = Utils.clean(BundleFieldIdentifier.AMBULATORY);
 
     Encounter encounter = new Encounter();
-    encounter.setId(UUID.randomUUID().toString());
+    encounter.setId(context.newId());
     encounter.setStatus(Encounter.EncounterStatus.INPROGRESS);
 
-    encounter.setMeta(
-        new Meta()
-            .setLastUpdatedElement(Utils.getCurrentTimeStamp())
-            .addProfile(ResourceProfileIdentifier.PROFILE_ENCOUNTER));
+    encounter.setMeta(FhirFragments.meta(context, ResourceProfileIdentifier.PROFILE_ENCOUNTER));
 
     Coding encounterClass = new Coding();
     encounterClass.setDisplay(
@@ -36,12 +32,9 @@ public class MakeEncounterResource {
             : cleanedDefaultClass);
     encounter.setClass_(encounterClass);
 
-    encounter.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(Utils.clean(patient.getNameFirstRep().getText())));
+    encounter.setSubject(context.getPatientReference());
 
-    encounter.setPeriod(new Period().setStartElement(Utils.getFormattedDateTime(cleanedVisitDate)));
+    encounter.setPeriod(new Period().setStartElement(context.getVisitDate()));
 
     return encounter;
   }
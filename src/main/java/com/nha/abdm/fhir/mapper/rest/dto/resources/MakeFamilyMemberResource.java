@@ -2,14 +2,14 @@
 package com.nha.abdm.fhir.mapper.rest.dto.resources;
 
 import com.nha.abdm.fhir.mapper.Utils;
-import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedService;
 import com.nha.abdm.fhir.mapper.rest.requests.helpers.FamilyObservationResource;
 import java.math.BigDecimal;
 import java.text.ParseException;
 import java.util.Objects;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -20,21 +20,15 @@ public class MakeFamilyMemberResource {
   @Autowired SnomedService snomedService;
 
   public FamilyMemberHistory getFamilyHistory(
-      Patient patient, FamilyObservationResource familyObservationResource) throws ParseException {
-
-    String cleanedPatientName = Utils.clean(patient.getNameFirstRep().getText());
+      ConversionContext context, FamilyObservationResource familyObservationResource)
+      throws ParseException {
 
     FamilyMemberHistory familyMemberHistory = new FamilyMemberHistory();
-    familyMemberHistory.setId(UUID.randomUUID().toString());
+    familyMemberHistory.setId(context.newId());
     familyMemberHistory.setStatus(FamilyMemberHistory.FamilyHistoryStatus.COMPLETED);
     familyMemberHistory.setMeta(
-        new Meta()
-            .setLastUpdatedElement(Utils.getCurrentTimeStamp())
-            .addProfile(ResourceProfileIdentifier.PROFILE_FAMILY_MEMBER_HISTORY));
-    familyMemberHistory.setPatient(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(cleanedPatientName));
+        FhirFragments.meta(context, ResourceProfileIdentifier.PROFILE_FAMILY_MEMBER_HISTORY));
+    familyMemberHistory.setPatient(context.getPatientReference());
 
     if (Objects.nonNull(familyObservationResource.getRelationship())) {
       familyMemberHistory.setRelationship(
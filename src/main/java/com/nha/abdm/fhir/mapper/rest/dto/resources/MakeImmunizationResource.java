@@ -1,9 +1,10 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.dto.resources;
 
-import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import com.nha.abdm.fhir.mapper.rest.requests.helpers.ImmunizationResource;
 import java.text.ParseException;
 import java.util.*;
@@ -14,24 +15,22 @@ import org.springframework.stereotype.Component;
 public class MakeImmunizationResource {
 
   public Immunization getImmunization(
-      Patient patient,
-      java.util.List<Practitioner> practitionerList,
+      ConversionContext context,
       Organization manufacturer,
       ImmunizationResource immunizationResource)
       throws ParseException {
 
     Immunization immunization = new Immunization();
-    immunization.setId(UUID.randomUUID().toString());
+    immunization.setId(context.newId());
 
     // Set profile
     immunization.setMeta(
-        new Meta()
-            .setLastUpdatedElement(Utils.getCurrentTimeStamp())
-            .addProfile(ResourceProfileIdentifier.PROFILE_IMMUNIZATION));
+        FhirFragments.meta(context, ResourceProfileIdentifier.PROFILE_IMMUNIZATION));
 
     immunization.setStatus(Immunization.ImmunizationStatus.COMPLETED);
 
     // REQUIRED: Set patient reference
+    Patient patient = context.getPatient();
     if (Objects.nonNull(patient) && Objects.nonNull(patient.getId())) {
       immunization.setPatient(
           new Reference().setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId()));
@@ -43,10 +42,10 @@ public class MakeImmunizationResource {
         immunization.setOccurrence(new DateTimeType(immunizationResource.getDate()));
       } catch (Exception e) {
         // If date parsing fails, use current timestamp
-        immunization.setOccurrence(Utils.getCurrentTimeStamp());
+        immunization.setOccurrence(context.getTimestamp());
       }
     } else {
-      immunization.setOccurrence(Utils.getCurrentTimeStamp());
+      immunization.setOccurrence(context.getTimestamp());
     }
 
     // REQUIRED: Set vaccine code from vaccineName
@@ -64,8 +63,8 @@ public class MakeImmunizationResource {
     }
 
     // Optional: Set performer if practitioners are provided
-    if (Objects.nonNull(practitionerList) && !practitionerList.isEmpty()) {
-      for (Practitioner practitioner : practitionerList) {
+    if (!context.getPractitioners().isEmpty()) {
+      for (Practitioner practitioner : context.getPractitioners()) {
         if (Objects.nonNull(practitioner.getId())) {
           immunization.addPerformer(
               new Immunization.ImmunizationPerformerComponent()
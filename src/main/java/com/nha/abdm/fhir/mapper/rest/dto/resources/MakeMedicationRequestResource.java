@@ -3,6 +3,8 @@ package com.nha.abdm.fhir.mapper.rest.dto.resources;
 
 import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.*;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedService;
 import com.nha.abdm.fhir.mapper.rest.requests.helpers.PrescriptionResource;
 import java.text.ParseException;
@@ -21,17 +23,13 @@ public class MakeMedicationRequestResource {
       PrescriptionResource prescriptionResource,
       Condition medicationCondition,
       Organization organization,
-      List<Practitioner> practitioners,
-      Patient patient)
+      ConversionContext context)
       throws ParseException {
 
-    String cleanedPatientName = Utils.clean(patient.getNameFirstRep().getText());
     MedicationRequest medicationRequest = new MedicationRequest();
 
     medicationRequest.setMeta(
-        new Meta()
-            .addProfile(ResourceProfileIdentifier.PROFILE_MEDICATION_REQUEST)
-            .setLastUpdatedElement(Utils.getCurrentTimeStamp()));
+        FhirFragments.meta(context, ResourceProfileIdentifier.PROFILE_MEDICATION_REQUEST));
 
     medicationRequest.setMedication(
         new CodeableConcept().setText(Utils.clean(prescriptionResource.getMedicine())));
@@ -84,19 +82,11 @@ public class MakeMedicationRequestResource {
                   .setDisplay(Utils.clean(BundleFieldIdentifier.MEDICAL_CONDITION))));
     }
 
-    if (!practitioners.isEmpty()) {
-      Practitioner practitioner = practitioners.get(0);
-      String cleanedPractitionerName = Utils.clean(practitioner.getNameFirstRep().getText());
-      medicationRequest.setRequester(
-          new Reference()
-              .setReference(BundleResourceIdentifier.PRACTITIONER + "/" + practitioner.getId())
-              .setDisplay(cleanedPractitionerName));
+    if (!context.getPractitionerReferences().isEmpty()) {
+      medicationRequest.setRequester(context.getPractitionerReferences().get(0));
     }
 
-    medicationRequest.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(cleanedPatientName));
+    medicationRequest.setSubject(context.getPatientReference());
 
     if (authoredOn != null) {
       medicationRequest.setAuthoredOnElement(Utils.getFormattedDateTime(authoredOn));
@@ -104,7 +94,7 @@ public class MakeMedicationRequestResource {
 
     medicationRequest.setStatus(MedicationRequest.MedicationRequestStatus.COMPLETED);
     medicationRequest.setIntent(MedicationRequest.MedicationRequestIntent.ORDER);
-    medicationRequest.setId(UUID.randomUUID().toString());
+    medicationRequest.setId(context.newId());
 
     return medicationRequest;
   }
@@ -4,28 +4,21 @@ package com.nha.abdm.fhir.mapper.rest.dto.resources;
 import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.OrganisationResource;
 import java.text.ParseException;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Component;
 
 @Component
 public class MakeOrganisationResource {
 
-  public Organization getOrganization(OrganisationResource organisationResource)
-      throws ParseException {
-
-    Coding coding = new Coding();
-    coding.setCode("PRN");
-    coding.setSystem(ResourceProfileIdentifier.PROFILE_PROVIDER);
-    coding.setDisplay("Provider number");
-
-    CodeableConcept codeableConcept = new CodeableConcept();
-    codeableConcept.addCoding(coding);
+  public Organization getOrganization(
+      ConversionContext context, OrganisationResource organisationResource) throws ParseException {
 
     Identifier identifier = new Identifier();
-    identifier.setType(codeableConcept);
+    identifier.setType(FhirFragments.PROVIDER_NUMBER);
     identifier.setSystem(BundleUrlIdentifier.FACILITY_URL);
 
     String cleanedFacilityId = null;
@@ -38,13 +31,11 @@ public class MakeOrganisationResource {
 
     identifier.setValue(
         cleanedFacilityId == null || cleanedFacilityId.isEmpty()
-            ? UUID.randomUUID().toString()
+            ? context.newId()
             : cleanedFacilityId);
 
-    Meta meta = new Meta();
-    meta.setVersionId("1");
-    meta.setLastUpdatedElement(Utils.getCurrentTimeStamp());
-    meta.addProfile(ResourceProfileIdentifier.PROFILE_ORGANISATION);
+    Meta meta =
+        FhirFragments.versionedMeta(context, ResourceProfileIdentifier.PROFILE_ORGANISATION);
 
     Organization organization = new Organization();
 
@@ -55,7 +46,7 @@ public class MakeOrganisationResource {
 
     organization.setMeta(meta);
     organization.addIdentifier(identifier);
-    organization.setId(UUID.randomUUID().toString());
+    organization.setId(context.newId());
 
     return organization;
   }
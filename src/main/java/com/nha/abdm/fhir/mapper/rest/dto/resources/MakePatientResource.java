@@ -4,35 +4,26 @@ package com.nha.abdm.fhir.mapper.rest.dto.resources;
 import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.PatientResource;
 import java.text.ParseException;
 import java.util.Locale;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Component;
 
 @Component
 public class MakePatientResource {
 
-  public Patient getPatient(PatientResource patientResource) throws ParseException {
-
-    Coding coding = new Coding();
-    coding.setCode("MR");
-    coding.setSystem(ResourceProfileIdentifier.PROFILE_PROVIDER);
-    coding.setDisplay("Medical record number");
-
-    CodeableConcept codeableConcept = new CodeableConcept();
-    codeableConcept.addCoding(coding);
+  public Patient getPatient(ConversionContext context, PatientResource patientResource)
+      throws ParseException {
 
     Identifier identifier = new Identifier();
-    identifier.setType(codeableConcept);
+    identifier.setType(FhirFragments.MEDICAL_RECORD_NUMBER);
     identifier.setSystem(BundleUrlIdentifier.HEALTH_ID_URL);
     identifier.setValue(patientResource.getPatientReference());
 
-    Meta meta = new Meta();
-    meta.setVersionId("1");
-    meta.setLastUpdatedElement(Utils.getCurrentTimeStamp());
-    meta.addProfile(ResourceProfileIdentifier.PROFILE_PATIENT);
+    Meta meta = FhirFragments.versionedMeta(context, ResourceProfileIdentifier.PROFILE_PATIENT);
 
     Patient patient = new Patient();
     // Clean patient name to be ABDM-safe
@@ -50,7 +41,7 @@ public class MakePatientResource {
 
     patient.setMeta(meta);
     patient.addIdentifier(identifier);
-    patient.setId(UUID.randomUUID().toString());
+    patient.setId(context.newId());
 
     return patient;
   }
@@ -5,17 +5,18 @@ import com.nha.abdm.fhir.mapper.Utils;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleFieldIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import com.nha.abdm.fhir.mapper.rest.common.helpers.PractitionerResource;
 import java.text.ParseException;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.stereotype.Component;
 
 @Component
 public class MakePractitionerResource {
 
-  public Practitioner getPractitioner(PractitionerResource practitionerResource)
-      throws ParseException {
+  public Practitioner getPractitioner(
+      ConversionContext context, PractitionerResource practitionerResource) throws ParseException {
 
     Coding coding = new Coding();
     coding.setCode("MR");
@@ -30,10 +31,8 @@ public class MakePractitionerResource {
     identifier.setSystem(BundleUrlIdentifier.DOCTOR_ID_URL);
     identifier.setValue(practitionerResource.getPractitionerId());
 
-    Meta meta = new Meta();
-    meta.setVersionId("1");
-    meta.setLastUpdatedElement(Utils.getCurrentTimeStamp());
-    meta.addProfile(ResourceProfileIdentifier.PROFILE_PRACTITIONER);
+    Meta meta =
+        FhirFragments.versionedMeta(context, ResourceProfileIdentifier.PROFILE_PRACTITIONER);
 
     Practitioner practitioner = new Practitioner();
     // Clean the name for ABDM-safe free-text
@@ -43,7 +42,7 @@ public class MakePractitionerResource {
     practitioner.setId(
         practitionerResource.getPractitionerId() != null
             ? practitionerResource.getPractitionerId()
-            : UUID.randomUUID().toString());
+            : context.newId());
 
     return practitioner;
   }
@@ -2,14 +2,14 @@
 package com.nha.abdm.fhir.mapper.rest.dto.resources;
 
 import com.nha.abdm.fhir.mapper.Utils;
-import com.nha.abdm.fhir.mapper.rest.common.constants.BundleResourceIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.BundleUrlIdentifier;
 import com.nha.abdm.fhir.mapper.rest.common.constants.ResourceProfileIdentifier;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionContext;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FhirFragments;
 import com.nha.abdm.fhir.mapper.rest.database.h2.services.SnomedService;
 import com.nha.abdm.fhir.mapper.rest.database.h2.tables.SnomedConditionProcedure;
 import com.nha.abdm.fhir.mapper.rest.requests.helpers.ProcedureResource;
 import java.text.ParseException;
-import java.util.UUID;
 import org.hl7.fhir.r4.model.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -19,12 +19,12 @@ public class MakeProcedureResource {
 
   @Autowired SnomedService snomedService;
 
-  public Procedure getProcedure(Patient patient, ProcedureResource procedureResource)
+  public Procedure getProcedure(ConversionContext context, ProcedureResource procedureResource)
       throws ParseException {
 
     Procedure procedure = new Procedure();
-    procedure.setId(UUID.randomUUID().toString());
-    procedure.setMeta(new Meta().addProfile(ResourceProfileIdentifier.PROFILE_PROCEDURE));
+    procedure.setId(context.newId());
+    procedure.setMeta(FhirFragments.profileMeta(ResourceProfileIdentifier.PROFILE_PROCEDURE));
 
     // Status
     if (procedureResource.getStatus() != null) {
@@ -34,10 +34,7 @@ public class MakeProcedureResource {
     }
 
     // Patient reference
-    procedure.setSubject(
-        new Reference()
-            .setReference(BundleResourceIdentifier.PATIENT + "/" + patient.getId())
-            .setDisplay(Utils.clean(patient.getNameFirstRep().getText())));
+    procedure.setSubject(context.getPatientReference());
 
     // CODE — Mandatory SNOMED coding
     SnomedConditionProcedure snomedProcedure =
@@ -3,12 +3,28 @@ package com.nha.abdm.fhir.mapper.rest.exceptions;
 
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.List;
 import org.apache.commons.lang3.StringUtils;
 
+/**
+ * Reports every instance field of a {@link NotBlankFields} class that is null or, for text, blank.
+ * The getters of a class are resolved once, on its first validation, and kept in {@link #FIELDS}.
+ */
 public class NotBlankFieldsValidator implements ConstraintValidator<NotBlankFields, Object> {
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+  private static final ClassValue<List<FieldAccessor>> FIELDS =
+      new ClassValue<>() {
+        @Override
+        protected List<FieldAccessor> computeValue(Class<?> type) {
+          return fieldAccessors(type);
+        }
+      };
 
   private String message;
 
@@ -19,26 +35,25 @@ public class NotBlankFieldsValidator implements ConstraintValidator<NotBlankFiel
 
   @Override
   public boolean isValid(Object obj, ConstraintValidatorContext context) {
-    List<String> nullFields = new ArrayList<>();
-
-    for (Field field : obj.getClass().getDeclaredFields()) {
-      field.setAccessible(true);
-      try {
-        Object value = field.get(obj);
-        if (value == null || StringUtils.isBlank(value.toString())) {
-          nullFields.add(field.getName());
+    if (obj == null) {
+      return true;
+    }
+    List<FieldAccessor> nullFields = null;
+    for (FieldAccessor field : FIELDS.get(obj.getClass())) {
+      if (field.isBlank(obj)) {
+        if (nullFields == null) {
+          nullFields = new ArrayList<>();
         }
-      } catch (IllegalAccessException e) {
-        e.printStackTrace();
+        nullFields.add(field);
       }
     }
 
-    if (!nullFields.isEmpty()) {
+    if (nullFields != null) {
       context.disableDefaultConstraintViolation();
-      for (String nullField : nullFields) {
+      for (FieldAccessor nullField : nullFields) {
         context
-            .buildConstraintViolationWithTemplate(nullField + " is mandatory")
-            .addPropertyNode(nullField)
+            .buildConstraintViolationWithTemplate(nullField.message())
+            .addPropertyNode(nullField.name())
             .addConstraintViolation();
       }
       return false;
@@ -46,4 +61,43 @@ public class NotBlankFieldsValidator implements ConstraintValidator<NotBlankFiel
 
     return true;
   }
+
+  private static List<FieldAccessor> fieldAccessors(Class<?> type) {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+      List<FieldAccessor> accessors = new ArrayList<>();
+      for (Field field : type.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+          continue;
+        }
+        accessors.add(
+            new FieldAccessor(
+                field.getName(),
+                field.getName() + " is mandatory",
+                lookup.unreflectGetter(field).asType(GETTER_TYPE),
+                CharSequence.class.isAssignableFrom(field.getType())
+                    || field.getType() == Object.class));
+      }
+      return List.copyOf(accessors);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("Cannot read the fields of " + type.getName(), e);
+    }
+  }
+
+  /**
+   * @param text whether the value may be text, in which case a blank value counts as missing too;
+   *     other values, including empty lists, only need to be present
+   */
+  private record FieldAccessor(String name, String message, MethodHandle getter, boolean text) {
+    boolean isBlank(Object obj) {
+      Object value;
+      try {
+        value = (Object) getter.invokeExact(obj);
+      } catch (Throwable e) {
+        throw new IllegalStateException("Cannot read " + name, e);
+      }
+      return value == null
+          || (text && value instanceof CharSequence chars && StringUtils.isBlank(chars));
+    }
+  }
 }
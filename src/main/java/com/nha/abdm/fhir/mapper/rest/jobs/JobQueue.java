@@ -0,0 +1,216 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.jobs;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionJob;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ErrorResponse;
+import com.nha.abdm.fhir.mapper.rest.common.helpers.FacadeError;
+import com.nha.abdm.fhir.mapper.rest.converter.BundleDispatcher;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import org.hl7.fhir.r4.model.Bundle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs conversion jobs submitted through {@code /v1/jobs} on {@code jobs.concurrency} worker
+ * threads, oldest first. Jobs wait in the {@link JobStore}, not in memory, so the queue survives a
+ * restart; at most {@code jobs.max-queued} may wait at a time. A job runs like a batch item of the
+ * {@link BundleDispatcher} and its response is kept for {@code jobs.retention} after it finished. A
+ * bundle is encoded to a temporary file and streamed from there into the store, so it is not held
+ * in the heap.
+ *
+ * <p>Workers are woken by a submission and otherwise look for queued jobs every {@code
+ * jobs.poll-interval}. Callers waiting for a job of this instance are notified through {@link
+ * #completion} as soon as it finishes.
+ */
+@Component
+public class JobQueue {
+  private static final Logger log = LoggerFactory.getLogger(JobQueue.class);
+
+  private final JobStore jobStore;
+  private final BundleDispatcher bundleDispatcher;
+  private final ObjectMapper objectMapper;
+  private final int maxQueued;
+  private final Duration retention;
+  private final Duration pollInterval;
+  private final Semaphore submitted = new Semaphore(0);
+  private final Map<String, CompletableFuture<Void>> completions = new ConcurrentHashMap<>();
+  private final List<Thread> workers = new ArrayList<>();
+  private final ScheduledExecutorService cleaner;
+
+  public JobQueue(
+      JobStore jobStore,
+      BundleDispatcher bundleDispatcher,
+      ObjectMapper objectMapper,
+      @Value("${jobs.concurrency:2}") int concurrency,
+      @Value("${jobs.max-queued:1000}") int maxQueued,
+      @Value("${jobs.retention:1h}") Duration retention,
+      @Value("${jobs.poll-interval:1s}") Duration pollInterval) {
+    this.jobStore = jobStore;
+    this.bundleDispatcher = bundleDispatcher;
+    this.objectMapper = objectMapper;
+    this.maxQueued = maxQueued;
+    this.retention = retention;
+    this.pollInterval = pollInterval;
+
+    int requeued = jobStore.requeueRunning();
+    if (requeued > 0) {
+      log.info("Queued {} conversion jobs interrupted by the last shutdown again", requeued);
+    }
+    for (int i = 1; i <= Math.max(1, concurrency); i++) {
+      Thread worker = new Thread(this::work, "conversion-job-" + i);
+      worker.setDaemon(true);
+      workers.add(worker);
+      worker.start();
+    }
+    this.cleaner =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "conversion-job-cleaner");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long period = Math.max(1, Math.min(retention.toSeconds(), 60));
+    cleaner.scheduleWithFixedDelay(this::deleteExpired, 0, period, TimeUnit.SECONDS);
+  }
+
+  /**
+   * @param bundleType the item's {@code bundleType}, one the dispatcher knows
+   * @param item the request body of the job
+   * @return the queued job, or null when {@code jobs.max-queued} jobs are waiting already
+   */
+  public ConversionJob submit(String bundleType, JsonNode item) throws Exception {
+    if (jobStore.countQueued() >= maxQueued) {
+      return null;
+    }
+    ConversionJob job = jobStore.insert(bundleType, objectMapper.writeValueAsBytes(item));
+    submitted.release();
+    return job;
+  }
+
+  /**
+   * @param id a job id
+   * @return completes when the job is finished, or is gone; right away if it is already
+   */
+  public CompletableFuture<Void> completion(String id) {
+    CompletableFuture<Void> completion =
+        completions.computeIfAbsent(id, key -> new CompletableFuture<>());
+    ConversionJob job = jobStore.find(id);
+    if (job == null || job.getStatus().isFinished()) {
+      complete(id);
+    }
+    return completion;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    workers.forEach(Thread::interrupt);
+    cleaner.shutdownNow();
+  }
+
+  private void work() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        String id = jobStore.claimNext();
+        if (id == null) {
+          submitted.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+          run(id);
+        }
+      } catch (InterruptedException e) {
+        return;
+      } catch (Exception e) {
+        log.error("Conversion job worker failed, retrying in {}", pollInterval, e);
+        try {
+          Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+
+  private void run(String id) {
+    try {
+      byte[] request = jobStore.request(id);
+      BundleDispatcher.Outcome outcome =
+          bundleDispatcher.dispatch(request != null ? objectMapper.readTree(request) : null);
+      if (outcome.error() != null) {
+        jobStore.finish(
+            id,
+            ConversionJob.State.FAILED,
+            HttpStatus.BAD_REQUEST.value(),
+            objectMapper.writeValueAsBytes(outcome.error()));
+      } else {
+        try {
+          succeed(id, outcome.bundle());
+        } finally {
+          outcome.release();
+        }
+      }
+    } catch (Exception e) {
+      log.error("Conversion job {} failed", id, e);
+      try {
+        jobStore.finish(
+            id,
+            ConversionJob.State.FAILED,
+            HttpStatus.INTERNAL_SERVER_ERROR.value(),
+            objectMapper.writeValueAsBytes(
+                FacadeError.builder().error(new ErrorResponse("1000", e.getMessage())).build()));
+      } catch (Exception storing) {
+        log.error("Could not store the failure of conversion job {}", id, storing);
+      }
+    } finally {
+      complete(id);
+    }
+  }
+
+  private void succeed(String id, Bundle bundle) throws IOException {
+    Path file = Files.createTempFile("conversion-job-", ".json");
+    try {
+      try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+        bundleDispatcher.writeBundle(bundle, writer);
+      }
+      try (InputStream body = Files.newInputStream(file)) {
+        jobStore.finish(
+            id, ConversionJob.State.SUCCEEDED, HttpStatus.CREATED.value(), body, Files.size(file));
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private void complete(String id) {
+    CompletableFuture<Void> completion = completions.remove(id);
+    if (completion != null) {
+      completion.complete(null);
+    }
+  }
+
+  private void deleteExpired() {
+    try {
+      int deleted = jobStore.deleteFinishedBefore(Instant.now().minus(retention));
+      if (deleted > 0) {
+        log.debug("Deleted {} expired conversion jobs", deleted);
+      }
+    } catch (Exception e) {
+      log.warn("Could not delete expired conversion jobs", e);
+    }
+  }
+}
@@ -0,0 +1,310 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.jobs;
+
+import com.nha.abdm.fhir.mapper.rest.common.helpers.ConversionJob;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The {@code conversion_job} table holding the queue of {@link JobQueue}: a job's request until it
+ * has run, then the response it produced until it expires. The table is in the H2 database at
+ * {@code jobs.datasource.url}, a file by default so queued jobs survive a restart; with the URL
+ * blank it is created in the application's datasource instead.
+ *
+ * <p>Jobs are claimed with a conditional update, so several workers never run the same job. The
+ * table belongs to one instance of the application: jobs left running by a previous one are queued
+ * again on startup.
+ *
+ * <p>Responses are written to and read from their BLOB as streams, so an encoded bundle is never
+ * held in the heap as a whole.
+ */
+@Component
+public class JobStore {
+  private static final String COLUMNS =
+      "id, bundle_type, status, created_at, started_at, finished_at";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final DataSource jobDataSource;
+  private final HikariDataSource ownDataSource;
+
+  public JobStore(
+      DataSource dataSource,
+      @Value("${jobs.datasource.url:jdbc:h2:file:./data/jobs;WRITE_DELAY=0}") String url,
+      @Value("${jobs.datasource.username:sa}") String username,
+      @Value("${jobs.datasource.password:}") String password) {
+    if (url.isBlank()) {
+      this.ownDataSource = null;
+      this.jdbcTemplate = new JdbcTemplate(dataSource);
+    } else {
+      this.ownDataSource =
+          DataSourceBuilder.create()
+              .type(HikariDataSource.class)
+              .url(url)
+              .username(username)
+              .password(password)
+              .build();
+      this.ownDataSource.setPoolName("conversion-jobs");
+      this.jdbcTemplate = new JdbcTemplate(ownDataSource);
+    }
+    this.jobDataSource = ownDataSource != null ? ownDataSource : dataSource;
+    jdbcTemplate.execute(
+        "CREATE TABLE IF NOT EXISTS conversion_job ("
+            + "id VARCHAR(36) PRIMARY KEY, "
+            + "bundle_type VARCHAR(64) NOT NULL, "
+            + "status VARCHAR(16) NOT NULL, "
+            + "request BLOB, "
+            + "http_status INT, "
+            + "result BLOB, "
+            + "created_at TIMESTAMP NOT NULL, "
+            + "started_at TIMESTAMP, "
+            + "finished_at TIMESTAMP)");
+    jdbcTemplate.execute(
+        "CREATE INDEX IF NOT EXISTS conversion_job_status ON conversion_job (status, created_at)");
+  }
+
+  /**
+   * @param bundleType the item's {@code bundleType}
+   * @param request the item as JSON
+   * @return the queued job
+   */
+  public ConversionJob insert(String bundleType, byte[] request) {
+    ConversionJob job =
+        ConversionJob.builder()
+            .id(UUID.randomUUID().toString())
+            .bundleType(bundleType)
+            .status(ConversionJob.State.QUEUED)
+            .createdAt(Instant.now())
+            .build();
+    jdbcTemplate.update(
+        "INSERT INTO conversion_job (id, bundle_type, status, request, created_at) "
+            + "VALUES (?, ?, ?, ?, ?)",
+        job.getId(),
+        bundleType,
+        job.getStatus().name(),
+        request,
+        Timestamp.from(job.getCreatedAt()));
+    return job;
+  }
+
+  /**
+   * @return the job, or null when there is none with the id
+   */
+  public ConversionJob find(String id) {
+    List<ConversionJob> jobs =
+        jdbcTemplate.query(
+            "SELECT " + COLUMNS + " FROM conversion_job WHERE id = ?", JobStore::toJob, id);
+    return jobs.isEmpty() ? null : jobs.get(0);
+  }
+
+  /**
+   * @return the response of a finished job, or null when the job is not finished or gone; its body
+   *     is read from the table only when it is written
+   */
+  public Result result(String id) {
+    List<Result> results =
+        jdbcTemplate.query(
+            "SELECT http_status, OCTET_LENGTH(result) FROM conversion_job "
+                + "WHERE id = ? AND finished_at IS NOT NULL",
+            (rs, row) -> new Result(rs.getInt(1), new ResultBody(id, rs.getLong(2))),
+            id);
+    return results.isEmpty() ? null : results.get(0);
+  }
+
+  public int countQueued() {
+    Integer count =
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM conversion_job WHERE status = ?",
+            Integer.class,
+            ConversionJob.State.QUEUED.name());
+    return count != null ? count : 0;
+  }
+
+  /**
+   * Marks the oldest queued job as running.
+   *
+   * @return its id, or null when no job is queued
+   */
+  public String claimNext() {
+    List<String> ids =
+        jdbcTemplate.queryForList(
+            "SELECT id FROM conversion_job WHERE status = ? ORDER BY created_at LIMIT 16",
+            String.class,
+            ConversionJob.State.QUEUED.name());
+    for (String id : ids) {
+      int claimed =
+          jdbcTemplate.update(
+              "UPDATE conversion_job SET status = ?, started_at = ? WHERE id = ? AND status = ?",
+              ConversionJob.State.RUNNING.name(),
+              Timestamp.from(Instant.now()),
+              id,
+              ConversionJob.State.QUEUED.name());
+      if (claimed == 1) {
+        return id;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the request of the job, or null when it is gone
+   */
+  public byte[] request(String id) {
+    List<byte[]> requests =
+        jdbcTemplate.query(
+            "SELECT request FROM conversion_job WHERE id = ?", (rs, row) -> rs.getBytes(1), id);
+    return requests.isEmpty() ? null : requests.get(0);
+  }
+
+  /** Stores the response of a job and drops its request. */
+  public void finish(String id, ConversionJob.State status, int httpStatus, byte[] result) {
+    finish(id, status, httpStatus, new ByteArrayInputStream(result), result.length);
+  }
+
+  /**
+   * Stores the response of a job, streamed from {@code result}, and drops its request.
+   *
+   * @param length the number of bytes in {@code result}
+   */
+  public void finish(
+      String id, ConversionJob.State status, int httpStatus, InputStream result, long length) {
+    jdbcTemplate.update(
+        "UPDATE conversion_job SET status = ?, http_status = ?, result = ?, request = NULL, "
+            + "finished_at = ? WHERE id = ?",
+        statement -> {
+          statement.setString(1, status.name());
+          statement.setInt(2, httpStatus);
+          statement.setBinaryStream(3, result, length);
+          statement.setTimestamp(4, Timestamp.from(Instant.now()));
+          statement.setString(5, id);
+        });
+  }
+
+  /**
+   * @return how many jobs left running by a previous start were queued again
+   */
+  public int requeueRunning() {
+    return jdbcTemplate.update(
+        "UPDATE conversion_job SET status = ?, started_at = NULL WHERE status = ?",
+        ConversionJob.State.QUEUED.name(),
+        ConversionJob.State.RUNNING.name());
+  }
+
+  /**
+   * @return how many jobs finished before the instant were deleted
+   */
+  public int deleteFinishedBefore(Instant instant) {
+    return jdbcTemplate.update(
+        "DELETE FROM conversion_job WHERE finished_at < ?", Timestamp.from(instant));
+  }
+
+  @PreDestroy
+  public void close() {
+    if (ownDataSource != null) {
+      ownDataSource.close();
+    }
+  }
+
+  private static ConversionJob toJob(ResultSet rs, int row) throws SQLException {
+    return ConversionJob.builder()
+        .id(rs.getString("id"))
+        .bundleType(rs.getString("bundle_type"))
+        .status(ConversionJob.State.valueOf(rs.getString("status")))
+        .createdAt(toInstant(rs.getTimestamp("created_at")))
+        .startedAt(toInstant(rs.getTimestamp("started_at")))
+        .finishedAt(toInstant(rs.getTimestamp("finished_at")))
+        .build();
+  }
+
+  private static Instant toInstant(Timestamp timestamp) {
+    return timestamp != null ? timestamp.toInstant() : null;
+  }
+
+  /** The response of a finished job: the encoded bundle or the error. */
+  public record Result(int httpStatus, Resource body) {}
+
+  /**
+   * The stored response of a job, streamed from its BLOB on a connection of its own that is held
+   * until the stream is closed.
+   */
+  private final class ResultBody extends AbstractResource {
+    private final String id;
+    private final long length;
+
+    private ResultBody(String id, long length) {
+      this.id = id;
+      this.length = length;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      Connection connection = null;
+      try {
+        connection = jobDataSource.getConnection();
+        PreparedStatement statement =
+            connection.prepareStatement("SELECT result FROM conversion_job WHERE id = ?");
+        statement.setString(1, id);
+        ResultSet rs = statement.executeQuery();
+        InputStream result = rs.next() ? rs.getBinaryStream(1) : null;
+        if (result == null) {
+          throw new FileNotFoundException("Conversion job " + id + " has expired");
+        }
+        Connection held = connection;
+        connection = null;
+        return new FilterInputStream(result) {
+          @Override
+          public void close() throws IOException {
+            try {
+              super.close();
+            } finally {
+              try {
+                held.close();
+              } catch (SQLException e) {
+                throw new IOException(e);
+              }
+            }
+          }
+        };
+      } catch (SQLException e) {
+        throw new IOException("Could not read the result of conversion job " + id, e);
+      } finally {
+        if (connection != null) {
+          try {
+            connection.close();
+          } catch (SQLException e) {
+            // The read failed already, which is the error worth reporting.
+          }
+        }
+      }
+    }
+
+    @Override
+    public long contentLength() {
+      return length;
+    }
+
+    @Override
+    public String getDescription() {
+      return "result of conversion job " + id;
+    }
+  }
+}
@@ -0,0 +1,209 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.metrics;
+
+import com.nha.abdm.fhir.mapper.rest.requests.*;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.hl7.fhir.instance.model.api.IBase;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records how long each {@link ConversionStage} of a conversion takes, tagged by bundle type and
+ * outcome, along with the size of the bundles produced:
+ *
+ * <ul>
+ *   <li>{@code fhir.conversion}: the converter, from request to bundle
+ *   <li>{@code fhir.conversion.stage}: each stage of it, plus validation and encoding
+ *   <li>{@code fhir.bundle.entries}, {@code fhir.bundle.size}: entries and encoded characters
+ *   <li>{@code fhir.snomed.lookup}: single SNOMED lookups by table
+ * </ul>
+ *
+ * <p>A converter opens a {@link ConversionTimer} with {@link #start} and marks the end of each
+ * stage on it. The timer is bound to the converter's thread, which is how SNOMED lookups made deep
+ * inside the resource builders are attributed to the conversion; work the converter hands to other
+ * threads is bound to it with {@link #inCurrentConversion}.
+ */
+@Component
+public class ConversionMetrics {
+  static final String UNKNOWN = "unknown";
+
+  /** User data key under which a converted bundle carries its bundle type to the encoder. */
+  private static final String BUNDLE_TYPE = ConversionMetrics.class.getName() + ".bundleType";
+
+  private static final Map<Class<?>, String> BUNDLE_TYPES =
+      Map.of(
+          ImmunizationRequest.class, "ImmunizationRecord",
+          PrescriptionRequest.class, "PrescriptionRecord",
+          HealthDocumentRecord.class, "HealthDocumentRecord",
+          OPConsultationRequest.class, "OPConsultRecord",
+          DiagnosticReportRequest.class, "DiagnosticReportRecord",
+          DischargeSummaryRequest.class, "DischargeSummaryRecord",
+          WellnessRecordRequest.class, "WellnessRecord");
+
+  private static final ThreadLocal<ConversionTimer> CURRENT = new ThreadLocal<>();
+
+  private final MeterRegistry registry;
+
+  public ConversionMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  /**
+   * Starts timing a conversion on the current thread. Close the timer when the converter returns.
+   *
+   * @param bundleType the bundle type, as in the requests' {@code bundleType}
+   */
+  public ConversionTimer start(String bundleType) {
+    ConversionTimer timer = new ConversionTimer(this, bundleType, CURRENT.get());
+    CURRENT.set(timer);
+    return timer;
+  }
+
+  /**
+   * Carries the conversion timed on the calling thread over to a task run on another thread, so the
+   * SNOMED lookups the task makes are charged to that conversion.
+   *
+   * @param task work split off the current conversion
+   * @return the task, bound to the current conversion while it runs
+   */
+  public static <T> Callable<T> inCurrentConversion(Callable<T> task) {
+    ConversionTimer timer = CURRENT.get();
+    if (timer == null) {
+      return task;
+    }
+    return () -> {
+      ConversionTimer previous = CURRENT.get();
+      CURRENT.set(timer);
+      try {
+        return task.call();
+      } finally {
+        if (previous == null) {
+          CURRENT.remove();
+        } else {
+          CURRENT.set(previous);
+        }
+      }
+    };
+  }
+
+  /**
+   * @param requestType a request class
+   * @return its bundle type, or {@code unknown} for anything that is not a record request
+   */
+  public static String bundleType(Class<?> requestType) {
+    return BUNDLE_TYPES.getOrDefault(requestType, UNKNOWN);
+  }
+
+  /**
+   * @param bundleType the bundle type of the request
+   * @param nanos time spent validating it
+   * @param valid whether it passed
+   */
+  public void recordValidation(String bundleType, long nanos, boolean valid) {
+    stageTimer(bundleType, ConversionStage.VALIDATION, valid ? "valid" : "invalid")
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Times a SNOMED lookup and charges it to the conversion running on this thread, if any.
+   *
+   * @param table the SNOMED table searched
+   * @param lookup the lookup
+   * @return the lookup's result
+   */
+  public <T> T timeSnomedLookup(String table, Supplier<T> lookup) {
+    long start = System.nanoTime();
+    try {
+      return lookup.get();
+    } finally {
+      long nanos = System.nanoTime() - start;
+      ConversionTimer current = CURRENT.get();
+      if (current != null) {
+        current.addSnomed(nanos);
+      }
+      Timer.builder("fhir.snomed.lookup")
+          .description("Time to resolve one SNOMED code")
+          .tag("table", table)
+          .register(registry)
+          .record(nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * @param resource the encoded resource, tagged by the bundle type its converter gave it
+   * @param nanos time spent encoding it
+   * @param characters length of the JSON produced
+   */
+  public void recordEncoding(IBase resource, long nanos, long characters) {
+    Object bundleType = resource.getUserData(BUNDLE_TYPE);
+    String tag = bundleType instanceof String ? (String) bundleType : UNKNOWN;
+    stageTimer(tag, ConversionStage.ENCODING, "success").record(nanos, TimeUnit.NANOSECONDS);
+    DistributionSummary.builder("fhir.bundle.size")
+        .description("Characters of FHIR JSON per encoded bundle")
+        .baseUnit("characters")
+        .tag("bundleType", tag)
+        .publishPercentileHistogram()
+        .minimumExpectedValue(1_000.0)
+        .maximumExpectedValue(64_000_000.0)
+        .register(registry)
+        .record(characters);
+  }
+
+  void finish(ConversionTimer timer, String outcome, long[] stageNanos, int entries) {
+    if (CURRENT.get() == timer) {
+      if (timer.getEnclosing() == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(timer.getEnclosing());
+      }
+    }
+    String bundleType = timer.getBundleType();
+    for (ConversionStage stage : ConversionStage.values()) {
+      if (stageNanos[stage.ordinal()] >= 0) {
+        stageTimer(bundleType, stage, outcome)
+            .record(stageNanos[stage.ordinal()], TimeUnit.NANOSECONDS);
+      }
+    }
+    Timer.builder("fhir.conversion")
+        .description("Time to convert one request into a bundle")
+        .tag("bundleType", bundleType)
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .minimumExpectedValue(Duration.ofMillis(1))
+        .maximumExpectedValue(Duration.ofSeconds(30))
+        .register(registry)
+        .record(timer.elapsedNanos(), TimeUnit.NANOSECONDS);
+    if (entries >= 0) {
+      DistributionSummary.builder("fhir.bundle.entries")
+          .description("Entries per converted bundle")
+          .tag("bundleType", bundleType)
+          .publishPercentileHistogram()
+          .minimumExpectedValue(1.0)
+          .maximumExpectedValue(10_000.0)
+          .register(registry)
+          .record(entries);
+    }
+  }
+
+  static void tagBundleType(IBase bundle, String bundleType) {
+    bundle.setUserData(BUNDLE_TYPE, bundleType);
+  }
+
+  private Timer stageTimer(String bundleType, ConversionStage stage, String outcome) {
+    return Timer.builder("fhir.conversion.stage")
+        .description("Time spent in one stage of a conversion")
+        .tag("bundleType", bundleType)
+        .tag("stage", stage.getTag())
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .minimumExpectedValue(Duration.ofNanos(10_000))
+        .maximumExpectedValue(Duration.ofSeconds(30))
+        .register(registry);
+  }
+}
@@ -0,0 +1,36 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.metrics;
+
+/**
+ * The parts a conversion is timed in, reported as the {@code stage} tag of {@code
+ * fhir.conversion.stage}. Apart from validation and encoding, they are measured back to back, so
+ * for one bundle type they add up to the converter's total.
+ */
+public enum ConversionStage {
+  /** Bean validation of the request. */
+  VALIDATION("validation"),
+  /** Patient, practitioners, organisation and encounter. */
+  PARTICIPANTS("participants"),
+  /** The clinical resources of the record, except the time spent resolving SNOMED codes. */
+  RESOURCES("resources"),
+  /** Document references and binaries built from the attached documents. */
+  DOCUMENTS("documents"),
+  /** SNOMED lookups made while building any of the resources. */
+  SNOMED("snomed"),
+  /** The composition and its sections. */
+  COMPOSITION("composition"),
+  /** The bundle, its meta and its entries. */
+  ASSEMBLY("assembly"),
+  /** Encoding the bundle as FHIR JSON. */
+  ENCODING("encoding");
+
+  private final String tag;
+
+  ConversionStage(String tag) {
+    this.tag = tag;
+  }
+
+  public String getTag() {
+    return tag;
+  }
+}
@@ -0,0 +1,93 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import org.hl7.fhir.r4.model.Bundle;
+
+/**
+ * Stopwatch of one conversion, see {@link ConversionMetrics#start}. Each {@link #lap} ends a stage
+ * and starts the next; SNOMED lookups made during a stage are taken out of it and reported as
+ * {@link ConversionStage#SNOMED}. Nothing is published until {@link #close}, so every stage of a
+ * failed conversion is tagged {@code outcome=error}.
+ *
+ * <p>Laps are taken on the converter's thread, but SNOMED lookups may be charged from the threads
+ * of its parallel sections (see {@link ConversionMetrics#inCurrentConversion}). Lookups running
+ * side by side then add up to more than the wall time they took, and the stage around them is
+ * reported net of that sum, floored at zero.
+ */
+public final class ConversionTimer implements AutoCloseable {
+  private final ConversionMetrics metrics;
+  private final String bundleType;
+  private final ConversionTimer enclosing;
+  private final long start = System.nanoTime();
+  private final long[] stageNanos = new long[ConversionStage.values().length];
+
+  private long lapStart = start;
+  private final LongAdder snomedInLap = new LongAdder();
+  private final LongAdder snomedTotal = new LongAdder();
+  private int entries = -1;
+  private boolean succeeded;
+  private boolean closed;
+
+  ConversionTimer(ConversionMetrics metrics, String bundleType, ConversionTimer enclosing) {
+    this.metrics = metrics;
+    this.bundleType = bundleType;
+    this.enclosing = enclosing;
+    Arrays.fill(stageNanos, -1);
+  }
+
+  /**
+   * Ends the given stage: the time since the previous lap, less SNOMED lookups, is added to it.
+   *
+   * @param stage the stage that just finished
+   */
+  public void lap(ConversionStage stage) {
+    long now = System.nanoTime();
+    long nanos = Math.max(0, now - lapStart - snomedInLap.sumThenReset());
+    int index = stage.ordinal();
+    stageNanos[index] = Math.max(0, stageNanos[index]) + nanos;
+    lapStart = now;
+  }
+
+  /**
+   * Marks the conversion as successful and tags the bundle, so its encoding is reported under the
+   * same bundle type.
+   *
+   * @param bundle the converted bundle
+   * @return the bundle
+   */
+  public Bundle succeeded(Bundle bundle) {
+    ConversionMetrics.tagBundleType(bundle, bundleType);
+    entries = bundle.getEntry().size();
+    succeeded = true;
+    return bundle;
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    stageNanos[ConversionStage.SNOMED.ordinal()] = snomedTotal.sum();
+    metrics.finish(this, succeeded ? "success" : "error", stageNanos, entries);
+  }
+
+  void addSnomed(long nanos) {
+    snomedInLap.add(nanos);
+    snomedTotal.add(nanos);
+  }
+
+  long elapsedNanos() {
+    return System.nanoTime() - start;
+  }
+
+  String getBundleType() {
+    return bundleType;
+  }
+
+  ConversionTimer getEnclosing() {
+    return enclosing;
+  }
+}
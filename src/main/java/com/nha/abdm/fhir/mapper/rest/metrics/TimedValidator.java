@@ -0,0 +1,51 @@
+/* (C) 2025 */
+package com.nha.abdm.fhir.mapper.rest.metrics;
+
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+/**
+ * The validator behind {@code @Valid} request bodies, reporting the time spent validating each
+ * record request as {@link ConversionStage#VALIDATION}.
+ */
+public class TimedValidator implements SmartValidator {
+  private final SpringValidatorAdapter delegate;
+  private final ConversionMetrics conversionMetrics;
+
+  public TimedValidator(
+      jakarta.validation.Validator validator, ConversionMetrics conversionMetrics) {
+    this.delegate = new SpringValidatorAdapter(validator);
+    this.conversionMetrics = conversionMetrics;
+  }
+
+  @Override
+  public boolean supports(Class<?> clazz) {
+    return delegate.supports(clazz);
+  }
+
+  @Override
+  public void validate(Object target, Errors errors) {
+    validate(target, errors, new Object[0]);
+  }
+
+  @Override
+  public void validate(Object target, Errors errors, Object... validationHints) {
+    String bundleType = ConversionMetrics.bundleType(target.getClass());
+    if (ConversionMetrics.UNKNOWN.equals(bundleType)) {
+      delegate.validate(target, errors, validationHints);
+      return;
+    }
+    int errorsBefore = errors.getErrorCount();
+    long start = System.nanoTime();
+    delegate.validate(target, errors, validationHints);
+    conversionMetrics.recordValidation(
+        bundleType, System.nanoTime() - start, errors.getErrorCount() == errorsBefore);
+  }
+
+  @Override
+  public void validateValue(
+      Class<?> targetType, String fieldName, Object value, Errors errors, Object... hints) {
+    delegate.validateValue(targetType, fieldName, value, errors, hints);
+  }
+}
@@ -1,6 +1,7 @@
 /* (C) 2024 */
 package com.nha.abdm.fhir.mapper.rest.requests.helpers;
 
+import com.nha.abdm.fhir.mapper.rest.attachments.AttachmentData;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -16,5 +17,6 @@ public class DiagnosticPresentedForm {
   @NotBlank(message = "presentedForm contentType is mandatory")
   private String contentType;
 
-  @NotNull(message = "presentedForm data is mandatory") private byte[] data;
+  @NotNull(message = "presentedForm data is mandatory")
+  private AttachmentData data;
 }